@@ -19,6 +19,9 @@ package org.hawkular.inventory.api;
 
 import org.hawkular.inventory.api.model.Relationship;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * An interface providing methods to add a pre-existing entity into relation with the single entity in the current
  * position on the inventory traversal.
@@ -51,6 +54,23 @@ interface AssociationInterface {
      */
     Relationship associate(String id) throws EntityNotFoundException, RelationAlreadyExistsException;
 
+    /**
+     * Adds several pre-existing entities into the relation with the current entity at once. All the entities are looked
+     * up using a single query and all the relationships are created in a single transaction.
+     *
+     * @see #associate(String) for explanation of how the current entity and the relation is determined.
+     *
+     * @param ids the ids of pre-existing entities to be related to the entity on the current position in the
+     *            inventory traversal
+     * @return the relationships that were created as the consequence of the association
+     *
+     * @throws EntityNotFoundException if some of the entities don't exist, in which case none of them is associated
+     * @throws RelationAlreadyExistsException if some of the entities are already associated, in which case none of
+     *                                        them is associated
+     */
+    List<Relationship> associateAll(Collection<String> ids) throws EntityNotFoundException,
+            RelationAlreadyExistsException;
+
     /**
      * Removes an entity from the relation with the current entity.
      *
@@ -65,6 +85,23 @@ interface AssociationInterface {
      */
     Relationship disassociate(String id) throws EntityNotFoundException;
 
+    /**
+     * Removes several entities from the relation with the current entity at once. All the relationships are deleted
+     * in a single transaction.
+     *
+     * @see #associate(String) for explanation of how the current entity and the relation is determined.
+     *
+     * @param ids the ids of the entities to remove from the relation with the current entity
+     * @return the relationships that were deleted as a result of the disassociation
+     *
+     * @throws EntityNotFoundException if some of the entities don't exist, in which case none of them is
+     *                                 disassociated
+     * @throws RelationNotFoundException if some of the entities are not associated, in which case none of them is
+     *                                   disassociated
+     */
+    List<Relationship> disassociateAll(Collection<String> ids) throws EntityNotFoundException,
+            RelationNotFoundException;
+
     /**
      * Finds the relationship with the entity with the provided id.
      *
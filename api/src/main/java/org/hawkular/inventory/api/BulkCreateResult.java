@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of the {@link WriteInterface#createAll(java.util.Collection) creation of several entities} at once.
+ *
+ * @since 0.1.0
+ */
+public final class BulkCreateResult {
+    private final List<String> createdIds;
+    private final List<String> conflictingIds;
+    private final List<String> duplicateIds;
+
+    public BulkCreateResult(List<String> createdIds, List<String> conflictingIds, List<String> duplicateIds) {
+        this.createdIds = Collections.unmodifiableList(createdIds);
+        this.conflictingIds = Collections.unmodifiableList(conflictingIds);
+        this.duplicateIds = Collections.unmodifiableList(duplicateIds);
+    }
+
+    /**
+     * @return the ids of the newly created entities in the order of their blueprints
+     */
+    public List<String> getCreatedIds() {
+        return createdIds;
+    }
+
+    /**
+     * @return the ids of the blueprints that were not created because an entity with the same id already existed
+     */
+    public List<String> getConflictingIds() {
+        return conflictingIds;
+    }
+
+    /**
+     * @return the ids repeated in the blueprints. Only the first of the blueprints with such id was taken into
+     * account, so the id is also either among the {@link #getCreatedIds() created} or the
+     * {@link #getConflictingIds() conflicting} ids.
+     */
+    public List<String> getDuplicateIds() {
+        return duplicateIds;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkCreateResult[" + "createdIds=" + createdIds + ", conflictingIds=" + conflictingIds
+                + ", duplicateIds=" + duplicateIds + ']';
+    }
+}
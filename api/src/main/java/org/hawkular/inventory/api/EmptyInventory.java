@@ -31,7 +31,9 @@ import org.hawkular.inventory.api.paging.Page;
 import org.hawkular.inventory.api.paging.Pager;
 import rx.Observable;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -103,6 +105,12 @@ public class EmptyInventory implements Inventory {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public BulkCreateResult createAll(Collection<Tenant.Blueprint> blueprints, boolean failOnConflict)
+                throws EntityAlreadyExistsException {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public void update(String id, Tenant.Update update) throws EntityNotFoundException {
             throw new UnsupportedOperationException();
@@ -210,6 +218,12 @@ public class EmptyInventory implements Inventory {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public BulkCreateResult createAll(Collection<ResourceType.Blueprint> blueprints, boolean failOnConflict)
+                throws EntityAlreadyExistsException {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public void update(String id, ResourceType.Update update) throws EntityNotFoundException {
             throw new UnsupportedOperationException();
@@ -307,6 +321,12 @@ public class EmptyInventory implements Inventory {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public BulkCreateResult createAll(Collection<MetricType.Blueprint> blueprints, boolean failOnConflict)
+                throws EntityAlreadyExistsException {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public void update(String id, MetricType.Update update) throws EntityNotFoundException {
             throw new UnsupportedOperationException();
@@ -325,11 +345,23 @@ public class EmptyInventory implements Inventory {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public List<Relationship> associateAll(Collection<String> ids) throws EntityNotFoundException,
+                RelationAlreadyExistsException {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public Relationship disassociate(String id) throws EntityNotFoundException {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public List<Relationship> disassociateAll(Collection<String> ids) throws EntityNotFoundException,
+                RelationNotFoundException {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public Relationship associationWith(String id) throws RelationNotFoundException {
             throw new RelationNotFoundException((String) null, (Filter[]) null);
@@ -426,6 +458,12 @@ public class EmptyInventory implements Inventory {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public BulkCreateResult createAll(Collection<Environment.Blueprint> blueprints, boolean failOnConflict)
+                throws EntityAlreadyExistsException {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public void update(String id, Environment.Update update) throws EntityNotFoundException {
             throw new UnsupportedOperationException();
@@ -662,6 +700,12 @@ public class EmptyInventory implements Inventory {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public BulkCreateResult createAll(Collection<Feed.Blueprint> blueprints, boolean failOnConflict)
+                throws EntityAlreadyExistsException {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public void update(String id, Feed.Update update) throws EntityNotFoundException {
             throw new UnsupportedOperationException();
@@ -769,6 +813,12 @@ public class EmptyInventory implements Inventory {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public BulkCreateResult createAll(Collection<Metric.Blueprint> blueprints, boolean failOnConflict)
+                throws EntityAlreadyExistsException {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public void update(String id, Metric.Update update) throws EntityNotFoundException {
             throw new UnsupportedOperationException();
@@ -787,11 +837,23 @@ public class EmptyInventory implements Inventory {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public List<Relationship> associateAll(Collection<String> ids) throws EntityNotFoundException,
+                RelationAlreadyExistsException {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public Relationship disassociate(String id) throws EntityNotFoundException {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public List<Relationship> disassociateAll(Collection<String> ids) throws EntityNotFoundException,
+                RelationNotFoundException {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public Relationship associationWith(String id) throws RelationNotFoundException {
             throw new RelationNotFoundException((String) null, (Filter[]) null);
@@ -874,6 +936,12 @@ public class EmptyInventory implements Inventory {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public BulkCreateResult createAll(Collection<Resource.Blueprint> blueprints, boolean failOnConflict)
+                throws EntityAlreadyExistsException {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public void update(String id, Resource.Update update) throws EntityNotFoundException {
             throw new UnsupportedOperationException();
@@ -22,7 +22,9 @@ import org.hawkular.inventory.api.paging.Page;
 import org.hawkular.inventory.api.paging.Pager;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Base interface for all browser interfaces over multiple entities.
@@ -48,6 +50,32 @@ public interface ResolvableToMany<Entity> {
         return new HashSet<>(entities(Pager.unlimited(Order.unspecified())));
     }
 
+    /**
+     * Unlike {@link #entities(Pager)}, the returned stream evaluates the entities lazily, as they are being consumed,
+     * so that even very large numbers of entities can be processed without holding them all in memory. The entities
+     * are not in any particular order.
+     *
+     * <p>The stream may hold resources (like a transaction) that are released only when the stream is closed, so it
+     * must always be closed, ideally using the try-with-resources statement. Implementations may require the stream to
+     * be consumed and closed in the thread that created it.
+     *
+     * @return the stream of all the entities on the current position in the traversal
+     */
+    default Stream<Entity> stream() {
+        return entities(Pager.unlimited(Order.unspecified())).stream();
+    }
+
+    /**
+     * Same as {@link #stream()} but the entities are ordered. The implementations may need to evaluate all the
+     * entities before the first one is returned, but don't need to hold them all in memory to order them.
+     *
+     * @param order the order of the entities
+     * @return the ordered stream of all the entities on the current position in the traversal
+     */
+    default Stream<Entity> stream(List<Order> order) {
+        return entities(Pager.unlimited(order)).stream();
+    }
+
     /**
      * @return true if there is at least 1 entity on the current position in the inventory traversal
      */
@@ -18,6 +18,8 @@ package org.hawkular.inventory.api;
 
 import org.hawkular.inventory.api.model.Entity;
 
+import java.util.Collection;
+
 /**
  * Generic methods to write access to entities.
  *
@@ -42,6 +44,41 @@ public interface WriteInterface<Update, Blueprint extends Entity.Blueprint, Sing
      */
     Single create(Blueprint blueprint) throws EntityAlreadyExistsException;
 
+    /**
+     * Creates new entities at the current position in the inventory traversal. All the entities are created in a
+     * single transaction.
+     *
+     * <p>The blueprints whose ids are already taken by existing entities are skipped and reported in the result as
+     * conflicting while the rest of the entities is created. If several blueprints have the same id, only the first
+     * of them is used and the id is reported in the result as duplicate.
+     *
+     * @param blueprints the blueprints to be used to create the new entities
+     * @return the ids of the created, the conflicting and the duplicate entities
+     *
+     * @throws IllegalArgumentException if some of the blueprints or context in which the entities are being created
+     *                                  is somehow invalid
+     */
+    default BulkCreateResult createAll(Collection<Blueprint> blueprints) {
+        return createAll(blueprints, false);
+    }
+
+    /**
+     * Same as {@link #createAll(Collection)} but can refuse to create any of the entities if some of their ids are
+     * already taken.
+     *
+     * @param blueprints     the blueprints to be used to create the new entities
+     * @param failOnConflict whether to fail if some of the ids are already taken or only skip the conflicting
+     *                       blueprints
+     * @return the ids of the created, the conflicting and the duplicate entities
+     *
+     * @throws EntityAlreadyExistsException if failing on conflicts and some of the ids are already taken, in which
+     *                                      case none of the entities is created
+     * @throws IllegalArgumentException if some of the blueprints or context in which the entities are being created
+     *                                  is somehow invalid
+     */
+    BulkCreateResult createAll(Collection<Blueprint> blueprints, boolean failOnConflict)
+            throws EntityAlreadyExistsException;
+
     /**
      * Persists the provided entity on the current position in the inventory traversal.
      *
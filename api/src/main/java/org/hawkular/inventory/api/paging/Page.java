@@ -39,11 +39,38 @@ public final class Page<T> implements List<T> {
     private final List<T> wrapped;
     private final PageContext pageContext;
     private final long totalSize;
+    private final boolean hasMore;
+    private final String nextCursor;
 
     public Page(List<T> wrapped, PageContext pageContext, long totalSize) {
+        this(wrapped, pageContext, totalSize, pageContext.isLimited() && totalSize > pageContext.getEnd());
+    }
+
+    /**
+     * @param wrapped     the elements on the page
+     * @param pageContext the page context
+     * @param totalSize   the total number of the results, possibly only estimated or -1 if not known, as prescribed
+     *                    by the {@link PageContext#getTotalCount() page context}
+     * @param hasMore     whether there are more results after this page
+     */
+    public Page(List<T> wrapped, PageContext pageContext, long totalSize, boolean hasMore) {
+        this(wrapped, pageContext, totalSize, hasMore, null);
+    }
+
+    /**
+     * @param wrapped     the elements on the page
+     * @param pageContext the page context
+     * @param totalSize   see {@link #Page(List, PageContext, long, boolean)}
+     * @param hasMore     whether there are more results after this page
+     * @param nextCursor  the cursor to obtain the next page with or null if there is no next page or the page context
+     *                    is not {@link PageContext#isCursorBased() cursor-based}
+     */
+    public Page(List<T> wrapped, PageContext pageContext, long totalSize, boolean hasMore, String nextCursor) {
         this.wrapped = wrapped;
         this.pageContext = pageContext;
         this.totalSize = totalSize;
+        this.hasMore = hasMore;
+        this.nextCursor = nextCursor;
     }
 
     /**
@@ -54,12 +81,33 @@ public final class Page<T> implements List<T> {
     }
 
     /**
+     * Note that the total size might only be an estimate or not known at all (in which case -1 is returned) depending
+     * on the {@link PageContext#getTotalCount()} of the page context.
+     *
      * @return the total number of results of which this page is a subset of
      */
     public long getTotalSize() {
         return totalSize;
     }
 
+    /**
+     * @return true if there are more results after this page, false otherwise
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Only cursor-based pages provide the cursor. The cursor can be used to construct the pager for the next page
+     * using {@link Pager#after(String, int, Order...)}.
+     *
+     * @return the opaque cursor pointing just after the last element of this page or null if this page is not
+     * cursor-based or there are no more results
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
     @Override
     public boolean add(T t) {
         throw new UnsupportedOperationException();
@@ -17,8 +17,10 @@
 package org.hawkular.inventory.api.paging;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * @author Lukas Krejci
@@ -30,21 +32,42 @@ public class PageContext {
     private final int pageSize;
     private final int pageNumber;
     private final List<Order> order;
+    private final TotalCount totalCount;
+    private final String after;
 
     public PageContext(int pageNumber, int pageSize, Order... orders) {
-        if (orders.length == 0) {
-            throw new IllegalArgumentException("At least one order specification must be supplied.");
-        }
-        this.pageNumber = pageSize >= 0 ? pageNumber : 0;
-        this.pageSize = pageSize;
-        List<Order> tmp = new ArrayList<>();
-        Collections.addAll(tmp, orders);
-        this.order = Collections.unmodifiableList(tmp);
+        this(pageNumber, pageSize, TotalCount.EXACT, orders);
     }
 
     public PageContext(int pageNumber, int pageSize, Iterable<Order> orders) {
-        this.pageNumber = pageSize >= 0 ? pageNumber : 0;
+        this(pageNumber, pageSize, TotalCount.EXACT, orders);
+    }
+
+    public PageContext(int pageNumber, int pageSize, TotalCount totalCount, Order... orders) {
+        this(pageNumber, pageSize, totalCount, null, Arrays.asList(orders));
+    }
+
+    public PageContext(int pageNumber, int pageSize, TotalCount totalCount, Iterable<Order> orders) {
+        this(pageNumber, pageSize, totalCount, null, orders);
+    }
+
+    /**
+     * @param pageNumber the number of the page, ignored for cursor-based contexts
+     * @param pageSize   the size of the page
+     * @param totalCount the way the total number of results should be computed
+     * @param after      if not null, the context is cursor-based and the page should start right after the element
+     *                   that the cursor was obtained from (see {@link Page#getNextCursor()}). An empty string
+     *                   denotes the first page of a cursor-based traversal.
+     * @param orders     the ordering of the results
+     */
+    public PageContext(int pageNumber, int pageSize, TotalCount totalCount, String after, Iterable<Order> orders) {
+        if (totalCount == null) {
+            throw new IllegalArgumentException("totalCount == null");
+        }
+        this.pageNumber = pageSize >= 0 && after == null ? pageNumber : 0;
         this.pageSize = pageSize;
+        this.totalCount = totalCount;
+        this.after = after;
         List<Order> tmp = new ArrayList<>();
         orders.forEach(tmp::add);
         if (tmp.size() == 0) {
@@ -113,6 +136,38 @@ public class PageContext {
         return order;
     }
 
+    /**
+     * Computing the exact total number of results requires evaluating all of them, even if only a small page of them
+     * is requested. Limited page contexts can therefore specify how precise the total needs to be.
+     *
+     * <p>The total count only makes a difference for {@link #isLimited() limited} page contexts. The total is always
+     * exact for the unlimited ones.
+     *
+     * @return how the total number of results should be computed
+     */
+    public TotalCount getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Cursor-based page contexts don't address the page by its number but by the position of the last element of the
+     * previous page in the ordered results. This doesn't require the evaluation of all the preceding results as is the
+     * case with the page number based paging.
+     *
+     * @return the opaque cursor after which the page should start, an empty string for the first page of
+     * a cursor-based traversal or null if this page context is not cursor-based
+     */
+    public String getAfter() {
+        return after;
+    }
+
+    /**
+     * @return true if this page context is cursor-based, i.e. if {@link #getAfter()} is not null
+     */
+    public boolean isCursorBased() {
+        return after != null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -120,7 +175,8 @@ public class PageContext {
 
         PageContext that = (PageContext) o;
 
-        return pageSize == that.pageSize && pageNumber == that.pageNumber && this.order.equals(that.order);
+        return pageSize == that.pageSize && pageNumber == that.pageNumber && this.order.equals(that.order)
+                && totalCount == that.totalCount && Objects.equals(after, that.after);
 
     }
 
@@ -133,7 +189,52 @@ public class PageContext {
 
     @Override public String toString() {
         return "PagingState[" + "order=" + order + ", pageNumber=" + pageNumber + ", pageSize=" +
-                pageSize + ']';
+                pageSize + ", totalCount=" + totalCount + ", after=" + after + ']';
+    }
+
+    /**
+     * The precision with which the total number of results should be computed.
+     */
+    public enum TotalCount {
+        /**
+         * The total is computed exactly. This requires evaluating all the results.
+         */
+        EXACT("exact"),
+
+        /**
+         * The evaluation stops just after the requested page. The total reported is only a lower bound of the actual
+         * total but it is known precisely whether there are more results after the page.
+         */
+        ESTIMATED("estimate"),
+
+        /**
+         * The evaluation stops at the end of the requested page and no total is reported. Whether there are more
+         * results after the page is merely guessed from whether the page is full.
+         */
+        NONE("none");
+
+        private final String shortString;
+
+        TotalCount(String shortString) {
+            this.shortString = shortString;
+        }
+
+        public static TotalCount fromShortString(String shortString) {
+            switch (shortString) {
+                case "exact":
+                    return EXACT;
+                case "estimate":
+                    return ESTIMATED;
+                case "none":
+                    return NONE;
+                default:
+                    throw new IllegalArgumentException("Unknown total count representation: " + shortString);
+            }
+        }
+
+        public String getShortString() {
+            return shortString;
+        }
     }
 
 }
@@ -17,6 +17,7 @@
 package org.hawkular.inventory.api.paging;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -57,6 +58,29 @@ public final class Pager extends PageContext {
         return new Pager(0, 1, Order.unspecified());
     }
 
+    /**
+     * Creates a cursor-based pager. Instead of skipping a number of preceding results as is done by the pagers
+     * addressing the pages by their numbers, the cursor-based pagers continue right after the element the cursor
+     * was obtained from. The results are always ordered by the provided ordering and then by the canonical paths of
+     * the elements so that the position of the cursor is unambiguous.
+     *
+     * <p>The total of the cursor-based pages is only {@link TotalCount#ESTIMATED estimated}, so that the evaluation
+     * of a page doesn't need to count all the results again. Use
+     * {@link #Pager(int, int, TotalCount, String, Iterable)} to require the exact total.
+     *
+     * @param cursor   the cursor obtained from {@link Page#getNextCursor()} of the previous page or an empty string
+     *                 for the first page
+     * @param pageSize the number of the elements on the page
+     * @param order    the ordering of the results, must be the same for all the pages
+     * @return a new pager instance
+     */
+    public static Pager after(String cursor, int pageSize, Order... order) {
+        if (cursor == null) {
+            throw new IllegalArgumentException("cursor == null");
+        }
+        return new Pager(0, pageSize, TotalCount.ESTIMATED, cursor, Arrays.asList(order));
+    }
+
     /**
      * @param pageNumber the number of the page to fetch
      * @param pageSize   the number of the elements on the page
@@ -76,6 +100,37 @@ public final class Pager extends PageContext {
         super(pageNumber, pageSize, orders);
     }
 
+    /**
+     * @param pageNumber see {@link #Pager(int, int, Order...)}
+     * @param pageSize   see {@link #Pager(int, int, Order...)}
+     * @param totalCount how precisely the total number of results should be computed
+     * @param orders     see {@link #Pager(int, int, Order...)}
+     */
+    public Pager(int pageNumber, int pageSize, TotalCount totalCount, Order... orders) {
+        super(pageNumber, pageSize, totalCount, orders);
+    }
+
+    /**
+     * @param pageNumber see {@link #Pager(int, int, Order...)}
+     * @param pageSize   see {@link #Pager(int, int, Order...)}
+     * @param totalCount see {@link #Pager(int, int, TotalCount, Order...)}
+     * @param orders     see {@link #Pager(int, int, Order...)}
+     */
+    public Pager(int pageNumber, int pageSize, TotalCount totalCount, Iterable<Order> orders) {
+        super(pageNumber, pageSize, totalCount, orders);
+    }
+
+    /**
+     * @param pageNumber see {@link #Pager(int, int, Order...)}
+     * @param pageSize   see {@link #Pager(int, int, Order...)}
+     * @param totalCount see {@link #Pager(int, int, TotalCount, Order...)}
+     * @param after      the cursor to start the page after, see {@link #after(String, int, Order...)}, may be null
+     * @param orders     see {@link #Pager(int, int, Order...)}
+     */
+    public Pager(int pageNumber, int pageSize, TotalCount totalCount, String after, Iterable<Order> orders) {
+        super(pageNumber, pageSize, totalCount, after, orders);
+    }
+
     /**
      * If this is a limited pager ({@link #isLimited()}), returns the pager pointing to the next page of the results.
      *
@@ -83,10 +138,17 @@ public final class Pager extends PageContext {
      * results.
      *
      * @return a new pager instance
+     * @throws IllegalStateException if this pager is cursor-based, because the next page is determined by the cursor
+     * of the current page (see {@link Page#getNextCursor()}).
      */
     public Pager nextPage() {
+        if (isCursorBased()) {
+            throw new IllegalStateException("The next page of a cursor-based pager is determined by the cursor of" +
+                    " the current page.");
+        }
+
         if (getPageSize() >= 0) {
-            return new Pager(getPageNumber() + 1, getPageSize(), getOrder());
+            return new Pager(getPageNumber() + 1, getPageSize(), getTotalCount(), getOrder());
         } else {
             return this;
         }
@@ -100,10 +162,15 @@ public final class Pager extends PageContext {
      * results.
      *
      * @return a new pager instance
+     * @throws IllegalStateException if this pager is cursor-based, because the cursors only allow moving forward
      */
     public Pager previousPage() {
+        if (isCursorBased()) {
+            throw new IllegalStateException("Cursor-based pagers cannot move backwards.");
+        }
+
         if (getPageNumber() > 0 && getPageSize() >= 0) {
-            return new Pager(getPageNumber() - 1, getPageSize(), getOrder());
+            return new Pager(getPageNumber() - 1, getPageSize(), getTotalCount(), getOrder());
         } else {
             return this;
         }
@@ -113,10 +180,22 @@ public final class Pager extends PageContext {
         private int pageNumber;
         private int pageSize;
         private List<Order> order = new ArrayList<>();
+        private TotalCount totalCount;
+        private String after;
 
         private Builder() {
         }
 
+        public Builder withTotalCount(TotalCount totalCount) {
+            this.totalCount = totalCount;
+            return this;
+        }
+
+        public Builder after(String cursor) {
+            this.after = cursor;
+            return this;
+        }
+
         public Builder withPageSize(int size) {
             pageSize = size;
             return this;
@@ -145,8 +224,17 @@ public final class Pager extends PageContext {
             return this;
         }
 
+        /**
+         * Unless specified otherwise, the total is computed {@link TotalCount#EXACT exactly} for the pagers
+         * addressing the pages by their numbers and only {@link TotalCount#ESTIMATED estimated} for the cursor-based
+         * pagers (see {@link Pager#after(String, int, Order...)}).
+         *
+         * @return a new pager instance
+         */
         public Pager build() {
-            return new Pager(pageNumber, pageSize, order);
+            TotalCount total = totalCount != null ? totalCount
+                    : after == null ? TotalCount.EXACT : TotalCount.ESTIMATED;
+            return new Pager(pageNumber, pageSize, total, after, order);
         }
     }
 }
@@ -16,6 +16,7 @@
  */
 package org.hawkular.inventory.base;
 
+import org.hawkular.inventory.api.EntityNotFoundException;
 import org.hawkular.inventory.api.RelationAlreadyExistsException;
 import org.hawkular.inventory.api.RelationNotFoundException;
 import org.hawkular.inventory.api.Relationships;
@@ -23,8 +24,19 @@ import org.hawkular.inventory.api.filters.Related;
 import org.hawkular.inventory.api.filters.With;
 import org.hawkular.inventory.api.model.Entity;
 import org.hawkular.inventory.api.model.Relationship;
+import org.hawkular.inventory.base.spi.CloseableIterator;
 import org.hawkular.inventory.base.spi.ElementNotFoundException;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
 import static org.hawkular.inventory.api.Action.created;
 import static org.hawkular.inventory.api.Action.deleted;
 import static org.hawkular.inventory.api.filters.With.type;
@@ -92,6 +104,113 @@ class Associator<BE, E extends Entity<?, ?>> extends Traversal<BE, E> {
         });
     }
 
+    /**
+     * Creates the relationships from the source entity to all the targets in a single transaction.
+     *
+     * @param sourceType   the type of the source entity on the source path of the context
+     * @param relationship the relationship to create
+     * @param targetType   the type of the target entities
+     * @param targetIds    the ids of the target entities
+     * @param targetsQuery produces the query to look up the target entities with given ids
+     * @return the created relationships
+     */
+    protected List<Relationship> createAssociations(Class<? extends Entity<?, ?>> sourceType,
+            Relationships.WellKnown relationship, Class<? extends Entity<?, ?>> targetType,
+            Collection<String> targetIds, Function<String[], Query> targetsQuery) {
+
+        if (targetIds == null) {
+            throw new IllegalArgumentException("targetIds == null");
+        }
+
+        if (targetIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return mutating((t) -> {
+            Query sourceQuery = context.sourcePath.extend().filter().with(type(sourceType)).get();
+            BE source = getSingle(sourceQuery, sourceType);
+
+            Map<String, BE> targets = getAll(targetType, targetIds, targetsQuery);
+
+            //check all the targets against the entities already related to the source in one go instead of checking
+            //for the relationship with each of them
+            Query relatedQuery = context.sourcePath.extend().path().with(type(sourceType), Related.by(relationship))
+                    .filter().with(type(targetType)).get();
+
+            Set<BE> related = new HashSet<>();
+            try (CloseableIterator<BE> it = context.backend.stream(relatedQuery)) {
+                it.forEachRemaining(related::add);
+            }
+
+            if (targets.values().stream().anyMatch(related::contains)) {
+                throw new RelationAlreadyExistsException(relationship.name(), Query.filters(sourceQuery));
+            }
+
+            List<BE> relationshipObjects = new ArrayList<>(targets.size());
+            for (BE target : targets.values()) {
+                relationshipObjects.add(context.backend.relate(source, target, relationship.name(), null));
+            }
+
+            List<Relationship> ret = context.backend.convertAll(relationshipObjects, Relationship.class);
+
+            context.backend.commit(t);
+
+            ret.forEach((r) -> context.notify(r, created()));
+
+            return ret;
+        });
+    }
+
+    /**
+     * Deletes the relationships from the source entity to all the targets in a single transaction.
+     *
+     * @param sourceType   the type of the source entity on the source path of the context
+     * @param relationship the relationship to delete
+     * @param targetType   the type of the target entities
+     * @param targetIds    the ids of the target entities
+     * @param targetsQuery produces the query to look up the target entities with given ids
+     * @return the deleted relationships
+     */
+    protected List<Relationship> deleteAssociations(Class<? extends Entity<?, ?>> sourceType,
+            Relationships.WellKnown relationship, Class<? extends Entity<?, ?>> targetType,
+            Collection<String> targetIds, Function<String[], Query> targetsQuery) {
+
+        if (targetIds == null) {
+            throw new IllegalArgumentException("targetIds == null");
+        }
+
+        if (targetIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return mutating((t) -> {
+            Query sourceQuery = context.sourcePath.extend().filter().with(type(sourceType)).get();
+            BE source = getSingle(sourceQuery, sourceType);
+
+            Map<String, BE> targets = getAll(targetType, targetIds, targetsQuery);
+
+            List<BE> relationshipObjects = new ArrayList<>(targets.size());
+            for (BE target : targets.values()) {
+                try {
+                    relationshipObjects.add(context.backend.getRelationship(source, target, relationship.name()));
+                } catch (ElementNotFoundException e) {
+                    throw new RelationNotFoundException(sourceType, relationship.name(), Query.filters(sourceQuery),
+                            null, null);
+                }
+            }
+
+            List<Relationship> ret = context.backend.convertAll(relationshipObjects, Relationship.class);
+
+            relationshipObjects.forEach(context.backend::delete);
+
+            context.backend.commit(t);
+
+            ret.forEach((r) -> context.notify(r, deleted()));
+
+            return ret;
+        });
+    }
+
     protected Relationship getAssociation(Class<? extends Entity<?, ?>> sourceType, String targetId,
             Class<? extends Entity<?, ?>> targetType, Relationships.WellKnown rel) {
         return readOnly(() -> {
@@ -113,4 +232,27 @@ class Associator<BE, E extends Entity<?, ?>> extends Traversal<BE, E> {
             return context.backend.convert(relationship, Relationship.class);
         });
     }
+
+    private Map<String, BE> getAll(Class<? extends Entity<?, ?>> entityType, Collection<String> ids,
+            Function<String[], Query> query) {
+
+        Map<String, BE> ret = new LinkedHashMap<>();
+        ids.forEach((id) -> ret.put(id, null));
+
+        try (CloseableIterator<BE> it = context.backend.stream(query.apply(ret.keySet().toArray(
+                new String[ret.size()])))) {
+            while (it.hasNext()) {
+                BE e = it.next();
+                ret.put(context.backend.extractId(e), e);
+            }
+        }
+
+        for (Map.Entry<String, BE> e : ret.entrySet()) {
+            if (e.getValue() == null) {
+                throw new EntityNotFoundException(entityType, Query.filters(query.apply(new String[]{e.getKey()})));
+            }
+        }
+
+        return ret;
+    }
 }
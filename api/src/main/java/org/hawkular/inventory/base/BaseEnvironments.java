@@ -60,7 +60,7 @@ public final class BaseEnvironments {
         @Override
         protected NewEntityAndPendingNotifications<Environment> wireUpNewEntity(BE entity,
                 Environment.Blueprint blueprint, CanonicalPath parentPath,
-                BE parent) {
+                BE parent, LookupCache lookups) {
             return new NewEntityAndPendingNotifications<>(new Environment(parentPath.getTenantId(),
                     context.backend.extractId(entity), blueprint.getProperties()));
         }
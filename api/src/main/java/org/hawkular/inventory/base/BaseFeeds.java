@@ -25,8 +25,6 @@ import org.hawkular.inventory.api.model.Environment;
 import org.hawkular.inventory.api.model.Feed;
 import org.hawkular.inventory.api.model.Metric;
 import org.hawkular.inventory.api.model.Resource;
-import org.hawkular.inventory.api.paging.Page;
-import org.hawkular.inventory.api.paging.Pager;
 import org.hawkular.inventory.base.spi.CanonicalPath;
 
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
@@ -52,15 +50,13 @@ public final class BaseFeeds {
 
         @Override
         protected String getProposedId(Feed.Blueprint blueprint) {
-            Page<BE> envs = context.backend.query(context.sourcePath.extend().filter().with(type(Environment.class))
-                    .get(), Pager.single());
+            BE envObject = context.backend.querySingle(context.sourcePath.extend().filter()
+                    .with(type(Environment.class)).get());
 
-            if (envs.isEmpty()) {
+            if (envObject == null) {
                 throw new EntityNotFoundException(Environment.class, Query.filters(context.sourcePath));
             }
 
-            BE envObject = envs.get(0);
-
             Environment env = context.backend.convert(envObject, Environment.class);
 
             String envId = env.getId();
@@ -72,7 +68,7 @@ public final class BaseFeeds {
 
         @Override
         protected NewEntityAndPendingNotifications<Feed> wireUpNewEntity(BE entity, Feed.Blueprint blueprint,
-                CanonicalPath parentPath, BE parent) {
+                CanonicalPath parentPath, BE parent, LookupCache lookups) {
             return new NewEntityAndPendingNotifications<>(new Feed(parentPath.getTenantId(),
                     parentPath.getEnvironmentId(), context.backend.extractId(entity), blueprint.getProperties()));
         }
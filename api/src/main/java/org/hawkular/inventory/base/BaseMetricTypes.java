@@ -29,12 +29,16 @@ import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.base.spi.CanonicalPath;
 
+import java.util.Collection;
+import java.util.List;
+
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
 import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
 import static org.hawkular.inventory.api.Relationships.WellKnown.owns;
 import static org.hawkular.inventory.api.filters.Related.asTargetBy;
 import static org.hawkular.inventory.api.filters.Related.by;
 import static org.hawkular.inventory.api.filters.With.id;
+import static org.hawkular.inventory.api.filters.With.ids;
 import static org.hawkular.inventory.api.filters.With.type;
 
 /**
@@ -63,7 +67,7 @@ public final class BaseMetricTypes {
         @Override
         protected NewEntityAndPendingNotifications<MetricType> wireUpNewEntity(BE entity,
                 MetricType.Blueprint blueprint, CanonicalPath parentPath,
-                BE parent) {
+                BE parent, LookupCache lookups) {
             context.backend.update(entity, MetricType.Update.builder().withUnit(blueprint.getUnit()).build());
 
             return new NewEntityAndPendingNotifications<>(new MetricType(parentPath.getTenantId(),
@@ -134,11 +138,28 @@ public final class BaseMetricTypes {
             return deleteAssociation(ResourceType.class, owns, MetricType.class, metric);
         }
 
+        @Override
+        public List<Relationship> associateAll(Collection<String> ids) throws EntityNotFoundException,
+                RelationAlreadyExistsException {
+            return createAssociations(ResourceType.class, owns, MetricType.class, ids, this::siblings);
+        }
+
+        @Override
+        public List<Relationship> disassociateAll(Collection<String> ids) throws EntityNotFoundException,
+                RelationNotFoundException {
+            return deleteAssociations(ResourceType.class, owns, MetricType.class, ids, this::siblings);
+        }
+
         @Override
         public Relationship associationWith(String id) throws RelationNotFoundException {
             return getAssociation(ResourceType.class, id, MetricType.class, owns);
         }
 
+        private Query siblings(String... ids) {
+            return context.sourcePath.extend().path().with(asTargetBy(contains), by(contains),
+                    type(MetricType.class), ids(ids)).get();
+        }
+
         @Override
         public MetricTypes.Multiple getAll(Filter[][] filters) {
             return new BaseMetricTypes.Multiple<>(context.proceed().whereAll(filters).get());
@@ -22,16 +22,17 @@ import org.hawkular.inventory.api.Metrics;
 import org.hawkular.inventory.api.RelationAlreadyExistsException;
 import org.hawkular.inventory.api.RelationNotFoundException;
 import org.hawkular.inventory.api.filters.Filter;
-import org.hawkular.inventory.api.model.AbstractElement;
 import org.hawkular.inventory.api.model.Metric;
 import org.hawkular.inventory.api.model.MetricType;
 import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.api.model.Resource;
-import org.hawkular.inventory.api.model.TenantBasedEntity;
 import org.hawkular.inventory.base.NewEntityAndPendingNotifications.Notification;
 import org.hawkular.inventory.base.spi.CanonicalPath;
 import org.hawkular.inventory.base.spi.ElementNotFoundException;
 
+import java.util.Collection;
+import java.util.List;
+
 import static org.hawkular.inventory.api.Action.created;
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
 import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
@@ -39,6 +40,7 @@ import static org.hawkular.inventory.api.Relationships.WellKnown.owns;
 import static org.hawkular.inventory.api.filters.Related.asTargetBy;
 import static org.hawkular.inventory.api.filters.Related.by;
 import static org.hawkular.inventory.api.filters.With.id;
+import static org.hawkular.inventory.api.filters.With.ids;
 import static org.hawkular.inventory.api.filters.With.type;
 
 /**
@@ -65,27 +67,23 @@ public final class BaseMetrics {
 
         @Override
         protected NewEntityAndPendingNotifications<Metric> wireUpNewEntity(BE entity, Metric.Blueprint blueprint,
-                CanonicalPath parentPath, BE parent) {
-
-            Class<? extends AbstractElement<?, ?>> parentType = context.backend.extractType(parent);
-
-            @SuppressWarnings("unchecked")
-            TenantBasedEntity<?, ?> parentEntity = context.backend.convert(parent,
-                    (Class<? extends TenantBasedEntity<?, ?>>) parentType);
-
-            BE metricTypeObject;
-
-            try {
-                metricTypeObject = context.backend.find(CanonicalPath.builder().withTenantId(parentEntity.getTenantId())
-                        .withMetricTypeId(blueprint.getMetricTypeId()).build());
-            } catch (ElementNotFoundException e) {
-                throw new IllegalArgumentException("A metric type with id '" + blueprint.getMetricTypeId() +
-                        "' not found in tenant '" + parentEntity.getTenantId() + "'.");
-            }
+                CanonicalPath parentPath, BE parent, LookupCache lookups) {
+
+            //the metrics created in a single transaction tend to share the metric types, so we only look each of them
+            //up once
+            BE metricTypeObject = lookups.get(CanonicalPath.builder().withTenantId(parentPath.getTenantId())
+                    .withMetricTypeId(blueprint.getMetricTypeId()).build(), (path) -> {
+                try {
+                    return context.backend.find(path);
+                } catch (ElementNotFoundException e) {
+                    throw new IllegalArgumentException("A metric type with id '" + blueprint.getMetricTypeId() +
+                            "' not found in tenant '" + parentPath.getTenantId() + "'.");
+                }
+            });
 
             BE r = context.backend.relate(metricTypeObject, entity, defines.name(), null);
 
-            MetricType metricType = context.backend.convert(metricTypeObject, MetricType.class);
+            MetricType metricType = lookups.get(metricTypeObject, (o) -> context.backend.convert(o, MetricType.class));
 
             Metric ret = new Metric(parentPath.getTenantId(), parentPath.getEnvironmentId(), parentPath.getFeedId(),
                     context.backend.extractId(entity), metricType, blueprint.getProperties());
@@ -158,11 +156,28 @@ public final class BaseMetrics {
             return deleteAssociation(Resource.class, owns, Metric.class, metric);
         }
 
+        @Override
+        public List<Relationship> associateAll(Collection<String> ids) throws EntityNotFoundException,
+                RelationAlreadyExistsException {
+            return createAssociations(Resource.class, owns, Metric.class, ids, this::siblings);
+        }
+
+        @Override
+        public List<Relationship> disassociateAll(Collection<String> ids) throws EntityNotFoundException,
+                RelationNotFoundException {
+            return deleteAssociations(Resource.class, owns, Metric.class, ids, this::siblings);
+        }
+
         @Override
         public Relationship associationWith(String id) throws RelationNotFoundException {
             return getAssociation(Resource.class, id, Metric.class, owns);
         }
 
+        private Query siblings(String... ids) {
+            return context.sourcePath.extend().path().with(asTargetBy(contains), by(contains),
+                    type(Metric.class), ids(ids)).get();
+        }
+
         @Override
         public Metrics.Multiple getAll(Filter[][] filters) {
             return new Multiple<>(context.proceed().whereAll(filters).get());
@@ -39,13 +39,10 @@ import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.Tenant;
-import org.hawkular.inventory.api.paging.Page;
-import org.hawkular.inventory.api.paging.Pager;
 import org.hawkular.inventory.base.spi.CanonicalPath;
 import org.hawkular.inventory.base.spi.ElementNotFoundException;
 import org.hawkular.inventory.base.spi.SwitchElementType;
 
-import java.util.Iterator;
 import java.util.Map;
 
 import static org.hawkular.inventory.api.Relationships.Direction.incoming;
@@ -114,13 +111,11 @@ public final class BaseRelationships {
                     throw new EntityNotFoundException(targetOrSource.getClass(), Filter.pathTo(targetOrSource));
                 }
 
-                Page<BE> origins = context.backend.query(context.sourcePath, Pager.single());
-                if (origins.isEmpty()) {
+                BE origin = context.backend.querySingle(context.sourcePath);
+                if (origin == null) {
                     throw new EntityNotFoundException(originEntityType, Query.filters(context.select().get()));
                 }
 
-                BE origin = origins.get(0);
-
                 if (Relationships.WellKnown.contains.name().equals(name)) {
                     checkContains(origin, direction, incidenceObject);
                 }
@@ -215,24 +210,14 @@ public final class BaseRelationships {
             }
 
             if (direction == Relationships.Direction.incoming) {
-                Iterator<BE> containees = context.backend.getTransitiveClosureOver(origin, contains.name(), outgoing);
-
-                while (containees.hasNext()) {
-                    BE containee = containees.next();
-                    if (containee.equals(incidenceObject)) {
-                        throw new IllegalArgumentException("The target (indirectly) contains the source." +
-                                " The source therefore cannot contain the target.");
-                    }
+                if (context.backend.isReachable(origin, incidenceObject, contains.name(), outgoing)) {
+                    throw new IllegalArgumentException("The target (indirectly) contains the source." +
+                            " The source therefore cannot contain the target.");
                 }
             } else if (direction == outgoing) {
-                Iterator<BE> containers = context.backend.getTransitiveClosureOver(origin, contains.name(), incoming);
-
-                while (containers.hasNext()) {
-                    BE container = containers.next();
-                    if (container.equals(incidenceObject)) {
-                        throw new IllegalArgumentException("The source (indirectly) contains the target." +
-                                " The target therefore cannot contain the source.");
-                    }
+                if (context.backend.isReachable(origin, incidenceObject, contains.name(), incoming)) {
+                    throw new IllegalArgumentException("The source (indirectly) contains the target." +
+                            " The target therefore cannot contain the source.");
                 }
             }
         }
@@ -56,7 +56,7 @@ public final class BaseResourceTypes {
 
         @Override
         protected NewEntityAndPendingNotifications<ResourceType> wireUpNewEntity(BE entity,
-                ResourceType.Blueprint blueprint, CanonicalPath parentPath, BE parent) {
+                ResourceType.Blueprint blueprint, CanonicalPath parentPath, BE parent, LookupCache lookups) {
 
             context.backend.update(entity, ResourceType.Update.builder().withVersion(blueprint.getVersion()).build());
 
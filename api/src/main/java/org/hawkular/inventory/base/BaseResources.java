@@ -21,12 +21,10 @@ import org.hawkular.inventory.api.EntityNotFoundException;
 import org.hawkular.inventory.api.Metrics;
 import org.hawkular.inventory.api.Resources;
 import org.hawkular.inventory.api.filters.Filter;
-import org.hawkular.inventory.api.model.AbstractElement;
 import org.hawkular.inventory.api.model.Metric;
 import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
-import org.hawkular.inventory.api.model.TenantBasedEntity;
 import org.hawkular.inventory.base.NewEntityAndPendingNotifications.Notification;
 import org.hawkular.inventory.base.spi.CanonicalPath;
 import org.hawkular.inventory.base.spi.ElementNotFoundException;
@@ -60,27 +58,24 @@ public final class BaseResources {
 
         @Override
         protected NewEntityAndPendingNotifications<Resource> wireUpNewEntity(BE entity,
-                Resource.Blueprint blueprint, CanonicalPath parentPath, BE parent) {
-
-            Class<? extends AbstractElement<?, ?>> parentType = context.backend.extractType(parent);
-
-            @SuppressWarnings("unchecked")
-            TenantBasedEntity<?, ?> parentEntity = context.backend.convert(parent,
-                    (Class<? extends TenantBasedEntity<?, ?>>) parentType);
-
-            BE resourceTypeObject;
-            try {
-                resourceTypeObject = context.backend.find(CanonicalPath.builder()
-                        .withTenantId(parentEntity.getTenantId()).withResourceTypeId(blueprint.getResourceTypeId())
-                        .build());
-            } catch (ElementNotFoundException e) {
-                throw new IllegalArgumentException("Resource type '" + blueprint.getResourceTypeId() + "' not found" +
-                        " in tenant '" + parentEntity.getTenantId() + "'.");
-            }
+                Resource.Blueprint blueprint, CanonicalPath parentPath, BE parent, LookupCache lookups) {
+
+            //the resources created in a single transaction tend to share the resource types, so we only look each of
+            //them up once
+            BE resourceTypeObject = lookups.get(CanonicalPath.builder().withTenantId(parentPath.getTenantId())
+                    .withResourceTypeId(blueprint.getResourceTypeId()).build(), (path) -> {
+                try {
+                    return context.backend.find(path);
+                } catch (ElementNotFoundException e) {
+                    throw new IllegalArgumentException("Resource type '" + blueprint.getResourceTypeId() +
+                            "' not found in tenant '" + parentPath.getTenantId() + "'.");
+                }
+            });
 
             BE r = context.backend.relate(resourceTypeObject, entity, defines.name(), null);
 
-            ResourceType resourceType = context.backend.convert(resourceTypeObject, ResourceType.class);
+            ResourceType resourceType = lookups.get(resourceTypeObject,
+                    (o) -> context.backend.convert(o, ResourceType.class));
 
             Resource ret = new Resource(parentPath.getTenantId(), parentPath.getEnvironmentId(), parentPath.getFeedId(),
                     context.backend.extractId(entity), resourceType, blueprint.getProperties());
@@ -56,7 +56,7 @@ public final class BaseTenants {
 
         @Override
         protected NewEntityAndPendingNotifications<Tenant> wireUpNewEntity(BE entity, Tenant.Blueprint blueprint,
-                CanonicalPath parentPath, BE parent) {
+                CanonicalPath parentPath, BE parent, LookupCache lookups) {
 
             return new NewEntityAndPendingNotifications<>(new Tenant(context.backend.extractId(entity),
                     blueprint.getProperties()));
@@ -22,10 +22,22 @@ import org.hawkular.inventory.api.ResolvableToMany;
 import org.hawkular.inventory.api.ResolvableToSingle;
 import org.hawkular.inventory.api.model.AbstractElement;
 import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.paging.Order;
 import org.hawkular.inventory.api.paging.Page;
 import org.hawkular.inventory.api.paging.Pager;
+import org.hawkular.inventory.base.spi.CloseableIterator;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A base class for all interface impls that need to resolve the entities.
@@ -43,14 +55,12 @@ abstract class Fetcher<BE, E extends AbstractElement<?, ?>> extends Traversal<BE
     @Override
     public E entity() throws EntityNotFoundException, RelationNotFoundException {
         return readOnly(() -> {
-            Page<BE> results = context.backend.query(context.select().get(), Pager.single());
+            BE entity = context.backend.querySingle(context.select().get());
 
-            if (results.isEmpty()) {
+            if (entity == null) {
                 throwNotFoundException();
             }
 
-            BE entity = results.get(0);
-
             E ret = context.backend.convert(entity, context.entityClass);
 
             if (!isApplicable(ret)) {
@@ -64,7 +74,7 @@ abstract class Fetcher<BE, E extends AbstractElement<?, ?>> extends Traversal<BE
     @Override
     public Page<E> entities(Pager pager) {
         return readOnly(() -> {
-            Function<BE, E> conversion = (e) -> context.backend.convert(e, context.entityClass);
+            Function<List<BE>, List<E>> conversion = (es) -> context.backend.convertAll(es, context.entityClass);
             Function<E, Boolean> filter = context.configuration.getResultFilter() == null ? null :
                     (e) -> context.configuration.getResultFilter().isApplicable(e);
 
@@ -72,6 +82,26 @@ abstract class Fetcher<BE, E extends AbstractElement<?, ?>> extends Traversal<BE
         });
     }
 
+    @Override
+    public Stream<E> stream() {
+        return stream(Collections.emptyList());
+    }
+
+    /**
+     * The results are read in batches, each in its own short read-only transaction, so that no transaction is held
+     * while the caller processes the results (e.g. while they are written to a slow client). The query itself is
+     * evaluated in the transaction of the first batch.
+     */
+    @Override
+    public Stream<E> stream(List<Order> order) {
+        CloseableIterator<BE> results = context.backend.stream(context.select().get(), order);
+
+        Iterator<E> entities = new ConvertingIterator(results);
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(entities, Spliterator.ORDERED), false)
+                .onClose(results::close);
+    }
+
     @SuppressWarnings("unchecked")
     private void throwNotFoundException() {
         if (Entity.class.isAssignableFrom(context.entityClass)) {
@@ -83,4 +113,55 @@ abstract class Fetcher<BE, E extends AbstractElement<?, ?>> extends Traversal<BE
                     Query.filters(context.sourcePath));
         }
     }
+
+    /**
+     * Converts the backend elements to entities in batches, so that the conversion can share the work between the
+     * elements of a batch, and filters out the entities not applicable according to the result filter. Each batch is
+     * read and converted in its own read-only transaction.
+     */
+    private final class ConvertingIterator implements Iterator<E> {
+        private static final int BATCH_SIZE = 100;
+
+        private final Iterator<BE> elements;
+        private Iterator<E> batch = Collections.emptyIterator();
+        private boolean exhausted;
+
+        ConvertingIterator(Iterator<BE> elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!batch.hasNext() && !exhausted) {
+                batch = readOnly(this::nextBatch).iterator();
+            }
+
+            return batch.hasNext();
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return batch.next();
+        }
+
+        private List<E> nextBatch() {
+            List<BE> next = new ArrayList<>(BATCH_SIZE);
+            while (next.size() < BATCH_SIZE && elements.hasNext()) {
+                next.add(elements.next());
+            }
+
+            exhausted = !elements.hasNext();
+
+            Stream<E> converted = context.backend.convertAll(next, context.entityClass).stream();
+            if (context.configuration.getResultFilter() != null) {
+                converted = converted.filter(Fetcher.this::isApplicable);
+            }
+
+            return converted.collect(Collectors.toList());
+        }
+    }
 }
@@ -17,6 +17,7 @@
 package org.hawkular.inventory.base;
 
 import org.hawkular.inventory.api.Action;
+import org.hawkular.inventory.api.BulkCreateResult;
 import org.hawkular.inventory.api.EntityAlreadyExistsException;
 import org.hawkular.inventory.api.EntityNotFoundException;
 import org.hawkular.inventory.api.model.AbstractElement;
@@ -30,25 +31,28 @@ import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.Tenant;
-import org.hawkular.inventory.api.paging.Page;
-import org.hawkular.inventory.api.paging.Pager;
 import org.hawkular.inventory.base.spi.CanonicalPath;
+import org.hawkular.inventory.base.spi.CloseableIterator;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
-import static java.util.stream.Collectors.toSet;
 import static org.hawkular.inventory.api.Action.created;
 import static org.hawkular.inventory.api.Action.deleted;
 import static org.hawkular.inventory.api.Action.updated;
-import static org.hawkular.inventory.api.Relationships.Direction.both;
-import static org.hawkular.inventory.api.Relationships.Direction.outgoing;
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
-import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
 import static org.hawkular.inventory.api.filters.Related.by;
 import static org.hawkular.inventory.api.filters.With.id;
+import static org.hawkular.inventory.api.filters.With.ids;
 import static org.hawkular.inventory.api.filters.With.type;
 
 /**
@@ -85,9 +89,7 @@ abstract class Mutator<BE, E extends Entity<Blueprint, Update>, Blueprint extend
 
             Query existenceCheck = context.hop().filter().with(id(id)).get();
 
-            Page<BE> results = context.backend.query(existenceCheck, Pager.single());
-
-            if (!results.isEmpty()) {
+            if (context.backend.querySingle(existenceCheck) != null) {
                 throw new EntityAlreadyExistsException(id, Query.filters(existenceCheck));
             }
 
@@ -103,7 +105,8 @@ abstract class Mutator<BE, E extends Entity<Blueprint, Update>, Blueprint extend
                 containsRel = context.backend.relate(parent, entityObject, contains.name(), Collections.emptyMap());
             }
 
-            newEntity = wireUpNewEntity(entityObject, blueprint, parentPath.path, parentPath.entity);
+            newEntity = wireUpNewEntity(entityObject, blueprint, parentPath.path, parentPath.entity,
+                    new LookupCache());
 
             context.backend.commit(transaction);
 
@@ -186,6 +189,94 @@ abstract class Mutator<BE, E extends Entity<Blueprint, Update>, Blueprint extend
         });
     }
 
+    /**
+     * The implementation of the {@link org.hawkular.inventory.api.WriteInterface#createAll(Collection, boolean)}
+     * method common to all the entity types.
+     *
+     * <p>The parent of the new entities is resolved and the proposed ids are checked only once for all the blueprints
+     * and all the entities are created in a single transaction. The notifications are sent out after the transaction
+     * is committed.
+     *
+     * @param blueprints     the blueprints of the new entities
+     * @param failOnConflict whether to fail if some of the proposed ids are already taken
+     * @return the ids of the created and the conflicting entities
+     */
+    public final BulkCreateResult createAll(Collection<Blueprint> blueprints, boolean failOnConflict)
+            throws EntityAlreadyExistsException {
+        if (blueprints == null) {
+            throw new IllegalArgumentException("blueprints == null");
+        }
+
+        if (blueprints.isEmpty()) {
+            return new BulkCreateResult(Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+        }
+
+        return mutating((transaction) -> {
+            Map<String, Blueprint> toCreate = new LinkedHashMap<>();
+            Set<String> conflicts = new LinkedHashSet<>();
+            Set<String> duplicates = new LinkedHashSet<>();
+
+            for (Blueprint blueprint : blueprints) {
+                String id = getProposedId(blueprint);
+                if (toCreate.putIfAbsent(id, blueprint) != null) {
+                    duplicates.add(id);
+                }
+            }
+
+            Query existenceCheck = context.hop().filter()
+                    .with(ids(toCreate.keySet().toArray(new String[toCreate.size()]))).get();
+
+            try (CloseableIterator<BE> existing = context.backend.stream(existenceCheck)) {
+                while (existing.hasNext()) {
+                    String id = context.backend.extractId(existing.next());
+                    toCreate.remove(id);
+                    conflicts.add(id);
+                }
+            }
+
+            if (failOnConflict && !conflicts.isEmpty()) {
+                String id = conflicts.iterator().next();
+                throw new EntityAlreadyExistsException(id, Query.filters(context.hop().filter().with(id(id)).get()));
+            }
+
+            CanonicalPathAndEntity<BE> parentPath = getCanonicalParentPath();
+            LookupCache lookups = new LookupCache();
+
+            List<NewEntityAndPendingNotifications<E>> newEntities = new ArrayList<>(toCreate.size());
+            List<BE> containsRels = new ArrayList<>(toCreate.size());
+
+            for (Map.Entry<String, Blueprint> e : toCreate.entrySet()) {
+                BE entityObject = context.backend.persist(e.getKey(), e.getValue());
+
+                if (parentPath.path.isDefined()) {
+                    containsRels.add(context.backend.relate(parentPath.entity, entityObject, contains.name(),
+                            Collections.emptyMap()));
+                }
+
+                newEntities.add(wireUpNewEntity(entityObject, e.getValue(), parentPath.path, parentPath.entity,
+                        lookups));
+            }
+
+            List<Relationship> newContainsRels = containsRels.isEmpty() ? Collections.emptyList()
+                    : context.backend.convertAll(containsRels, Relationship.class);
+
+            context.backend.commit(transaction);
+
+            for (int i = 0; i < newEntities.size(); ++i) {
+                NewEntityAndPendingNotifications<E> newEntity = newEntities.get(i);
+
+                context.notify(newEntity.getEntity(), created());
+                if (!newContainsRels.isEmpty()) {
+                    context.notify(newContainsRels.get(i), created());
+                }
+                newEntity.getNotifications().forEach(this::notify);
+            }
+
+            return new BulkCreateResult(new ArrayList<>(toCreate.keySet()), new ArrayList<>(conflicts),
+                    new ArrayList<>(duplicates));
+        });
+    }
+
     public final void update(String id, Update update) throws EntityNotFoundException {
         BE updated = mutating((t) -> {
             BE toUpdate = checkExists(id);
@@ -206,82 +297,54 @@ abstract class Mutator<BE, E extends Entity<Blueprint, Update>, Blueprint extend
         mutating((transaction) -> {
             BE toDelete = checkExists(id);
 
-            Set<BE> verticesToDeleteThatDefineSomething = new HashSet<>();
-
-            Set<BE> deleted = new HashSet<>();
-            Set<BE> deletedRels = new HashSet<>();
-            Set<AbstractElement<?, ?>> deletedEntities;
-            Set<Relationship> deletedRelationships;
-
-            context.backend.getTransitiveClosureOver(toDelete, contains.name(), outgoing).forEachRemaining((e) -> {
-                if (context.backend.hasRelationship(e, outgoing, defines.name())) {
-                    verticesToDeleteThatDefineSomething.add(e);
-                } else {
-                    deleted.add(e);
-                }
-                //not only the entity, but also its relationships are going to disappear
-                deletedRels.addAll(context.backend.getRelationships(e, both));
-            });
-
-            if (context.backend.hasRelationship(toDelete, outgoing, defines.name())) {
-                verticesToDeleteThatDefineSomething.add(toDelete);
-            } else {
-                deleted.add(toDelete);
-            }
-            deletedRels.addAll(context.backend.getRelationships(toDelete, both));
+            List<AbstractElement<?, ?>> deletedEntities = new ArrayList<>();
+            List<Relationship> deletedRelationships = new ArrayList<>();
 
-            //we've gathered all entities to be deleted. Now convert them all to entities for reporting purposes.
-            //We have to do it prior to actually deleting the objects in the backend so that all information and
-            //relationships is still available.
-            deletedEntities = deleted.stream().map((o) -> context.backend.convert(o, context.backend.extractType(o)))
-                    .collect(Collectors.<AbstractElement<?, ?>>toSet());
+            @SuppressWarnings("unchecked")
+            Class<AbstractElement<?, ?>> anyElementType =
+                    (Class<AbstractElement<?, ?>>) (Class<?>) AbstractElement.class;
 
-            deletedRelationships = deletedRels.stream().map((o) -> context.backend.convert(o, Relationship.class))
-                    .collect(toSet());
+            //the deleted elements only need to be converted if there is someone to report their deletion to. We have to
+            //do it before the backend actually deletes them so that all information and relationships is still
+            //available.
+            boolean observed = context.isObserved(deleted());
+            BiConsumer<List<BE>, List<BE>> reporter = !observed ? null : (entities, relationships) -> {
+                deletedRelationships.addAll(context.backend.convertAll(relationships, Relationship.class));
+                deletedEntities.addAll(context.backend.convertAll(entities, anyElementType));
+            };
 
-            //k, now we can delete them all... the order is not important anymore
-            for (BE e : deleted) {
-                context.backend.delete(e);
-            }
+            //the backend may commit the deleted chunks before the transaction ends, in which case they are deleted
+            //even if the rest of the deletion fails, so we report them right away
+            Runnable chunkReporter = !observed ? null : () -> notifyDeleted(deletedEntities, deletedRelationships);
 
-            for (BE e : verticesToDeleteThatDefineSomething) {
-                if (context.backend.hasRelationship(e, outgoing, defines.name())) {
-                    //we avoid the convert() function here because it assumes the containing entities of the passed in
-                    //entity exist. This might not be true during the delete because the transitive closure "walks" the
-                    //entities from the "top" down the containment chain and the entities are immediately deleted.
-                    String rootId = context.backend.extractId(toDelete);
-                    String definingId = context.backend.extractId(e);
-                    String rootType = context.entityClass.getSimpleName();
-                    String definingType = context.backend.extractType(e).getSimpleName();
-
-                    String rootEntity = "Entity[id=" + rootId + ", type=" + rootType + "]";
-                    String definingEntity = "Entity[id=" + definingId + ", type=" + definingType + "]";
-
-                    throw new IllegalArgumentException("Could not delete entity " + rootEntity + ". The entity " +
-                            definingEntity + ", which it (indirectly) contains, acts as a definition for some " +
-                            "entities that are not deleted along with it, which would leave them without a " +
-                            "definition. This is illegal.");
-                } else {
-                    context.backend.delete(e);
-                }
-            }
+            context.backend.deleteSubtree(toDelete, reporter, chunkReporter);
 
             context.backend.commit(transaction);
 
-            //report the relationship deletions first - it would be strange to report deletion of a relationship after
-            //reporting that an entity on one end of the relationship has been deleted
-            for (Relationship r : deletedRelationships) {
-                context.notify(r, deleted());
-            }
-
-            for (AbstractElement<?, ?> e : deletedEntities) {
-                context.notify(e, deleted());
-            }
+            notifyDeleted(deletedEntities, deletedRelationships);
 
             return null;
         });
     }
 
+    /**
+     * Reports the deletion of the provided elements and clears the lists.
+     */
+    private void notifyDeleted(List<AbstractElement<?, ?>> entities, List<Relationship> relationships) {
+        //report the relationship deletions first - it would be strange to report deletion of a relationship after
+        //reporting that an entity on one end of the relationship has been deleted
+        for (Relationship r : relationships) {
+            context.notify(r, deleted());
+        }
+
+        for (AbstractElement<?, ?> e : entities) {
+            context.notify(e, deleted());
+        }
+
+        relationships.clear();
+        entities.clear();
+    }
+
     private CanonicalPathAndEntity<BE> getCanonicalParentPath() {
         return ElementTypeVisitor.accept(context.entityClass, new ElementTypeVisitor<CanonicalPathAndEntity<BE>,
                 CanonicalPath.Builder>() {
@@ -366,17 +429,13 @@ abstract class Mutator<BE, E extends Entity<Blueprint, Update>, Blueprint extend
             private BE getParentOfType(Class<? extends Entity<?, ?>> type, boolean throwException) {
                 Query query = context.sourcePath.extend().filter().with(type(type)).get();
 
-                Page<BE> parents = context.backend.query(query, Pager.single());
+                BE parent = context.backend.querySingle(query);
 
-                if (parents.isEmpty()) {
-                    if (throwException) {
-                        throw new EntityNotFoundException(type, Query.filters(query));
-                    } else {
-                        return null;
-                    }
+                if (parent == null && throwException) {
+                    throw new EntityNotFoundException(type, Query.filters(query));
                 }
 
-                return parents.get(0);
+                return parent;
             }
         }, CanonicalPath.builder());
     }
@@ -392,11 +451,12 @@ abstract class Mutator<BE, E extends Entity<Blueprint, Update>, Blueprint extend
      * @param blueprint  the blueprint that it prescribes how the entity should be initialized
      * @param parentPath the path to the parent entity
      * @param parent     the actual parent entity
+     * @param lookups    the cache of the lookups shared by all the entities created in the same transaction
      * @return an object with the initialized and converted entity together with any pending notifications to be sent
      * out
      */
     protected abstract NewEntityAndPendingNotifications<E> wireUpNewEntity(BE entity, Blueprint blueprint,
-            CanonicalPath parentPath, BE parent);
+            CanonicalPath parentPath, BE parent, LookupCache lookups);
 
     private BE checkExists(String id) {
         //sourcePath is "path to the parent"
@@ -404,13 +464,39 @@ abstract class Mutator<BE, E extends Entity<Blueprint, Update>, Blueprint extend
         //we're given the id to select from these
         Query query = context.sourcePath.extend().path().with(context.selectCandidates).with(id(id)).get();
 
-        Page<BE> result = context.backend.query(query, Pager.single());
+        BE result = context.backend.querySingle(query);
 
-        if (result.isEmpty()) {
+        if (result == null) {
             throw new EntityNotFoundException(context.entityClass, Query.filters(query));
         }
 
-        return result.get(0);
+        return result;
+    }
+
+    /**
+     * Caches the results of the lookups that are common to several entities created in a single transaction, like
+     * finding and converting their defining type.
+     */
+    protected static final class LookupCache {
+        private final Map<Object, Object> values = new HashMap<>();
+
+        /**
+         * @param key    the key of the lookup
+         * @param lookup the function to look up the value if it is not cached yet
+         * @param <K>    the type of the key
+         * @param <V>    the type of the value
+         * @return the cached value or the newly looked up one
+         */
+        @SuppressWarnings("unchecked")
+        public <K, V> V get(K key, Function<K, V> lookup) {
+            Object value = values.get(key);
+            if (value == null) {
+                value = lookup.apply(key);
+                values.put(key, value);
+            }
+
+            return (V) value;
+        }
     }
 
     private static final class CanonicalPathAndEntity<BE> {
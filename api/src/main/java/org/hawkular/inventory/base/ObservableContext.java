@@ -49,6 +49,14 @@ final class ObservableContext {
         return observables.containsKey(interest);
     }
 
+    /**
+     * @param action the action
+     * @return true if there is an interest in the action on any type of entity, false otherwise
+     */
+    public boolean isObserved(Action<?, ?> action) {
+        return observables.keySet().stream().anyMatch((i) -> i.getAction() == action);
+    }
+
     @SuppressWarnings("unchecked")
     public <C, T> Iterator<Subject<C, C>> matchingSubjects(Action<C, T> action, T object) {
         return observables.entrySet().stream().filter((e) -> e.getKey().matches(action, object))
@@ -23,8 +23,6 @@ import org.hawkular.inventory.api.EntityNotFoundException;
 import org.hawkular.inventory.api.ResultFilter;
 import org.hawkular.inventory.api.model.AbstractElement;
 import org.hawkular.inventory.api.model.Entity;
-import org.hawkular.inventory.api.paging.Page;
-import org.hawkular.inventory.api.paging.Pager;
 import org.hawkular.inventory.base.spi.InventoryBackend;
 
 /**
@@ -63,13 +61,13 @@ public abstract class Traversal<BE, E extends AbstractElement<?, ?>> {
      * @throws EntityNotFoundException if the query doesn't return any results
      */
     protected BE getSingle(Query query, Class<? extends Entity<?, ?>> entityType) {
-        Page<BE> results = context.backend.query(query, Pager.single());
+        BE result = context.backend.querySingle(query);
 
-        if (results.isEmpty()) {
+        if (result == null) {
             throw new EntityNotFoundException(entityType, Query.filters(query));
         }
 
-        return results.get(0);
+        return result;
     }
 
     /**
@@ -167,6 +167,14 @@ public final class TraversalContext<BE, E extends AbstractElement<?, ?>> {
                 observableContext);
     }
 
+    /**
+     * @param action the action
+     * @return true if there are subscribers interested in the action, false otherwise
+     */
+    boolean isObserved(Action<?, ?> action) {
+        return observableContext.isObserved(action);
+    }
+
     /**
      * Sends out the notification to the subscribers.
      *
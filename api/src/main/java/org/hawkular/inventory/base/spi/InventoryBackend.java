@@ -17,12 +17,15 @@
 package org.hawkular.inventory.base.spi;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.model.AbstractElement;
+import org.hawkular.inventory.api.paging.Order;
 import org.hawkular.inventory.api.paging.Page;
 import org.hawkular.inventory.api.paging.Pager;
 import org.hawkular.inventory.base.Query;
@@ -65,6 +68,48 @@ public interface InventoryBackend<E> extends AutoCloseable {
      */
     Page<E> query(Query query, Pager pager);
 
+    /**
+     * Translates the query to the backend-specific representation and returns an iterator over its results. Unlike
+     * {@link #query(Query, Pager)}, the results are neither ordered nor counted and are only evaluated as the
+     * iterator is being advanced, so the results never need to be held in memory all at once.
+     *
+     * <p>The iterator is bound to the current transaction and must be closed before the transaction is committed or
+     * rolled back.
+     *
+     * @param query the query to execute
+     * @return the iterator over the results of the query
+     */
+    CloseableIterator<E> stream(Query query);
+
+    /**
+     * Same as {@link #stream(Query)} but the results are ordered. Unlike {@link #query(Query, Pager)}, the
+     * implementations may order large results using temporary storage instead of memory. Such storage is released
+     * when the iterator is closed.
+     *
+     * <p>Unlike {@link #stream(Query)}, the iterator is not bound to a single transaction. The query is evaluated in
+     * the transaction current when the iterator is first advanced and each of the results is looked up in the
+     * transaction current when it is returned, so that the iterator can be consumed in several consecutive
+     * transactions. The results that no longer exist by then are left out. The iterator can be closed outside of any
+     * transaction.
+     *
+     * @param query the query to execute
+     * @param order the order of the results
+     * @return the iterator over the ordered results of the query
+     */
+    CloseableIterator<E> stream(Query query, List<Order> order);
+
+    /**
+     * Runs the query and returns the first element it yields. Unlike {@link #query(Query, Pager)} with
+     * {@link Pager#single()}, this does not compute the total number of results and can therefore stop evaluating
+     * the query as soon as the first match is found.
+     *
+     * <p>This is the preferred way of performing existence checks and lookups of a single element.
+     *
+     * @param query the query to execute
+     * @return the first element matching the query or null if there is no such element
+     */
+    E querySingle(Query query);
+
     /**
      * A variant of the {@link #query(Query, Pager)} method which in addition to querying also converts the results
      * using the provided conversion function and, more importantly, filters the results using the provided (possibly
@@ -73,14 +118,18 @@ public interface InventoryBackend<E> extends AutoCloseable {
      * <p>Because the total count and the paging is dependent on the filtering it needs to be applied during the
      * querying process and not only after the fact be the caller.
      *
+     * <p>The conversion function is applied on batches of elements, so that it can share the work needed to convert
+     * the elements (see {@link #convertAll(List, Class)}). It must return the converted elements in the same order as
+     * they were provided.
+     *
      * @param query      the query to perform
      * @param pager      the page to retrieve
-     * @param conversion a conversion function to apply on the elements, never null
+     * @param conversion a conversion function to apply on the batches of elements, never null
      * @param filter     possibly null filter to filter the results with
      * @param <T>        the type of the returned elements
      * @return the page of results according to the supplied parameters
      */
-    <T extends AbstractElement<?, ?>> Page<T> query(Query query, Pager pager, Function<E, T> conversion,
+    <T extends AbstractElement<?, ?>> Page<T> query(Query query, Pager pager, Function<List<E>, List<T>> conversion,
             Function<T, Boolean> filter);
 
     /**
@@ -92,10 +141,25 @@ public interface InventoryBackend<E> extends AutoCloseable {
      * @param relationshipName the name of the relationship to follow when composing the transitive closure
      * @param direction        any of the valid directions including
      *                         {@link org.hawkular.inventory.api.Relationships.Direction#both}.
-     * @return an iterator over the transitive closure, may be "lazy" and evaluate the closure on demand.
+     * @return an iterator over the transitive closure, may be "lazy" and evaluate the closure on demand. The backend
+     * should not be modified during the iteration.
      */
     Iterator<E> getTransitiveClosureOver(E startingPoint, String relationshipName, Relationships.Direction direction);
 
+    /**
+     * Checks whether the target element is in the transitive closure of the starting point as defined by
+     * {@link #getTransitiveClosureOver(Object, String, Relationships.Direction)}. Unlike enumerating the closure, this
+     * stops as soon as the target is reached.
+     *
+     * @param startingPoint    the starting element
+     * @param target           the element to look for
+     * @param relationshipName the name of the relationship to follow when composing the transitive closure
+     * @param direction        any of the valid directions including
+     *                         {@link org.hawkular.inventory.api.Relationships.Direction#both}.
+     * @return true if the target can be reached from the starting point, false otherwise
+     */
+    boolean isReachable(E startingPoint, E target, String relationshipName, Relationships.Direction direction);
+
     /**
      * Checks whether there exists any relationship in given direction relative to the given entity with given name.
      *
@@ -171,6 +235,19 @@ public interface InventoryBackend<E> extends AutoCloseable {
      */
     <T extends AbstractElement<?, ?>> T convert(E entityRepresentation, Class<T> entityType);
 
+    /**
+     * Converts all the provided representation objects to inventory elements of the provided type. This is equivalent
+     * to calling {@link #convert(Object, Class)} on each of the objects, but the backend can share the lookups of the
+     * data common to the elements (like their parents or defining types).
+     *
+     * @param entityRepresentations the objects representing the elements
+     * @param entityType            the desired type of the elements
+     * @param <T>                   the desired type of the elements
+     * @return the converted inventory elements in the same order as the provided representation objects
+     * @throws ClassCastException if some of the representation objects don't correspond to the provided type
+     */
+    <T extends AbstractElement<?, ?>> List<T> convertAll(List<E> entityRepresentations, Class<T> entityType);
+
     /**
      * Creates a new relationship from source to target with given name and properties.
      *
@@ -209,6 +286,32 @@ public interface InventoryBackend<E> extends AutoCloseable {
      */
     void delete(E entity);
 
+    /**
+     * Deletes the entity together with all the entities it (transitively) contains and all the relationships
+     * incident on them.
+     *
+     * <p>The whole subtree is gathered and checked before anything is deleted - if some entity in the subtree acts as
+     * a definition of an entity outside of it, nothing is deleted and an exception is thrown.
+     *
+     * <p>The subtree is then deleted in chunks, from the most deeply contained entities up to the root. Before a chunk
+     * is deleted, its entities and their relationships are passed to the provided callback while they still exist
+     * (and can therefore be converted to inventory elements, for example).
+     *
+     * <p>To keep the size of the transactions bounded, the backend may commit the chunks as soon as they are deleted,
+     * in which case it calls the provided commit callback after each such commit. The deletion of the subtree is then
+     * NOT atomic - if it fails, the chunks committed so far remain deleted and are visible as such to the other
+     * transactions, and only the rest of the work is rolled back with the transaction. The caller should therefore
+     * consider the chunks passed to the callback before the last commit callback deleted. The last chunk is always
+     * committed (or rolled back) with the transaction.
+     *
+     * @param root           the root entity of the subtree to delete
+     * @param beforeDelete   the callback receiving the entities and the relationships of each of the chunks before
+     *                       they are deleted, may be null
+     * @param chunkCommitted the callback called after the chunks deleted so far have been committed, may be null
+     * @throws IllegalArgumentException if some of the entities in the subtree defines an entity outside of it
+     */
+    void deleteSubtree(E root, BiConsumer<List<E>, List<E>> beforeDelete, Runnable chunkCommitted);
+
     /**
      * Commits the transaction.
      * @param transaction the transaction to commit
@@ -17,16 +17,21 @@
 package org.hawkular.inventory.api.test;
 
 import org.hawkular.inventory.api.Action;
+import org.hawkular.inventory.api.BulkCreateResult;
 import org.hawkular.inventory.api.Configuration;
+import org.hawkular.inventory.api.EntityAlreadyExistsException;
 import org.hawkular.inventory.api.EntityNotFoundException;
+import org.hawkular.inventory.api.Environments;
 import org.hawkular.inventory.api.FeedAlreadyRegisteredException;
 import org.hawkular.inventory.api.Feeds;
 import org.hawkular.inventory.api.Interest;
 import org.hawkular.inventory.api.Metrics;
+import org.hawkular.inventory.api.RelationAlreadyExistsException;
 import org.hawkular.inventory.api.RelationNotFoundException;
 import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.ResolvableToMany;
 import org.hawkular.inventory.api.ResolvableToSingle;
+import org.hawkular.inventory.api.Resources;
 import org.hawkular.inventory.api.feeds.AcceptWithFallbackFeedIdStrategy;
 import org.hawkular.inventory.api.feeds.RandomUUIDFeedIdStrategy;
 import org.hawkular.inventory.api.filters.Defined;
@@ -47,6 +52,7 @@ import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.Tenant;
 import org.hawkular.inventory.api.paging.Order;
 import org.hawkular.inventory.api.paging.Page;
+import org.hawkular.inventory.api.paging.PageContext;
 import org.hawkular.inventory.api.paging.Pager;
 import org.hawkular.inventory.base.BaseInventory;
 import org.hawkular.inventory.base.PathFragment;
@@ -61,7 +67,10 @@ import rx.Subscription;
 
 import java.io.FileInputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
@@ -73,6 +82,8 @@ import java.util.function.Function;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static org.hawkular.inventory.api.Action.created;
 import static org.hawkular.inventory.api.Action.deleted;
 import static org.hawkular.inventory.api.Action.updated;
@@ -982,6 +993,99 @@ public abstract class AbstractBaseInventoryPersistenceCheck<E> {
         assert ms.size() == 0;
     }
 
+    @Test
+    public void testPagingWithoutExactTotal() throws Exception {
+        Metrics.Multiple metrics = inventory.tenants().getAll().environments().getAll().feedlessMetrics().getAll();
+
+        Pager firstPage = new Pager(0, 2, PageContext.TotalCount.ESTIMATED, Order.by("id", Order.Direction.ASCENDING));
+
+        Page<Metric> ms = metrics.entities(firstPage);
+        Assert.assertEquals(2, ms.size());
+        Assert.assertTrue(ms.hasMore());
+        Assert.assertEquals(3, ms.getTotalSize());
+
+        ms = metrics.entities(firstPage.nextPage());
+        Assert.assertEquals(1, ms.size());
+        Assert.assertFalse(ms.hasMore());
+
+        firstPage = new Pager(0, 2, PageContext.TotalCount.NONE, Order.unspecified());
+
+        ms = metrics.entities(firstPage);
+        Assert.assertEquals(2, ms.size());
+        Assert.assertTrue(ms.hasMore());
+        Assert.assertEquals(-1, ms.getTotalSize());
+
+        ms = metrics.entities(firstPage.nextPage());
+        Assert.assertEquals(1, ms.size());
+        Assert.assertFalse(ms.hasMore());
+    }
+
+    @Test
+    public void testCursorPaging() throws Exception {
+        Metrics.Multiple metrics = inventory.tenants().getAll().environments().getAll().feedlessMetrics().getAll();
+
+        List<String> expected = metrics.entities(Pager.unlimited(Order.by("id", Order.Direction.DESCENDING)))
+                .stream().map(Metric::getId).collect(toList());
+
+        List<String> actual = new ArrayList<>();
+        Page<Metric> ms = metrics.entities(Pager.after("", 2, Order.by("id", Order.Direction.DESCENDING)));
+        Assert.assertEquals(2, ms.size());
+        Assert.assertTrue(ms.hasMore());
+        Assert.assertNotNull(ms.getNextCursor());
+        Assert.assertEquals(3, ms.getTotalSize());
+        ms.forEach(m -> actual.add(m.getId()));
+
+        ms = metrics.entities(Pager.after(ms.getNextCursor(), 2, Order.by("id", Order.Direction.DESCENDING)));
+        Assert.assertEquals(1, ms.size());
+        Assert.assertFalse(ms.hasMore());
+        Assert.assertNull(ms.getNextCursor());
+        ms.forEach(m -> actual.add(m.getId()));
+
+        Assert.assertEquals(expected, actual);
+
+        try {
+            metrics.entities(Pager.after("not a cursor", 2, Order.unspecified()));
+            Assert.fail("Invalid cursor should have been rejected.");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testCursorPagingWithTiedSortKeys() throws Exception {
+        Environments.ReadWrite envs = inventory.tenants().get("com.acme.tenant").environments();
+        envs.create(new Environment.Blueprint("cursor1"));
+        envs.create(new Environment.Blueprint("cursor2"));
+        envs.create(new Environment.Blueprint("cursor3"));
+        try {
+            envs.get("cursor1").feedlessResources().create(new Resource.Blueprint("dup", "URL"));
+            envs.get("cursor2").feedlessResources().create(new Resource.Blueprint("dup", "URL"));
+            envs.get("cursor3").feedlessResources().create(new Resource.Blueprint("dup", "URL"));
+
+            Resources.Multiple resources = envs.getAll().feedlessResources().getAll();
+
+            Set<CanonicalPath> expected = resources.entities(Pager.unlimited(Order.unspecified())).stream()
+                    .map(CanonicalPath::of).collect(toSet());
+
+            //the resources with the same id are on different pages, so the cursor must tell them apart
+            List<CanonicalPath> actual = new ArrayList<>();
+            Page<Resource> page = resources.entities(Pager.after("", 1, Order.by("id", Order.Direction.ASCENDING)));
+            page.forEach(r -> actual.add(CanonicalPath.of(r)));
+            while (page.getNextCursor() != null) {
+                page = resources.entities(Pager.after(page.getNextCursor(), 1,
+                        Order.by("id", Order.Direction.ASCENDING)));
+                page.forEach(r -> actual.add(CanonicalPath.of(r)));
+            }
+
+            Assert.assertEquals(expected.size(), actual.size());
+            Assert.assertEquals(expected, new HashSet<>(actual));
+        } finally {
+            envs.delete("cursor1");
+            envs.delete("cursor2");
+            envs.delete("cursor3");
+        }
+    }
+
     @Test
     public void testGettingResourcesFromFeedsUsingEnvironments() throws Exception {
         Set<Resource> rs = inventory.tenants().get("com.acme.tenant").environments().get("production").allResources()
@@ -993,6 +1097,103 @@ public abstract class AbstractBaseInventoryPersistenceCheck<E> {
         Assert.assertTrue(rs.stream().anyMatch((r) -> "feedResource3".equals(r.getId())));
     }
 
+    @Test
+    public void testStreamingResources() throws Exception {
+        Resources.Multiple resources = inventory.tenants().get("com.acme.tenant").environments().get("production")
+                .allResources().getAll();
+
+        Set<Resource> streamed;
+        try (Stream<Resource> s = resources.stream()) {
+            streamed = s.collect(toSet());
+        }
+
+        Assert.assertEquals(resources.entities(), streamed);
+
+        List<Order> order = Collections.singletonList(Order.by("id", Order.Direction.ASCENDING));
+        List<String> ordered;
+        try (Stream<Resource> s = resources.stream(order)) {
+            ordered = s.map(Resource::getId).collect(toList());
+        }
+
+        Assert.assertEquals(resources.entities(Pager.unlimited(order)).stream().map(Resource::getId)
+                .collect(toList()), ordered);
+    }
+
+    @Test
+    public void testCreateAll() throws Exception {
+        Resources.ReadWrite resources = inventory.tenants().get("com.acme.tenant").environments().get("production")
+                .feedlessResources();
+
+        try {
+            resources.createAll(Arrays.asList(new Resource.Blueprint("bulk1", "URL"),
+                    new Resource.Blueprint("host1", "URL")), true);
+            Assert.fail("Creating an existing resource should have failed.");
+        } catch (EntityAlreadyExistsException e) {
+            Assert.assertEquals("host1", e.getEntityId());
+        }
+
+        Assert.assertFalse(resources.get("bulk1").exists());
+
+        BulkCreateResult result = resources.createAll(Arrays.asList(new Resource.Blueprint("bulk1", "URL"),
+                new Resource.Blueprint("host1", "URL"), new Resource.Blueprint("bulk2", "URL"),
+                new Resource.Blueprint("bulk1", "URL")));
+
+        try {
+            Assert.assertEquals(Arrays.asList("bulk1", "bulk2"), result.getCreatedIds());
+            Assert.assertEquals(Collections.singletonList("host1"), result.getConflictingIds());
+            Assert.assertEquals(Collections.singletonList("bulk1"), result.getDuplicateIds());
+
+            Resource bulk2 = resources.get("bulk2").entity();
+            Assert.assertEquals("URL", bulk2.getType().getId());
+            Assert.assertEquals("production", bulk2.getEnvironmentId());
+        } finally {
+            resources.delete("bulk1");
+            resources.delete("bulk2");
+        }
+    }
+
+    @Test
+    public void testAssociateAll() throws Exception {
+        Environments.Single env = inventory.tenants().get("com.acme.tenant").environments().get("production");
+
+        env.feedlessMetrics().createAll(Arrays.asList(new Metric.Blueprint("ResponseTime", "bulkMetric1"),
+                new Metric.Blueprint("ResponseTime", "bulkMetric2")));
+
+        Metrics.ReadAssociate metrics = env.feedlessResources().get("host1").metrics();
+
+        try {
+            try {
+                metrics.associateAll(Arrays.asList("bulkMetric1", "host1_ping_response"));
+                Assert.fail("Associating an already associated metric should have failed.");
+            } catch (RelationAlreadyExistsException e) {
+                //good
+            }
+
+            try {
+                metrics.associateAll(Arrays.asList("bulkMetric1", "nonExistentMetric"));
+                Assert.fail("Associating a non-existent metric should have failed.");
+            } catch (EntityNotFoundException e) {
+                //good
+            }
+
+            Assert.assertFalse(metrics.get("bulkMetric1").exists());
+
+            List<Relationship> rels = metrics.associateAll(Arrays.asList("bulkMetric1", "bulkMetric2"));
+            Assert.assertEquals(2, rels.size());
+            Assert.assertTrue(rels.stream().allMatch((r) -> owns.name().equals(r.getName())
+                    && "host1".equals(r.getSource().getId())));
+            Assert.assertTrue(metrics.get("bulkMetric1").exists());
+            Assert.assertTrue(metrics.get("bulkMetric2").exists());
+
+            Assert.assertEquals(2, metrics.disassociateAll(Arrays.asList("bulkMetric1", "bulkMetric2")).size());
+            Assert.assertFalse(metrics.get("bulkMetric1").exists());
+            Assert.assertTrue(metrics.get("host1_ping_response").exists());
+        } finally {
+            env.feedlessMetrics().delete("bulkMetric1");
+            env.feedlessMetrics().delete("bulkMetric2");
+        }
+    }
+
     @Test
     public void testGettingMetricsFromFeedsUsingEnvironments() throws Exception {
         Set<Metric> rs = inventory.tenants().get("com.acme.tenant").environments().get("production").allMetrics()
@@ -1307,6 +1508,30 @@ public abstract class AbstractBaseInventoryPersistenceCheck<E> {
         Assert.assertEquals(1, test.apply(env, "contains", incoming).count());
         Assert.assertTrue(test.apply(env, "contains", incoming).anyMatch((e) -> e instanceof Tenant &&
                 "com.acme.tenant".equals(e.getId())));
+
+        //following the relationships in both directions goes back and forth but each element is reached only once
+        Assert.assertFalse(test.apply(feed, "contains", both).anyMatch((e) -> e instanceof Feed &&
+                "feed1".equals(e.getId())));
+        Assert.assertEquals(test.apply(feed, "contains", both).count(),
+                test.apply(feed, "contains", both).map(AbstractElement::getId).distinct().count());
+    }
+
+    @Test
+    public void testBackendIsReachable() throws Exception {
+        InventoryBackend<E> backend = inventory.getBackend();
+
+        E tenant = backend.find(CanonicalPath.builder().withTenantId("com.acme.tenant").build());
+        E feed = backend.find(CanonicalPath.builder().withTenantId("com.acme.tenant").withEnvironmentId("production")
+                .withFeedId("feed1").build());
+        E resource = backend.find(CanonicalPath.builder().withTenantId("com.acme.tenant")
+                .withEnvironmentId("production").withFeedId("feed1").withResourceId("feedResource1").build());
+
+        Assert.assertTrue(backend.isReachable(tenant, resource, "contains", outgoing));
+        Assert.assertTrue(backend.isReachable(feed, resource, "contains", outgoing));
+        Assert.assertFalse(backend.isReachable(resource, tenant, "contains", outgoing));
+        Assert.assertTrue(backend.isReachable(resource, tenant, "contains", incoming));
+        Assert.assertTrue(backend.isReachable(resource, tenant, "contains", both));
+        Assert.assertFalse(backend.isReachable(tenant, resource, "defines", outgoing));
     }
 
     @Test
@@ -1398,6 +1623,21 @@ public abstract class AbstractBaseInventoryPersistenceCheck<E> {
 
     }
 
+    @Test
+    public void testBackendQuerySingle() throws Exception {
+        InventoryBackend<E> backend = inventory.getBackend();
+
+        Query q = Query.path().with(type(Tenant.class), id("com.acme.tenant"), Related.by("contains"),
+                type(Environment.class), id("production")).get();
+        E result = backend.querySingle(q);
+        Assert.assertNotNull(result);
+        Assert.assertEquals("production", backend.extractId(result));
+
+        q = Query.path().with(type(Tenant.class), id("com.acme.tenant"), Related.by("contains"),
+                type(Environment.class), id("no-such-environment")).get();
+        Assert.assertNull(backend.querySingle(q));
+    }
+
     private <T extends AbstractElement<?, U>, U extends AbstractElement.Update>
     void runObserverTest(Class<T> entityClass, int nofCreatedRelationships, int nofDeletedRelationships,
             Runnable payload) {
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.impl.tinkerpop;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded LRU cache of the ancestry of the entity vertices, keyed by their native ids.
+ *
+ * <p>The ancestry consists of the ids of the tenant, environment and feed the entity lives in and of the native id of
+ * the vertex of the resource or metric type defining the entity. This is all that is needed to convert the vertex
+ * to the entity without walking the "contains" and "defines" edges.
+ *
+ * <p>The ancestry of an entity only changes when the "contains" or "defines" edges are deleted, which the backend
+ * reports by {@link #invalidate(Object) invalidating} the affected entries.
+ *
+ * @since 0.1.0
+ */
+final class AncestryCache {
+    private final int maxSize;
+    private final Map<Object, Ancestry> ancestries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxSize the maximum number of entries in the cache, if less or equal to zero, the cache is disabled
+     */
+    AncestryCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.ancestries = new LinkedHashMap<Object, Ancestry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Ancestry> eldest) {
+                if (size() > AncestryCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param vertexId the native id of the entity vertex
+     * @return the cached ancestry of the vertex or null if not cached
+     */
+    Ancestry get(Object vertexId) {
+        if (maxSize <= 0) {
+            return null;
+        }
+
+        Ancestry ret;
+        synchronized (this) {
+            ret = ancestries.get(vertexId);
+        }
+
+        if (ret == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+
+        return ret;
+    }
+
+    /**
+     * Same as {@link #get(Object)} but doesn't count as a lookup in the statistics.
+     *
+     * @param vertexId the native id of the entity vertex
+     * @return the cached ancestry of the vertex or null if not cached
+     */
+    synchronized Ancestry peek(Object vertexId) {
+        return ancestries.get(vertexId);
+    }
+
+    /**
+     * @param vertexId the native id of the entity vertex
+     * @param ancestry the ancestry of the vertex
+     */
+    void put(Object vertexId, Ancestry ancestry) {
+        if (maxSize <= 0) {
+            return;
+        }
+
+        synchronized (this) {
+            ancestries.put(vertexId, ancestry);
+        }
+    }
+
+    /**
+     * Removes the ancestry of the vertex with the provided id from the cache.
+     *
+     * @param vertexId the native id of the vertex
+     */
+    synchronized void invalidate(Object vertexId) {
+        ancestries.remove(vertexId);
+    }
+
+    /**
+     * Removes all the entries from the cache.
+     */
+    synchronized void clear() {
+        ancestries.clear();
+    }
+
+    CacheStatistics getStatistics() {
+        int size;
+        synchronized (this) {
+            size = ancestries.size();
+        }
+
+        return new CacheStatistics(hits.get(), misses.get(), evictions.get(), size, Math.max(0, maxSize));
+    }
+
+    /**
+     * The ids of the entities an entity "lives in".
+     */
+    static final class Ancestry {
+        final String tenantId;
+        final String environmentId;
+        final String feedId;
+        final Object definingTypeVertexId;
+
+        /**
+         * @param tenantId             the id of the tenant of the entity (the id of the entity itself for tenants)
+         * @param environmentId        the id of the environment or null if the entity is not in one
+         * @param feedId               the id of the feed or null if the entity is not in one
+         * @param definingTypeVertexId the native id of the vertex of the resource or metric type defining the entity
+         *                             or null if not applicable or not known
+         */
+        Ancestry(String tenantId, String environmentId, String feedId, Object definingTypeVertexId) {
+            this.tenantId = tenantId;
+            this.environmentId = environmentId;
+            this.feedId = feedId;
+            this.definingTypeVertexId = definingTypeVertexId;
+        }
+
+        Ancestry withDefiningTypeVertexId(Object definingTypeVertexId) {
+            return new Ancestry(tenantId, environmentId, feedId, definingTypeVertexId);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.impl.tinkerpop;
+
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import org.hawkular.inventory.base.spi.CanonicalPath;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded LRU cache of the native ids of the elements found by their canonical paths.
+ *
+ * <p>The cache only stores the ids, never the elements themselves, because the elements are bound to the transaction
+ * they were loaded in. A cached id is turned into the element using a direct lookup in the graph, which is verified
+ * to still correspond to the canonical path. If it doesn't, the entry is discarded and the caller needs to find
+ * the element by traversing the graph.
+ *
+ * @since 0.1.0
+ */
+final class CanonicalPathCache {
+    private final int maxSize;
+    private final Map<CanonicalPath, Object> idsByPath;
+    private final Map<Object, CanonicalPath> pathsById = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxSize the maximum number of entries in the cache, if less or equal to zero, the cache is disabled
+     */
+    CanonicalPathCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.idsByPath = new LinkedHashMap<CanonicalPath, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CanonicalPath, Object> eldest) {
+                if (size() > CanonicalPathCache.this.maxSize) {
+                    pathsById.remove(eldest.getValue());
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Looks up the element with the cached id in the graph.
+     *
+     * @param graph the graph to look the element up in
+     * @param path  the canonical path of the element
+     * @return the element or null if the path is not cached or the cached id no longer corresponds to the path
+     */
+    Element get(Graph graph, CanonicalPath path) {
+        if (maxSize <= 0) {
+            return null;
+        }
+
+        Object id;
+        synchronized (this) {
+            id = idsByPath.get(path);
+        }
+
+        if (id == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        Element element;
+        boolean valid;
+        if (path.getRelationshipId() != null) {
+            element = graph.getEdge(id);
+            valid = element != null
+                    && path.getRelationshipId().equals(element.getProperty(Constants.Property.__eid.name()));
+        } else {
+            element = graph.getVertex(id);
+            valid = element != null && CanonicalPaths.toIndexValue(path)
+                    .equals(element.getProperty(Constants.Property.__cp.name()));
+        }
+
+        if (!valid) {
+            invalidate(id);
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return element;
+    }
+
+    /**
+     * @param path    the canonical path of the element
+     * @param element the element found at the path
+     */
+    void put(CanonicalPath path, Element element) {
+        if (maxSize <= 0) {
+            return;
+        }
+
+        Object id = element.getId();
+
+        synchronized (this) {
+            Object previous = idsByPath.put(path, id);
+            if (previous != null && !previous.equals(id)) {
+                pathsById.remove(previous);
+            }
+            pathsById.put(id, path);
+        }
+    }
+
+    /**
+     * Removes the element with the provided id from the cache.
+     *
+     * @param id the native id of the element
+     */
+    synchronized void invalidate(Object id) {
+        CanonicalPath path = pathsById.remove(id);
+        if (path != null) {
+            idsByPath.remove(path);
+        }
+    }
+
+    /**
+     * Removes all the entries from the cache.
+     */
+    synchronized void clear() {
+        idsByPath.clear();
+        pathsById.clear();
+    }
+
+    CacheStatistics getStatistics() {
+        int size;
+        synchronized (this) {
+            size = idsByPath.size();
+        }
+
+        return new CacheStatistics(hits.get(), misses.get(), evictions.get(), size, Math.max(0, maxSize));
+    }
+}
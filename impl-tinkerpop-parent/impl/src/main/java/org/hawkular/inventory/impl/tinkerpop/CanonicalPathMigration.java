@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.impl.tinkerpop;
+
+import com.tinkerpop.blueprints.Vertex;
+import org.hawkular.inventory.base.spi.InventoryBackend;
+
+import java.util.List;
+
+/**
+ * Stores the {@link Constants.Property#__cp canonical paths} in the graphs created before they were maintained.
+ *
+ * <p>The tenants are migrated one by one, each in its own transaction. The canonical path of the tenant itself is
+ * stored last, which marks the tenant as migrated. The migration is therefore only ever performed once per tenant and
+ * if it is interrupted, it continues with the unfinished tenants the next time.
+ *
+ * @since 0.1.0
+ */
+final class CanonicalPathMigration {
+
+    private CanonicalPathMigration() {
+        //no instances, thank you
+    }
+
+    /**
+     * Stores the canonical paths of all the entities of the tenants that don't have their canonical path stored yet.
+     *
+     * @param context the context of the inventory to migrate
+     */
+    static void migrate(InventoryContext<?> context) {
+        List<Vertex> tenants = new HawkularPipeline<>(context.getGraph()).V().hasType(Constants.Type.tenant)
+                .hasNot(Constants.Property.__cp.name()).cast(Vertex.class).toList();
+
+        for (Vertex tenant : tenants) {
+            InventoryBackend.Transaction t = context.startTransaction(true);
+            try {
+                String tenantId = TinkerpopBackend.getEid(tenant);
+                String value = CanonicalPaths.tenantIndexValue(tenantId);
+
+                long count = CanonicalPaths.assignDescendants(tenant, value);
+                tenant.setProperty(Constants.Property.__cp.name(), value);
+
+                context.commit(t);
+
+                Log.LOG.iCanonicalPathsMigrated(count + 1, tenantId);
+            } catch (RuntimeException e) {
+                context.rollback(t);
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.impl.tinkerpop;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import org.hawkular.inventory.api.filters.Filter;
+import org.hawkular.inventory.api.filters.Related;
+import org.hawkular.inventory.api.filters.With;
+import org.hawkular.inventory.base.PathFragment;
+import org.hawkular.inventory.base.Query;
+import org.hawkular.inventory.base.QueryFragment;
+import org.hawkular.inventory.base.spi.CanonicalPath;
+import org.hawkular.inventory.base.spi.NoopFilter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
+
+/**
+ * Support for the {@link Constants.Property#__cp} property holding the canonical path of the entity represented by
+ * a vertex.
+ *
+ * <p>The canonical path is stored as a string of segments, one per entity on the path, each of the form
+ * {@code /<type code>;<id>} (e.g. {@code /t;tenant/e;environment/r;resource}). The forward slashes and backslashes in
+ * the ids are escaped using a backslash so that the value is unambiguous.
+ *
+ * <p>The value is assigned to a vertex once it is contained in another vertex that already has it (or, in case of
+ * tenants, straight away), because that is the time when its canonical path becomes known.
+ *
+ * @since 0.1.0
+ */
+final class CanonicalPaths {
+
+    private CanonicalPaths() {
+        //no instances, thank you
+    }
+
+    /**
+     * @param path the canonical path
+     * @return the value of the {@link Constants.Property#__cp} property of the entity with the provided canonical path
+     * or null if the path doesn't point to an entity represented by a vertex
+     */
+    static String toIndexValue(CanonicalPath path) {
+        if (path.getRelationshipId() != null || path.getTenantId() == null) {
+            return null;
+        }
+
+        StringBuilder bld = new StringBuilder();
+        append(bld, Constants.Type.tenant, path.getTenantId());
+
+        if (path.getEnvironmentId() != null) {
+            append(bld, Constants.Type.environment, path.getEnvironmentId());
+            if (path.getFeedId() != null) {
+                append(bld, Constants.Type.feed, path.getFeedId());
+            }
+
+            if (path.getMetricId() != null) {
+                append(bld, Constants.Type.metric, path.getMetricId());
+            } else if (path.getResourceId() != null) {
+                append(bld, Constants.Type.resource, path.getResourceId());
+            }
+        } else if (path.getMetricTypeId() != null) {
+            append(bld, Constants.Type.metricType, path.getMetricTypeId());
+        } else if (path.getResourceTypeId() != null) {
+            append(bld, Constants.Type.resourceType, path.getResourceTypeId());
+        }
+
+        return bld.toString();
+    }
+
+    /**
+     * @param tenantId the id of the tenant
+     * @return the value of the {@link Constants.Property#__cp} property of the tenant
+     */
+    static String tenantIndexValue(String tenantId) {
+        return append(new StringBuilder(), Constants.Type.tenant, tenantId).toString();
+    }
+
+    /**
+     * @param indexValue the value of the {@link Constants.Property#__cp} property of an entity
+     * @return the value of the property of the tenant the entity belongs to
+     */
+    static String tenantIndexValueOf(String indexValue) {
+        //the tenant is the first segment, the slashes in the ids are escaped
+        for (int i = 1; i < indexValue.length(); ++i) {
+            char c = indexValue.charAt(i);
+            if (c == '\\') {
+                ++i;
+            } else if (c == '/') {
+                return indexValue.substring(0, i);
+            }
+        }
+
+        return indexValue;
+    }
+
+    /**
+     * Computes the value of the {@link Constants.Property#__cp} property of an entity contained in the provided parent.
+     *
+     * @param parentValue the value of the property of the parent
+     * @param parentType  the type of the parent
+     * @param childType   the type of the contained entity
+     * @param childId     the id of the contained entity
+     * @return the value or null if the child cannot be canonically contained in the parent
+     */
+    static String childIndexValue(String parentValue, Constants.Type parentType, Constants.Type childType,
+            String childId) {
+        if (parentValue == null || !isCanonicalChild(parentType, childType)) {
+            return null;
+        }
+
+        return append(new StringBuilder(parentValue), childType, childId).toString();
+    }
+
+    /**
+     * Assigns the {@link Constants.Property#__cp} property to the target of a newly created "contains" edge and to all
+     * the vertices it contains, if the source of the edge is on a canonical path.
+     *
+     * @param parent the source of the "contains" edge
+     * @param child  the target of the "contains" edge
+     */
+    static void assign(Vertex parent, Vertex child) {
+        if (child.getProperty(Constants.Property.__cp.name()) != null) {
+            return;
+        }
+
+        String value = childIndexValue(parent.getProperty(Constants.Property.__cp.name()),
+                TinkerpopBackend.getType(parent), TinkerpopBackend.getType(child), TinkerpopBackend.getEid(child));
+
+        if (value != null) {
+            child.setProperty(Constants.Property.__cp.name(), value);
+            assignDescendants(child, value);
+        }
+    }
+
+    /**
+     * Assigns the {@link Constants.Property#__cp} property to all the vertices contained (directly or indirectly) in
+     * the provided vertex that don't have it yet.
+     *
+     * @param vertex the vertex to start at
+     * @param value  the value of the property of the vertex
+     * @return the number of vertices updated
+     */
+    static long assignDescendants(Vertex vertex, String value) {
+        long count = 0;
+
+        Deque<Vertex> vertices = new ArrayDeque<>();
+        Deque<String> values = new ArrayDeque<>();
+        vertices.add(vertex);
+        values.add(value);
+
+        while (!vertices.isEmpty()) {
+            Vertex parent = vertices.poll();
+            String parentValue = values.poll();
+            Constants.Type parentType = TinkerpopBackend.getType(parent);
+
+            for (Vertex child : parent.getVertices(Direction.OUT, contains.name())) {
+                String childValue = child.getProperty(Constants.Property.__cp.name());
+                if (childValue == null) {
+                    childValue = childIndexValue(parentValue, parentType, TinkerpopBackend.getType(child),
+                            TinkerpopBackend.getEid(child));
+
+                    if (childValue == null) {
+                        continue;
+                    }
+
+                    child.setProperty(Constants.Property.__cp.name(), childValue);
+                    count++;
+                }
+
+                vertices.add(child);
+                values.add(childValue);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Removes the {@link Constants.Property#__cp} property from the target of the "contains" edge about to be deleted
+     * and from all the vertices it contains, if the canonical path of the target was determined by the edge.
+     *
+     * @param containsEdge the "contains" edge being deleted
+     */
+    static void unassign(Edge containsEdge) {
+        Vertex parent = containsEdge.getVertex(Direction.OUT);
+        Vertex child = containsEdge.getVertex(Direction.IN);
+
+        String value = child.getProperty(Constants.Property.__cp.name());
+
+        if (value == null || !value.equals(childIndexValue(parent.getProperty(Constants.Property.__cp.name()),
+                TinkerpopBackend.getType(parent), TinkerpopBackend.getType(child), TinkerpopBackend.getEid(child)))) {
+            return;
+        }
+
+        Deque<Vertex> vertices = new ArrayDeque<>();
+        vertices.add(child);
+
+        while (!vertices.isEmpty()) {
+            Vertex v = vertices.poll();
+            String vValue = v.getProperty(Constants.Property.__cp.name());
+            if (vValue == null || !(vValue.equals(value) || vValue.startsWith(value + "/"))) {
+                continue;
+            }
+
+            v.removeProperty(Constants.Property.__cp.name());
+            v.getVertices(Direction.OUT, contains.name()).forEach(vertices::add);
+        }
+    }
+
+    /**
+     * Finds the longest leading part of the root fragments of the query that only navigates down the canonical
+     * "contains" hierarchy from a tenant to an entity with a given id. Such part of the query selects at most a single
+     * vertex, the one with the {@link Constants.Property#__cp} property equal to the returned prefix value.
+     *
+     * @param query the query
+     * @return the canonical prefix of the query or null if the query doesn't start with one
+     */
+    static Prefix canonicalPrefix(Query query) {
+        QueryFragment[] fragments = query.getFragments();
+
+        Prefix ret = null;
+
+        String currentValue = null;
+        Constants.Type currentType = null;
+
+        Constants.Type segmentType = null;
+        String segmentId = null;
+        boolean expectingRelation = false;
+
+        for (int i = 0; i < fragments.length; ++i) {
+            QueryFragment fragment = fragments[i];
+            Filter filter = fragment.getFilter();
+
+            if (filter instanceof NoopFilter) {
+                continue;
+            }
+
+            if (expectingRelation) {
+                if (!(fragment instanceof PathFragment) || !isContainsHop(filter)) {
+                    break;
+                }
+                expectingRelation = false;
+                continue;
+            }
+
+            if (filter instanceof With.Types && segmentType == null
+                    && ((With.Types) filter).getTypes().length == 1) {
+                segmentType = Constants.Type.of(((With.Types) filter).getTypes()[0]);
+            } else if (filter instanceof With.Ids && segmentId == null && ((With.Ids) filter).getIds().length == 1) {
+                segmentId = ((With.Ids) filter).getIds()[0];
+            } else {
+                break;
+            }
+
+            if (segmentType == null || segmentId == null) {
+                continue;
+            }
+
+            if (currentValue == null) {
+                currentValue = segmentType == Constants.Type.tenant ? tenantIndexValue(segmentId) : null;
+            } else {
+                currentValue = childIndexValue(currentValue, currentType, segmentType, segmentId);
+            }
+
+            if (currentValue == null) {
+                break;
+            }
+
+            currentType = segmentType;
+            segmentType = null;
+            segmentId = null;
+            expectingRelation = true;
+
+            ret = new Prefix(currentValue, i + 1);
+        }
+
+        return ret;
+    }
+
+    private static boolean isContainsHop(Filter filter) {
+        if (filter.getClass() != Related.class) {
+            return false;
+        }
+
+        Related<?> related = (Related<?>) filter;
+
+        return related.getEntity() == null && related.getRelationshipId() == null
+                && related.getEntityRole() == Related.EntityRole.SOURCE
+                && contains.name().equals(related.getRelationshipName());
+    }
+
+    private static boolean isCanonicalChild(Constants.Type parentType, Constants.Type childType) {
+        switch (parentType) {
+            case tenant:
+                return childType == Constants.Type.environment || childType == Constants.Type.resourceType
+                        || childType == Constants.Type.metricType;
+            case environment:
+                return childType == Constants.Type.feed || childType == Constants.Type.resource
+                        || childType == Constants.Type.metric;
+            case feed:
+                return childType == Constants.Type.resource || childType == Constants.Type.metric;
+            default:
+                return false;
+        }
+    }
+
+    private static StringBuilder append(StringBuilder bld, Constants.Type type, String id) {
+        bld.append('/').append(code(type)).append(';');
+
+        for (int i = 0; i < id.length(); ++i) {
+            char c = id.charAt(i);
+            if (c == '/' || c == '\\') {
+                bld.append('\\');
+            }
+            bld.append(c);
+        }
+
+        return bld;
+    }
+
+    private static String code(Constants.Type type) {
+        switch (type) {
+            case tenant:
+                return "t";
+            case environment:
+                return "e";
+            case feed:
+                return "f";
+            case resourceType:
+                return "rt";
+            case metricType:
+                return "mt";
+            case resource:
+                return "r";
+            case metric:
+                return "m";
+            default:
+                throw new IllegalArgumentException("Entities of type " + type + " don't have a canonical path.");
+        }
+    }
+
+    /**
+     * The leading part of a query that corresponds to a canonical path.
+     */
+    static final class Prefix {
+        private final String indexValue;
+        private final int length;
+
+        Prefix(String indexValue, int length) {
+            this.indexValue = indexValue;
+            this.length = length;
+        }
+
+        /**
+         * @return the value of the {@link Constants.Property#__cp} property of the entity selected by the prefix
+         */
+        String getIndexValue() {
+            return indexValue;
+        }
+
+        /**
+         * @return the number of the root fragments of the query the prefix consists of
+         */
+        int getLength() {
+            return length;
+        }
+    }
+}
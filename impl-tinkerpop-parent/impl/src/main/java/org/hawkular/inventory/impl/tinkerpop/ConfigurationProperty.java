@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.impl.tinkerpop;
+
+import org.hawkular.inventory.api.Configuration;
+
+/**
+ * The properties of the {@link Configuration#getImplementationConfiguration() implementation configuration}
+ * understood by the Tinkerpop implementation (as opposed to the graph providers).
+ *
+ * @since 0.1.0
+ */
+enum ConfigurationProperty {
+    /**
+     * The maximum number of elements the ordering of streamed results keeps in memory before it starts using
+     * temporary files.
+     */
+    SORT_MAX_IN_MEMORY_ELEMENTS("hawkular.inventory.sort.maxInMemoryElements", "100000"),
+
+    /**
+     * The maximum estimated number of bytes the ordering of streamed results keeps in memory before it starts using
+     * temporary files.
+     */
+    SORT_MAX_IN_MEMORY_BYTES("hawkular.inventory.sort.maxInMemoryBytes", Long.toString(64 * 1024 * 1024)),
+
+    /**
+     * The directory to create the temporary files of the ordering in. The default temporary directory is used if not
+     * specified.
+     */
+    SORT_TEMP_DIRECTORY("hawkular.inventory.sort.tempDirectory", null),
+
+    /**
+     * The maximum number of canonical paths for which the ids of the corresponding elements are cached. Zero disables
+     * the cache.
+     */
+    PATH_CACHE_MAX_SIZE("hawkular.inventory.pathCache.maxSize", "10000"),
+
+    /**
+     * The maximum number of entity vertices for which the ancestry (the ids of their tenant, environment, feed and
+     * defining type) is cached. Zero disables the cache.
+     */
+    ANCESTRY_CACHE_MAX_SIZE("hawkular.inventory.ancestryCache.maxSize", "100000"),
+
+    /**
+     * The maximum number of the snapshots of the ordered results of the cursor-based queries that are kept, so that
+     * the following pages don't need to evaluate the queries again. Zero disables the snapshots.
+     */
+    CURSOR_SNAPSHOTS_MAX_SIZE("hawkular.inventory.cursorSnapshots.maxSize", "100"),
+
+    /**
+     * The maximum number of elements in all the snapshots of the ordered results of the cursor-based queries together.
+     * The least recently used snapshots are evicted to stay within the limit. The pages of the queries with more
+     * results are always evaluated using the values of their cursors.
+     */
+    CURSOR_SNAPSHOTS_MAX_ELEMENTS("hawkular.inventory.cursorSnapshots.maxElements", "100000"),
+
+    /**
+     * The minimum number of elements that are converted to entities in parallel. This only applies to read-only
+     * transactions and graphs that support concurrent reads. Zero disables the parallel conversion.
+     */
+    PARALLEL_CONVERSION_THRESHOLD("hawkular.inventory.parallelConversion.threshold", "0"),
+
+    /**
+     * The minimum number of elements converted together by a single worker of the parallel conversion. Smaller chunks
+     * spread the work more evenly but share less of it between the elements.
+     */
+    PARALLEL_CONVERSION_MIN_CHUNK_SIZE("hawkular.inventory.parallelConversion.minChunkSize", "64"),
+
+    /**
+     * The number of threads to use for the parallel conversion and the parallel evaluation of the query branches.
+     * Defaults to the number of available processors.
+     */
+    PARALLEL_CONVERSION_PARALLELISM("hawkular.inventory.parallelConversion.parallelism", null),
+
+    /**
+     * Whether to evaluate the branches of the queries that split into several paths in parallel. This only applies to
+     * read-only transactions, graphs that support concurrent reads and queries all the results of which are evaluated
+     * anyway, i.e. the unlimited, exactly counted or ordered ones. The streamed results, single results and the pages
+     * that don't need the rest of the results are evaluated lazily instead.
+     */
+    PARALLEL_BRANCHES("hawkular.inventory.parallelBranches", "false"),
+
+    /**
+     * The maximum number of entities deleted at once when deleting an entity together with everything it contains.
+     * Zero, the default, deletes the whole subtree in a single transaction. Otherwise the deleted chunks are committed
+     * one by one so that the transactions stay bounded, which means that the deletion is not atomic - if it fails, the
+     * chunks committed before stay deleted.
+     */
+    DELETE_CHUNK_SIZE("hawkular.inventory.delete.chunkSize", "0"),
+
+    /**
+     * The user-defined properties to index, as a comma-separated list of
+     * {@code <entity type>:<property name>[:<value type>]} declarations, e.g.
+     * {@code resource:hostname, resource:port:Integer}. The entity types are the names of the
+     * {@link Constants.Type types}, the value types are one of {@code String} (the default), {@code Integer},
+     * {@code Long}, {@code Double} or {@code Boolean}. Graph databases with typed keys, like Titan, only accept the
+     * values of the declared type in the indexed properties and refuse to start if the key already exists with a
+     * different type. A property declared for several entity types represented by vertices (i.e. all but the
+     * relationships) shares a single index, so it must have the same value type in all the declarations. The queries
+     * checking the types of the entities and the values of an indexed property are looked up using the index.
+     */
+    INDEXED_PROPERTIES("hawkular.inventory.indexedProperties", null);
+
+    private final String propertyName;
+    private final String defaultValue;
+
+    ConfigurationProperty(String propertyName, String defaultValue) {
+        this.propertyName = propertyName;
+        this.defaultValue = defaultValue;
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    /**
+     * @param configuration the configuration to read the value from
+     * @return the value of this property in the configuration or the default value if it is not present
+     */
+    public String get(Configuration configuration) {
+        String value = configuration.getImplementationConfiguration() == null ? null
+                : configuration.getImplementationConfiguration().get(propertyName);
+
+        return value == null ? defaultValue : value;
+    }
+
+    public int getInt(Configuration configuration) {
+        return (int) getLong(configuration);
+    }
+
+    public long getLong(Configuration configuration) {
+        String value = get(configuration);
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Configuration property '" + propertyName + "' should be a number but"
+                    + " was '" + value + "'.", e);
+        }
+    }
+}
@@ -30,6 +30,8 @@ import org.hawkular.inventory.api.model.Tenant;
 
 import java.util.Arrays;
 
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__targetEid;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__targetType;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__unit;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__version;
 
@@ -55,6 +57,14 @@ final class Constants {
          */
         __eid,
 
+        /**
+         * This is the name of the property that we use to store the canonical path of the entity represented by the
+         * vertex (in the form produced by {@link CanonicalPaths#toIndexValue(
+         * org.hawkular.inventory.base.spi.CanonicalPath)}). Unlike the {@link #__eid}, this is unique across the whole
+         * graph and therefore enables looking up an entity without traversing the "contains" hierarchy.
+         */
+        __cp,
+
         /**
          * Present on the resource type entity, this is the name of the property that we use to store the version
          * of the resource type represented by the vertex.
@@ -65,7 +75,20 @@ final class Constants {
          * Present on metric type, this is the name of the propety that we use to store the unit of the metric type
          * represented by the vertex.
          */
-        __unit;
+        __unit,
+
+        /**
+         * Present on the edges, this is the name of the property that we use to store the type of the target vertex
+         * of the edge. Together with {@link #__targetEid}, this enables looking up the edges to a particular entity
+         * using the vertex-centric indices instead of iterating over all the edges of the source vertex.
+         */
+        __targetType,
+
+        /**
+         * Present on the edges, this is the name of the property that we use to store the {@link #__eid} of the target
+         * vertex of the edge.
+         */
+        __targetEid;
 
         public static String mapUserDefined(String property) {
             if (AbstractElement.ID_PROPERTY.equals(property)) {
@@ -82,16 +105,17 @@ final class Constants {
     enum Type {
         tenant(Tenant.class), environment(Environment.class), feed(Feed.class),
         resourceType(ResourceType.class, __version), metricType(MetricType.class, __unit), resource(Resource.class),
-        metric(Metric.class), relationship(Relationship.class);
+        metric(Metric.class), relationship(Relationship.class, __targetType, __targetEid);
 
         private final String[] mappedProperties;
         private final Class<? extends AbstractElement<?, ?>> entityType;
 
         Type(Class<? extends AbstractElement<?, ?>> entityType, Property... mappedProperties) {
             this.entityType = entityType;
-            this.mappedProperties = new String[mappedProperties.length + 2];
+            this.mappedProperties = new String[mappedProperties.length + 3];
             Arrays.setAll(this.mappedProperties, i -> i == 0 ? Property.__type.name() :
-                    (i == 1 ? Property.__eid.name() : mappedProperties[i - 2].name()));
+                    (i == 1 ? Property.__eid.name() :
+                            (i == 2 ? Property.__cp.name() : mappedProperties[i - 3].name())));
         }
 
         public static Type of(AbstractElement<?, ?> e) {
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import org.hawkular.inventory.api.Relationships;
+import org.hawkular.inventory.api.filters.Filter;
+import org.hawkular.inventory.api.filters.Related;
+import org.hawkular.inventory.api.filters.With;
+import org.hawkular.inventory.api.paging.Order;
+import org.hawkular.inventory.base.Query;
+import org.hawkular.inventory.base.QueryFragment;
+import org.hawkular.inventory.base.spi.NoopFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded LRU cache of the ordered results of the cursor-based queries.
+ *
+ * <p>Because the cursor-based pages filter out the elements preceding the cursor, each page needs to evaluate the
+ * whole query again. When the query was evaluated for a page anyway, the ordered native ids of the elements following
+ * the cursor are stored in a snapshot, if there are not too many of them, and the cursor of the next page points into
+ * the snapshot. The following pages are then read from the snapshot without evaluating the query, which makes
+ * crawling through all the results linear instead of quadratic.
+ *
+ * <p>A snapshot is only used for the same query with the same order as it was created for and only until a mutating
+ * transaction that could have changed the results of the query ends. The queries that are {@link #scopeOf(Query)
+ * confined} to a single tenant are only affected by the transactions modifying that tenant, the other queries are
+ * affected by all the mutating transactions. Once the snapshot is not usable, the next page is evaluated using the
+ * values of the cursor, so the caller never notices the difference.
+ *
+ * <p>The total number of the elements in all the snapshots is limited, the least recently used snapshots are evicted
+ * to make room for the new ones.
+ *
+ * @since 0.1.0
+ */
+final class CursorSnapshots {
+    private final int maxSize;
+    private final int maxElements;
+    private final Map<Long, Snapshot> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+    private long elements;
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxSize     the maximum number of snapshots kept, if less or equal to zero, the snapshots are disabled
+     * @param maxElements the maximum number of elements in all the snapshots together
+     */
+    CursorSnapshots(int maxSize, int maxElements) {
+        this.maxSize = maxSize;
+        this.maxElements = maxElements;
+    }
+
+    /**
+     * The snapshots are compared by the structure of the queries, not by their identity, so that the same query
+     * issued again for the next page can use the snapshot of the previous page.
+     *
+     * @param query the query
+     * @param order the order of the results
+     * @return the key identifying the results of the query in the provided order
+     */
+    static Object keyOf(Query query, List<Order> order) {
+        return Arrays.asList(structureOf(query), order);
+    }
+
+    private static List<Object> structureOf(Query query) {
+        List<Object> subTrees = new ArrayList<>(query.getSubTrees().size());
+        for (Query q : query.getSubTrees()) {
+            subTrees.add(structureOf(q));
+        }
+
+        return Arrays.asList(Arrays.asList(query.getFragments()), subTrees);
+    }
+
+    /**
+     * A query is confined to a single tenant if it starts at the tenant and only follows the well-known relationships,
+     * which don't cross the tenants. Its results can then only be changed by the transactions that modify the tenant.
+     *
+     * @param query the query
+     * @return the value of the {@link Constants.Property#__cp} property of the tenant the query is confined to or null
+     * if the query is not confined to a single tenant
+     * @see InventoryContext#getModificationCount(String)
+     */
+    static String scopeOf(Query query) {
+        CanonicalPaths.Prefix prefix = CanonicalPaths.canonicalPrefix(query);
+        if (prefix == null || !isConfined(query)) {
+            return null;
+        }
+
+        return CanonicalPaths.tenantIndexValueOf(prefix.getIndexValue());
+    }
+
+    private static boolean isConfined(Query query) {
+        for (QueryFragment fragment : query.getFragments()) {
+            Filter filter = fragment.getFilter();
+            if (filter instanceof Related) {
+                Related<?> related = (Related<?>) filter;
+                String name = related.getRelationshipName();
+                if (related.getEntity() != null || related.getRelationshipId() != null
+                        || !(Relationships.WellKnown.contains.name().equals(name)
+                        || Relationships.WellKnown.defines.name().equals(name)
+                        || Relationships.WellKnown.owns.name().equals(name))) {
+                    return false;
+                }
+            } else if (!(filter instanceof With.Ids || filter instanceof With.Types
+                    || filter instanceof With.PropertyValues || filter instanceof NoopFilter)) {
+                return false;
+            }
+        }
+
+        return query.getSubTrees().stream().allMatch(CursorSnapshots::isConfined);
+    }
+
+    /**
+     * @return true if the snapshots can be created, false if they are disabled
+     */
+    boolean isEnabled() {
+        return maxSize > 0 && maxElements > 0;
+    }
+
+    /**
+     * @return the maximum number of elements in all the snapshots together
+     */
+    int getMaxElements() {
+        return maxElements;
+    }
+
+    /**
+     * Stores a new snapshot, evicting the least recently used snapshots if there are too many of them or they hold
+     * too many elements together.
+     *
+     * @param key               the key of the query as returned from {@link #keyOf(Query, List)}
+     * @param modificationCount the {@link InventoryContext#getModificationCount(String) modification count} of the
+     *                          {@link #scopeOf(Query) scope} of the query taken before the query was evaluated
+     * @param ids               the ordered native ids of the elements
+     * @param edges             whether the elements are edges or vertices
+     * @param total             the total number of the results of the query
+     * @return the id of the snapshot or -1 if the snapshot has too many elements to be stored
+     */
+    long put(Object key, long modificationCount, Object[] ids, boolean edges, long total) {
+        if (ids.length > maxElements) {
+            return -1;
+        }
+
+        long id = nextId.getAndIncrement();
+        synchronized (this) {
+            snapshots.put(id, new Snapshot(key, modificationCount, ids, edges, total));
+            elements += ids.length;
+
+            Iterator<Snapshot> eldest = snapshots.values().iterator();
+            while (snapshots.size() > maxSize || elements > maxElements) {
+                elements -= eldest.next().ids.length;
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+        return id;
+    }
+
+    /**
+     * @param id                the id of the snapshot
+     * @param key               the key of the query as returned from {@link #keyOf(Query, List)}
+     * @param modificationCount the current {@link InventoryContext#getModificationCount(String) modification count}
+     *                          of the {@link #scopeOf(Query) scope} of the query
+     * @return the snapshot or null if there is no such snapshot or it cannot be used for the query anymore
+     */
+    Snapshot get(long id, Object key, long modificationCount) {
+        if (!isEnabled() || id < 0) {
+            return null;
+        }
+
+        Snapshot ret;
+        synchronized (this) {
+            ret = snapshots.get(id);
+            if (ret != null && ret.modificationCount != modificationCount) {
+                remove(id);
+                ret = null;
+            }
+        }
+
+        if (ret == null || !ret.key.equals(key)) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return ret;
+    }
+
+    /**
+     * Removes the snapshot, e.g. because some of its elements could not be found anymore.
+     *
+     * @param id the id of the snapshot
+     */
+    synchronized void invalidate(long id) {
+        remove(id);
+    }
+
+    private void remove(long id) {
+        Snapshot snapshot = snapshots.remove(id);
+        if (snapshot != null) {
+            elements -= snapshot.ids.length;
+        }
+    }
+
+    CacheStatistics getStatistics() {
+        int size;
+        synchronized (this) {
+            size = snapshots.size();
+        }
+
+        return new CacheStatistics(hits.get(), misses.get(), evictions.get(), size, Math.max(0, maxSize));
+    }
+
+    static final class Snapshot {
+        private final Object key;
+        private final long modificationCount;
+        final Object[] ids;
+        final boolean edges;
+        final long total;
+
+        private Snapshot(Object key, long modificationCount, Object[] ids, boolean edges, long total) {
+            this.key = key;
+            this.modificationCount = modificationCount;
+            this.ids = ids;
+            this.edges = edges;
+            this.total = total;
+        }
+    }
+}
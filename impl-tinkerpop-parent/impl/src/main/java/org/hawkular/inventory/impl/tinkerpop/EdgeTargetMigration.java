@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import org.hawkular.inventory.base.spi.InventoryBackend;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
+
+/**
+ * Stores the {@link Constants.Property#__targetType target types} and {@link Constants.Property#__targetEid target
+ * ids} in the edges of the graphs created before they were maintained.
+ *
+ * <p>The tenants are migrated one by one, each in its own transaction. The edges going out of the tenant itself are
+ * updated last, which marks the tenant as migrated. The migration is therefore only ever performed once per tenant and
+ * if it is interrupted, it continues with the unfinished tenants the next time.
+ *
+ * @since 0.1.0
+ */
+final class EdgeTargetMigration {
+
+    private EdgeTargetMigration() {
+        //no instances, thank you
+    }
+
+    /**
+     * Stores the targets in all the edges going out of the entities of the tenants that have not been migrated yet.
+     *
+     * @param context the context of the inventory to migrate
+     */
+    static void migrate(InventoryContext<?> context) {
+        List<Vertex> tenants = new HawkularPipeline<>(context.getGraph()).V().hasType(Constants.Type.tenant)
+                .cast(Vertex.class).toList();
+
+        for (Vertex tenant : tenants) {
+            if (!new HawkularPipeline<>(tenant).outE().hasNot(Constants.Property.__targetEid.name()).hasNext()) {
+                continue;
+            }
+
+            InventoryBackend.Transaction t = context.startTransaction(true);
+            try {
+                //the graph must not be modified while the closure is being traversed
+                List<Vertex> entities = new ArrayList<>();
+                new TransitiveClosure(tenant, Direction.OUT, contains.name(), TransitiveClosure.UNBOUNDED, null)
+                        .forEachRemaining(entities::add);
+                entities.add(tenant);
+
+                long count = 0;
+                for (Vertex entity : entities) {
+                    for (Edge edge : entity.getEdges(Direction.OUT)) {
+                        if (edge.getProperty(Constants.Property.__targetEid.name()) == null) {
+                            TinkerpopBackend.setTarget(edge, edge.getVertex(Direction.IN));
+                            count++;
+                        }
+                    }
+                }
+
+                context.commit(t);
+
+                Log.LOG.iEdgeTargetsMigrated(count, TinkerpopBackend.getEid(tenant));
+            } catch (RuntimeException e) {
+                context.rollback(t);
+                throw e;
+            }
+        }
+    }
+}
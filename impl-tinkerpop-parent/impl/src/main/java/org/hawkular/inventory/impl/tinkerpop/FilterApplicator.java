@@ -29,13 +29,12 @@ import org.hawkular.inventory.base.QueryFragment;
 import org.hawkular.inventory.base.spi.NoopFilter;
 import org.hawkular.inventory.base.spi.SwitchElementType;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * A filter applicator applies a filter to a Gremlin query.
@@ -46,28 +45,37 @@ import java.util.Map;
  * @since 0.0.1
  */
 abstract class FilterApplicator<T extends Filter> {
-    private static Map<Class<? extends Filter>, Class<? extends FilterApplicator<?>>> applicators;
+    private static final Map<Class<? extends Filter>, Function<Filter, FilterApplicator<?>>> applicators;
+
+    /**
+     * The visitor is stateless, so all the applicators can share it.
+     */
+    private static final FilterVisitor VISITOR = new FilterVisitor();
 
     static {
         applicators = new HashMap<>();
-        applicators.put(Related.class, RelatedApplicator.class);
-        applicators.put(Contained.class, RelatedApplicator.class);
-        applicators.put(Defined.class, RelatedApplicator.class);
-        applicators.put(Owned.class, RelatedApplicator.class);
-        applicators.put(With.Ids.class, WithIdsApplicator.class);
-        applicators.put(With.Types.class, WithTypesApplicator.class);
-        applicators.put(With.PropertyValues.class, WithPropertyValuesApplicator.class);
-        applicators.put(RelationWith.Ids.class, RelationWithIdsApplicator.class);
-        applicators.put(RelationWith.PropertyValues.class, RelationWithPropertiesApplicator.class);
-        applicators.put(RelationWith.SourceOfType.class, RelationWithSourcesOfTypesApplicator.class);
-        applicators.put(RelationWith.TargetOfType.class, RelationWithTargetsOfTypesApplicator.class);
-        applicators.put(RelationWith.SourceOrTargetOfType.class, RelationWithSourcesOrTargetsOfTypesApplicator.class);
-        applicators.put(SwitchElementType.class, SwitchElementTypeApplicator.class);
-        applicators.put(NoopFilter.class, NoopApplicator.class);
+        applicators.put(Related.class, (f) -> new RelatedApplicator((Related<?>) f));
+        applicators.put(Contained.class, (f) -> new RelatedApplicator((Related<?>) f));
+        applicators.put(Defined.class, (f) -> new RelatedApplicator((Related<?>) f));
+        applicators.put(Owned.class, (f) -> new RelatedApplicator((Related<?>) f));
+        applicators.put(With.Ids.class, (f) -> new WithIdsApplicator((With.Ids) f));
+        applicators.put(With.Types.class, (f) -> new WithTypesApplicator((With.Types) f));
+        applicators.put(With.PropertyValues.class, (f) -> new WithPropertyValuesApplicator((With.PropertyValues) f));
+        applicators.put(RelationWith.Ids.class, (f) -> new RelationWithIdsApplicator((RelationWith.Ids) f));
+        applicators.put(RelationWith.PropertyValues.class,
+                (f) -> new RelationWithPropertiesApplicator((RelationWith.PropertyValues) f));
+        applicators.put(RelationWith.SourceOfType.class,
+                (f) -> new RelationWithSourcesOfTypesApplicator((RelationWith.SourceOfType) f));
+        applicators.put(RelationWith.TargetOfType.class,
+                (f) -> new RelationWithTargetsOfTypesApplicator((RelationWith.TargetOfType) f));
+        applicators.put(RelationWith.SourceOrTargetOfType.class,
+                (f) -> new RelationWithSourcesOrTargetsOfTypesApplicator((RelationWith.SourceOrTargetOfType) f));
+        applicators.put(SwitchElementType.class, (f) -> new SwitchElementTypeApplicator((SwitchElementType) f));
+        applicators.put(NoopFilter.class, (f) -> new NoopApplicator((NoopFilter) f));
     }
 
     protected final T filter;
-    protected final FilterVisitor visitor = new FilterVisitor();
+    protected final FilterVisitor visitor = VISITOR;
 
     private FilterApplicator(T f) {
         this.filter = f;
@@ -77,28 +85,13 @@ abstract class FilterApplicator<T extends Filter> {
         if (filter == null) {
             throw new IllegalArgumentException("filter == null");
         }
-        Class<? extends Filter> filterClazz = filter.getClass();
-        Class<? extends FilterApplicator<?>> applicatorClazz = applicators.get(filterClazz);
-        if (applicatorClazz == null) {
-            throw new IllegalArgumentException("Unsupported filter type " + filterClazz);
-        }
-        Constructor<? extends FilterApplicator<?>> constructor = null;
-        try {
-            constructor = applicatorClazz.getDeclaredConstructor(filterClazz);
-        } catch (NoSuchMethodException e) {
-            try {
-                // Contained, Defined, Owned
-                constructor = applicatorClazz.getDeclaredConstructor(filterClazz.getSuperclass());
-            } catch (NoSuchMethodException e1) {
-                throw new IllegalArgumentException("Unable to create an instance of " + applicatorClazz);
-            }
-        }
-        try {
-            constructor.setAccessible(true);
-            return constructor.newInstance(filter);
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-            throw new IllegalArgumentException("Unable to create an instance of " + applicatorClazz);
+
+        Function<Filter, FilterApplicator<?>> factory = applicators.get(filter.getClass());
+        if (factory == null) {
+            throw new IllegalArgumentException("Unsupported filter type " + filter.getClass());
         }
+
+        return factory.apply(filter);
     }
 
     /**
@@ -110,33 +103,119 @@ abstract class FilterApplicator<T extends Filter> {
      * @param <E>        type of the output of the query
      */
     public static <S, E> void applyAll(Query filterTree, HawkularPipeline<S, E> q) {
+        applyAll(filterTree, q, 0);
+    }
+
+    /**
+     * Applies the filters from the applicator tree to the provided Gremlin query, skipping the provided number of
+     * leading fragments of the root of the tree. This is useful if the query already selects the elements that the
+     * skipped fragments would.
+     *
+     * @param filterTree the tree of filters to apply to the query
+     * @param q          the query to update with filters from the tree
+     * @param skip       the number of the leading fragments of the root of the tree to skip
+     * @param <S>        type of the source of the query
+     * @param <E>        type of the output of the query
+     */
+    public static <S, E> void applyAll(Query filterTree, HawkularPipeline<S, E> q, int skip) {
+        applyAll(filterTree, q, skip, null);
+    }
+
+    /**
+     * Same as {@link #applyAll(Query, HawkularPipeline, int)} but evaluates the branches of the query in parallel if
+     * the parallel branches are provided.
+     *
+     * @param filterTree       the tree of filters to apply to the query
+     * @param q                the query to update with filters from the tree
+     * @param skip             the number of the leading fragments of the root of the tree to skip
+     * @param parallelBranches the executor of the branches or null if the branches should be evaluated serially
+     * @param <S>              type of the source of the query
+     * @param <E>              type of the output of the query
+     */
+    public static <S, E> void applyAll(Query filterTree, HawkularPipeline<S, E> q, int skip,
+            ParallelBranches parallelBranches) {
         if (filterTree == null) {
             return;
         }
 
-        if (applyAll(filterTree, q, false)) {
+        //the skipped fragments would have left the query in the filtering state, so we need to enter it, too
+        boolean isFilter = skip > 0 && filterTree.getFragments()[skip - 1] instanceof FilterFragment;
+        if (isFilter) {
+            q.remember();
+        }
+
+        if (applyAll(filterTree, q, skip, isFilter, parallelBranches)) {
             q.recall();
         }
     }
 
+    /**
+     * Tells whether the fragment navigates over a relationship and is immediately followed by a check of the ids of
+     * the targets, in which case the two can be applied together using
+     * {@link #applyTargetLookup(HawkularPipeline, Filter, Filter)}.
+     *
+     * @param fragment the fragment
+     * @param next     the fragment following it
+     * @return true if the fragments form a lookup of the targets of a relationship by their ids
+     */
+    private static boolean isTargetLookup(QueryFragment fragment, QueryFragment next) {
+        return fragment.getFilter() instanceof Related && next.getClass() == fragment.getClass()
+                && next.getFilter() instanceof With.Ids;
+    }
+
+    /**
+     * Applies the related filter so that it only navigates to the targets with the ids in the ids filter that
+     * follows it, if possible. The ids filter still needs to be applied after this.
+     *
+     * @param pipeline the pipeline to apply the filter to
+     * @param related  the related filter
+     * @param ids      the ids filter
+     * @return true if the related filter has been applied, false if it needs to be applied as usual
+     */
+    private static boolean applyTargetLookup(HawkularPipeline<?, ?> pipeline, Filter related, Filter ids) {
+        return VISITOR.visit(pipeline, (Related<?>) related, (With.Ids) ids);
+    }
+
+    /**
+     * Splits the pipeline into the provided branches and merges their results.
+     *
+     * @param pipeline         the pipeline to split
+     * @param branches         the branches
+     * @param parallelBranches the executor of the branches or null if the branches should be evaluated serially
+     */
+    @SuppressWarnings("unchecked")
+    private static void split(HawkularPipeline<?, ?> pipeline, List<? extends HawkularPipeline<?, ?>> branches,
+            ParallelBranches parallelBranches) {
+        if (parallelBranches == null) {
+            pipeline.copySplit(branches.toArray(new HawkularPipeline[branches.size()])).exhaustMerge();
+        } else {
+            pipeline.add(new ParallelSplitMergePipe<>(new ArrayList<>((List) branches), parallelBranches));
+        }
+    }
+
     /**
      * A private impl of the {@code applyAll()} method that tracks the current type of the filter being applied.
      * The type of the filter is either a path ({@code isFilter == false}) which potentially progresses the query to
      * next positions in the inventory traversal or a filter ({@code isFilter == true}) which merely trims down the
      * number of the elements at the current "tail" of the traversal by applying filters to them.
      *
-     * @param query    the query
-     * @param pipeline the Gremlin pipeline that the query gets translated to
-     * @param isFilter whether we are currently processing filters as filters or path elements
-     * @param <S>      the start element type of the pipeline
-     * @param <E>      the end element type of the pipeline
+     * @param query            the query
+     * @param pipeline         the Gremlin pipeline that the query gets translated to
+     * @param from             the index of the first fragment of the query to apply
+     * @param isFilter         whether we are currently processing filters as filters or path elements
+     * @param parallelBranches the executor of the branches or null if the branches should be evaluated serially
+     * @param <S>              the start element type of the pipeline
+     * @param <E>              the end element type of the pipeline
      * @return true if after applying the filters, we're the filtering state or false if we are in path-progression
      * state.
      */
     @SuppressWarnings("unchecked")
-    private static <S, E> boolean applyAll(Query query, HawkularPipeline<S, E> pipeline, boolean isFilter) {
+    private static <S, E> boolean applyAll(Query query, HawkularPipeline<S, E> pipeline, int from,
+            boolean isFilter, ParallelBranches parallelBranches) {
 
-        for (QueryFragment qf : query.getFragments()) {
+        QueryFragment[] fragments = query.getFragments();
+        for (int i = from; i < fragments.length; ++i) {
+            QueryFragment qf = fragments[i];
             boolean thisIsFilter = qf instanceof FilterFragment;
 
             if (thisIsFilter != isFilter) {
@@ -148,6 +227,11 @@ abstract class FilterApplicator<T extends Filter> {
                 }
             }
 
+            if (i + 1 < fragments.length && isTargetLookup(qf, fragments[i + 1])
+                    && applyTargetLookup(pipeline, qf.getFilter(), fragments[i + 1].getFilter())) {
+                continue;
+            }
+
             FilterApplicator.of(qf.getFilter()).applyTo(pipeline);
         }
 
@@ -157,7 +241,7 @@ abstract class FilterApplicator<T extends Filter> {
         }
 
         if (query.getSubTrees().size() == 1) {
-            return applyAll(query.getSubTrees().get(0), pipeline, isFilter);
+            return applyAll(query.getSubTrees().get(0), pipeline, 0, isFilter, parallelBranches);
         } else {
             List<HawkularPipeline<E, ?>> branches = new ArrayList<>();
             Iterator<Query> it = query.getSubTrees().iterator();
@@ -167,7 +251,7 @@ abstract class FilterApplicator<T extends Filter> {
 
             // the branch is a brand new pipeline, so it doesn't make sense for it to inherit
             // our current filter state.
-            boolean newIsFilter = applyAll(it.next(), branch, false);
+            boolean newIsFilter = applyAll(it.next(), branch, 0, false, parallelBranches);
             // close the filter in the branch, if needed
             if (newIsFilter) {
                 branch.recall();
@@ -176,7 +260,7 @@ abstract class FilterApplicator<T extends Filter> {
 
             while (it.hasNext()) {
                 branch = new HawkularPipeline<>();
-                boolean nextIsFilter = applyAll(it.next(), branch, false);
+                boolean nextIsFilter = applyAll(it.next(), branch, 0, false, parallelBranches);
                 // close the filter in the branch, if needed
                 if (nextIsFilter) {
                     branch.recall();
@@ -190,7 +274,7 @@ abstract class FilterApplicator<T extends Filter> {
                 branches.add(branch);
             }
 
-            pipeline.copySplit(branches.toArray(new HawkularPipeline[branches.size()])).exhaustMerge();
+            split(pipeline, branches, parallelBranches);
 
             return isFilter;
         }
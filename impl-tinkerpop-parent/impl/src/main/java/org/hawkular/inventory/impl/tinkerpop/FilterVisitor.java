@@ -16,10 +16,6 @@
  */
 package org.hawkular.inventory.impl.tinkerpop;
 
-import com.tinkerpop.blueprints.Compare;
-import com.tinkerpop.blueprints.Element;
-import com.tinkerpop.pipes.Pipe;
-import com.tinkerpop.pipes.filter.PropertyFilterPipe;
 import org.hawkular.inventory.api.filters.Related;
 import org.hawkular.inventory.api.filters.RelationWith;
 import org.hawkular.inventory.api.filters.With;
@@ -73,23 +69,35 @@ class FilterVisitor {
         }
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Navigates to the targets of the relationship with given id by looking up the edges by the target id stored in
+     * them. This enables the use of the vertex-centric indices instead of iterating over all the edges of the
+     * relationship, which can be very many for example for environments or feeds with many resources.
+     *
+     * @param query   the query to update
+     * @param related the related filter
+     * @param ids     the ids filter immediately following the related filter
+     * @return true if the navigation was applied, false if the related filter cannot be applied in this way
+     */
+    public boolean visit(HawkularPipeline<?, ?> query, Related<? extends Entity> related, With.Ids ids) {
+        if (related.getEntityRole() != Related.EntityRole.SOURCE || related.getRelationshipName() == null
+                || related.getRelationshipId() != null || related.getEntity() != null || ids.getIds().length != 1) {
+            return false;
+        }
+
+        query.outE(related.getRelationshipName()).has(Constants.Property.__targetEid.name(), ids.getIds()[0]).inV();
+        return true;
+    }
+
     public void visit(HawkularPipeline<?, ?> query, With.Ids ids) {
         if (ids.getIds().length == 1) {
             query.has(Constants.Property.__eid.name(), ids.getIds()[0]);
             return;
         }
 
-        Pipe[] idChecks = new Pipe[ids.getIds().length];
-
-        Arrays.setAll(idChecks, i ->
-                new PropertyFilterPipe<Element, String>(Constants.Property.__eid.name(), Compare.EQUAL,
-                        ids.getIds()[i]));
-
-        query.or(idChecks);
+        query.add(new PropertyValueSetFilterPipe<>(Constants.Property.__eid.name(), (Object[]) ids.getIds()));
     }
 
-    @SuppressWarnings("unchecked")
     public void visit(HawkularPipeline<?, ?> query, With.Types types) {
         if (types.getTypes().length == 1) {
             Constants.Type type = Constants.Type.of(types.getTypes()[0]);
@@ -97,31 +105,16 @@ class FilterVisitor {
             return;
         }
 
-        Pipe[] typeChecks = new Pipe[types.getTypes().length];
-
-        Arrays.setAll(typeChecks, i -> {
-            Constants.Type type = Constants.Type.of(types.getTypes()[i]);
-            return new PropertyFilterPipe<Element, String>(Constants.Property.__type.name(), Compare.EQUAL,
-                    type.name());
-        });
-
-        query.or(typeChecks);
+        query.add(new PropertyValueSetFilterPipe<>(Constants.Property.__type.name(), typeNames(types.getTypes())));
     }
 
-    @SuppressWarnings("unchecked")
     public void visit(HawkularPipeline<?, ?> query, RelationWith.Ids ids) {
         if (ids.getIds().length == 1) {
             query.hasEid(ids.getIds()[0]);
             return;
         }
 
-        Pipe[] idChecks = new Pipe[ids.getIds().length];
-
-        Arrays.setAll(idChecks, i ->
-                new PropertyFilterPipe<Element, String>(Constants.Property.__eid.name(), Compare.EQUAL,
-                        ids.getIds()[i]));
-
-        query.or(idChecks);
+        query.add(new PropertyValueSetFilterPipe<>(Constants.Property.__eid.name(), (Object[]) ids.getIds()));
     }
 
     public void visit(HawkularPipeline<?, ?> query, RelationWith.PropertyValues properties) {
@@ -140,7 +133,6 @@ class FilterVisitor {
         visit(query, types, null);
     }
 
-    @SuppressWarnings("unchecked")
     private void visit(HawkularPipeline<?, ?> query, RelationWith.SourceOrTargetOfType types, Boolean source) {
         // look ahead if the type of the incidence vertex is of the desired type(s)
         HawkularPipeline<?, ?> q1 = query.remember();
@@ -158,14 +150,8 @@ class FilterVisitor {
             return;
         }
 
-        Pipe[] typeChecks = new Pipe[types.getTypes().length];
-        Arrays.setAll(typeChecks, i -> {
-            Constants.Type type = Constants.Type.of(types.getTypes()[i]);
-            return new PropertyFilterPipe<Element, String>(Constants.Property.__type.name(), Compare.EQUAL,
-                    type.name());
-        });
-
-        q2.or(typeChecks).recall();
+        q2.add(new PropertyValueSetFilterPipe<>(Constants.Property.__type.name(), typeNames(types.getTypes())))
+                .recall();
     }
 
     public void visit(HawkularPipeline<?, ?> query, SwitchElementType filter) {
@@ -203,18 +189,17 @@ class FilterVisitor {
         applyPropertyFilter(query, filter.getName(), filter.getValues());
     }
 
-    @SuppressWarnings("unchecked")
     private void applyPropertyFilter(HawkularPipeline<?, ?> query, String propertyName, Object... values) {
         if (values.length == 0) {
             query.has(propertyName);
         } else if (values.length == 1) {
             query.has(propertyName, values[0]);
         } else {
-            Pipe[] checks = new Pipe[values.length];
-
-            Arrays.setAll(checks, i -> new PropertyFilterPipe<Element, String>(propertyName, Compare.EQUAL, values[i]));
-
-            query.or(checks);
+            query.add(new PropertyValueSetFilterPipe<>(propertyName, values));
         }
     }
+
+    private static Object[] typeNames(Class<? extends Entity<?, ?>>[] types) {
+        return Arrays.stream(types).map((t) -> Constants.Type.of(t).name()).toArray();
+    }
 }
@@ -35,6 +35,7 @@ import com.tinkerpop.pipes.util.structures.Table;
 import com.tinkerpop.pipes.util.structures.Tree;
 import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.paging.Order;
+import org.hawkular.inventory.api.paging.PageContext;
 import org.hawkular.inventory.api.paging.Pager;
 
 import java.util.ArrayDeque;
@@ -134,53 +135,102 @@ final class HawkularPipeline<S, E> extends GremlinPipeline<S, E> implements Clon
     }
 
     public HawkularPipeline<S, ? extends Element> page(Pager pager) {
-        return cast(Element.class).page(pager, (e, p) -> {
-            String prop = Constants.Property.mapUserDefined(p);
-            return e.getProperty(prop);
-        });
+        return cast(Element.class).page(pager, HawkularPipeline::propertyValue);
     }
 
+    /**
+     * The property value extractor used when paging elements.
+     *
+     * @param element  the element
+     * @param property the name of the property as used in {@link Order}
+     * @return the value of the property
+     * @see #page(Pager, BiFunction)
+     */
+    static Comparable propertyValue(Element element, String property) {
+        if (KeysetCursor.PATH_KEY.equals(property)) {
+            return KeysetCursor.pathOf(element);
+        }
+
+        return element.getProperty(Constants.Property.mapUserDefined(property));
+    }
+
+    /**
+     * Orders the elements and limits them to the page prescribed by the pager.
+     *
+     * <p>If the pager requires an exact total, all the elements are let through this step (and only the ones on the
+     * page are emitted), so that any {@link #counter(String) counter} before this step sees all of them. Otherwise
+     * the pipeline stops right after the page. Unless the pager requires
+     * {@link org.hawkular.inventory.api.paging.PageContext.TotalCount#NONE no} total, one more element than the page
+     * size is emitted, if available, so that the caller can tell whether there are more results.
+     *
+     * <p>The ordering only keeps the elements up to the end of the requested page in memory and extracts the values
+     * of the properties to order by only once per element.
+     *
+     * <p>Cursor-based pagers are always ordered by the canonical paths of the elements after the requested order and
+     * only the elements positioned after the cursor are let through to the ordering.
+     *
+     * @param pager                  the pager to apply
+     * @param propertyValueExtractor the function to extract the values of the properties to order by
+     * @return this pipeline
+     */
     public HawkularPipeline<S, E> page(Pager pager,
             BiFunction<E, String, ? extends Comparable> propertyValueExtractor) {
 
-        List<Order> order = pager.getOrder();
-        if (!order.isEmpty()) {
-            //we have to have at least 1 order in the specific direction
-            boolean specific = false;
-            for (Order o : order) {
-                if (o.isSpecific()) {
-                    specific = true;
-                    break;
-                }
+        List<Order> order = pager.isCursorBased() ? KeysetCursor.keyOrder(pager.getOrder()) : pager.getOrder();
+
+        if (pager.isCursorBased() && !pager.getAfter().isEmpty()) {
+            //filter before ordering so that the order step doesn't need to hold on to the preceding results
+            KeysetCursor after = KeysetCursor.decode(pager.getAfter(), order);
+            this.filter(e -> after.precedes(e, order, propertyValueExtractor));
+        }
+
+        //we have to have at least 1 order in the specific direction
+        boolean specific = false;
+        for (Order o : order) {
+            if (o.isSpecific()) {
+                specific = true;
+                break;
             }
-            if (specific) {
-                //the order pipe holds on to the whole result set to be able to order, so we'd better do just
-                //1 order step.
-                this.order(p -> {
-                    int ret = 0;
-                    for (Order ord : order) {
-                        if (ord.isSpecific()) {
-                            Comparable a = propertyValueExtractor.apply(p.getA(), ord.getField());
-                            Comparable b = propertyValueExtractor.apply(p.getB(), ord.getField());
-                            ret = ord.isAscending() ? safeCompare(a, b) : safeCompare(b, a);
-                            if (ret != 0) {
-                                break;
-                            }
-                        }
-                    }
-                    return ret;
-                });
+        }
+        if (specific) {
+            //the ordering only needs to keep the elements up to the end of the page (plus the one that is used to
+            //tell whether there are more results), not the whole result set.
+            int keep;
+            if (!pager.isLimited()) {
+                keep = -1;
+            } else if (pager.getTotalCount() == PageContext.TotalCount.NONE) {
+                keep = pager.getEnd();
+            } else {
+                keep = pager.getEnd() + 1;
             }
+
+            add(new TopKOrderPipe<>(order, propertyValueExtractor, keep));
         }
 
         if (pager.isLimited()) {
-            this.drainedRange(pager.getStart(), pager.getEnd() - 1);
+            switch (pager.getTotalCount()) {
+                case EXACT:
+                    //all the elements need to go through the pipeline so that they can be counted. We also let 1 more
+                    //element through so that the caller can tell whether there are more results. For cursor-based
+                    //pages, this cannot be deduced from the total.
+                    this.drainedRange(pager.getStart(), pager.getEnd());
+                    break;
+                case ESTIMATED:
+                    //let 1 more element through so that the caller can tell whether there are more results
+                    this.range(pager.getStart(), pager.getEnd());
+                    break;
+                case NONE:
+                    this.range(pager.getStart(), pager.getEnd() - 1);
+                    break;
+                default:
+                    throw new AssertionError("Unhandled total count: " + pager.getTotalCount());
+            }
         }
 
         return this;
     }
 
-    private static <T extends Comparable<T>> int safeCompare(T a, T b) {
+    static <T extends Comparable<T>> int safeCompare(T a, T b) {
         if (a == null) {
             return b == null ? 0 : -1;
         } else if (b == null) {
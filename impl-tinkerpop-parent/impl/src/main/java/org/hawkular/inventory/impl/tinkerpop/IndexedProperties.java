@@ -0,0 +1,166 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import org.hawkular.inventory.api.Configuration;
+import org.hawkular.inventory.impl.tinkerpop.spi.IndexSpec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The user-defined properties of the entities that are indexed, as declared by the
+ * {@link ConfigurationProperty#INDEXED_PROPERTIES} configuration property.
+ *
+ * @since 0.1.0
+ */
+final class IndexedProperties {
+    static final IndexedProperties NONE = new IndexedProperties(Collections.emptyMap());
+
+    /**
+     * The types the values of the indexed properties can be declared to have, by their names.
+     */
+    private static final Map<String, Class<?>> VALUE_TYPES = new LinkedHashMap<>();
+    static {
+        Arrays.asList(String.class, Integer.class, Long.class, Double.class, Boolean.class)
+                .forEach((c) -> VALUE_TYPES.put(c.getSimpleName(), c));
+    }
+
+    private final Map<Constants.Type, Map<String, Class<?>>> properties;
+
+    private IndexedProperties(Map<Constants.Type, Map<String, Class<?>>> properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @param configuration the configuration to read the indexed properties from
+     * @return the indexed properties declared in the configuration
+     * @throws IllegalArgumentException if the declaration of the indexed properties is malformed or declares
+     *                                  different value types for a property shared by several indices
+     */
+    static IndexedProperties of(Configuration configuration) {
+        String value = ConfigurationProperty.INDEXED_PROPERTIES.get(configuration);
+        if (value == null || value.trim().isEmpty()) {
+            return NONE;
+        }
+
+        Map<Constants.Type, Map<String, Class<?>>> properties = new EnumMap<>(Constants.Type.class);
+        Map<String, Class<?>> vertexValueTypes = new HashMap<>();
+        Map<String, Class<?>> edgeValueTypes = new HashMap<>();
+
+        for (String declaration : value.split(",")) {
+            declaration = declaration.trim();
+            if (declaration.isEmpty()) {
+                continue;
+            }
+
+            String[] parts = declaration.split(":", -1);
+            if (parts.length < 2 || parts.length > 3 || Arrays.stream(parts).anyMatch((p) -> p.trim().isEmpty())) {
+                throw new IllegalArgumentException("Indexed property '" + declaration + "' in configuration property '"
+                        + ConfigurationProperty.INDEXED_PROPERTIES.getPropertyName()
+                        + "' should have the form <entity type>:<property name>[:<value type>].");
+            }
+
+            Constants.Type type;
+            try {
+                type = Constants.Type.valueOf(parts[0].trim());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown entity type in indexed property '" + declaration
+                        + "'. The supported types are: " + Arrays.toString(Constants.Type.values()), e);
+            }
+
+            String property = parts[1].trim();
+            if (Arrays.asList(type.getMappedProperties()).contains(property)) {
+                throw new IllegalArgumentException("Property '" + property + "' of " + type
+                        + " is not user-defined and cannot be indexed.");
+            }
+
+            Class<?> valueType = parts.length == 2 ? String.class : VALUE_TYPES.get(parts[2].trim());
+            if (valueType == null) {
+                throw new IllegalArgumentException("Unknown value type in indexed property '" + declaration
+                        + "'. The supported value types are: " + VALUE_TYPES.keySet());
+            }
+
+            //the entity types represented by vertices share the indices and hence also the types of the values
+            Class<?> sharedValueType = (type == Constants.Type.relationship ? edgeValueTypes : vertexValueTypes)
+                    .putIfAbsent(property, valueType);
+            if (sharedValueType != null && sharedValueType != valueType) {
+                throw new IllegalArgumentException("Indexed property '" + declaration + "' declares a different value"
+                        + " type than the previous declaration of the property: " + sharedValueType.getSimpleName()
+                        + ".");
+            }
+
+            properties.computeIfAbsent(type, (t) -> new LinkedHashMap<>()).put(property, valueType);
+        }
+
+        return new IndexedProperties(properties);
+    }
+
+    /**
+     * @param type     the type of the entities
+     * @param property the name of the property
+     * @return true if the property is indexed for the entities of the type
+     */
+    boolean isIndexed(Constants.Type type, String property) {
+        Map<String, Class<?>> props = properties.get(type);
+        return props != null && props.containsKey(property);
+    }
+
+    /**
+     * @param types    the types of the entities
+     * @param property the name of the property
+     * @return true if the property is indexed for the entities of all the types
+     */
+    boolean isIndexed(Constants.Type[] types, String property) {
+        return Arrays.stream(types).allMatch((t) -> isIndexed(t, property));
+    }
+
+    /**
+     * The properties of all the entity types that are represented by vertices share the indices, so that each of the
+     * properties is indexed only once, regardless of the number of types it is declared for.
+     *
+     * @return the specifications of the indices of the properties
+     */
+    List<IndexSpec> toIndexSpecs() {
+        Map<String, Class<?>> vertexProperties = new LinkedHashMap<>();
+        Map<String, Class<?>> edgeProperties = new LinkedHashMap<>();
+
+        properties.forEach((type, props) -> (type == Constants.Type.relationship ? edgeProperties : vertexProperties)
+                .putAll(props));
+
+        List<IndexSpec> ret = new ArrayList<>(vertexProperties.size() + edgeProperties.size());
+        vertexProperties.forEach((p, t) -> ret.add(IndexSpec.builder().withElementType(Vertex.class)
+                .withProperty(p, t).build()));
+        edgeProperties.forEach((p, t) -> ret.add(IndexSpec.builder().withElementType(Edge.class)
+                .withProperty(p, t).build()));
+
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexedProperties" + properties;
+    }
+}
@@ -17,10 +17,22 @@
 
 package org.hawkular.inventory.impl.tinkerpop;
 
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.TransactionalGraph;
+import org.hawkular.inventory.api.Configuration;
 import org.hawkular.inventory.base.spi.InventoryBackend;
 import org.hawkular.inventory.impl.tinkerpop.spi.GraphProvider;
 
+import java.io.File;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Data needed by various services. Mostly coming from configuration.
  *
@@ -32,11 +44,60 @@ final class InventoryContext<G extends TransactionalGraph> {
     private final G graph;
     private final TinkerpopInventory inventory;
     private final GraphProvider<G> graphProvider;
+    private final SpillingOrderPipe.Settings<Element> sortSettings;
+    private final CanonicalPathCache pathCache;
+    private final AncestryCache ancestryCache;
+    private final CursorSnapshots cursorSnapshots;
+    private final ForkJoinPool workers;
+    private final ParallelConversion parallelConversion;
+    private final ParallelBranches parallelBranches;
+    private final int deleteChunkSize;
+    private final boolean edgeLookupById;
+    private final IndexedProperties indexedProperties;
+    private final ThreadLocal<int[]> mutatingTransactions = ThreadLocal.withInitial(() -> new int[1]);
+    private final AtomicLong modificationCount = new AtomicLong();
+    private final ThreadLocal<Set<String>> modifiedTenants = ThreadLocal.withInitial(HashSet::new);
+    private final ConcurrentHashMap<String, AtomicLong> tenantModificationCounts = new ConcurrentHashMap<>();
+    private final AtomicLong unscopedModificationCount = new AtomicLong();
 
-    public InventoryContext(TinkerpopInventory inventory, G graph, GraphProvider<G> graphProvider) {
+    public InventoryContext(TinkerpopInventory inventory, Configuration configuration, G graph,
+            GraphProvider<G> graphProvider, IndexedProperties indexedProperties) {
         this.inventory = inventory;
         this.graph = graph;
         this.graphProvider = graphProvider;
+        this.indexedProperties = indexedProperties;
+
+        String tempDir = ConfigurationProperty.SORT_TEMP_DIRECTORY.get(configuration);
+        this.sortSettings = new SpillingOrderPipe.Settings<>(
+                ConfigurationProperty.SORT_MAX_IN_MEMORY_ELEMENTS.getInt(configuration),
+                ConfigurationProperty.SORT_MAX_IN_MEMORY_BYTES.getLong(configuration),
+                tempDir == null ? null : new File(tempDir), SpillingOrderPipe.elementCodec(graph));
+
+        this.pathCache = new CanonicalPathCache(ConfigurationProperty.PATH_CACHE_MAX_SIZE.getInt(configuration));
+        this.ancestryCache = new AncestryCache(ConfigurationProperty.ANCESTRY_CACHE_MAX_SIZE.getInt(configuration));
+        this.cursorSnapshots = new CursorSnapshots(
+                ConfigurationProperty.CURSOR_SNAPSHOTS_MAX_SIZE.getInt(configuration),
+                ConfigurationProperty.CURSOR_SNAPSHOTS_MAX_ELEMENTS.getInt(configuration));
+
+        int threshold = ConfigurationProperty.PARALLEL_CONVERSION_THRESHOLD.getInt(configuration);
+        boolean branches = Boolean.parseBoolean(ConfigurationProperty.PARALLEL_BRANCHES.get(configuration).trim());
+        boolean concurrentReads = graphProvider.isConcurrentReadSupported(graph);
+
+        if ((threshold > 0 || branches) && concurrentReads) {
+            int parallelism = ConfigurationProperty.PARALLEL_CONVERSION_PARALLELISM.get(configuration) == null
+                    ? Runtime.getRuntime().availableProcessors()
+                    : ConfigurationProperty.PARALLEL_CONVERSION_PARALLELISM.getInt(configuration);
+            this.workers = new ForkJoinPool(parallelism);
+        } else {
+            this.workers = null;
+        }
+
+        this.parallelConversion = threshold > 0 && workers != null ? new ParallelConversion(threshold,
+                ConfigurationProperty.PARALLEL_CONVERSION_MIN_CHUNK_SIZE.getInt(configuration), workers) : null;
+        this.parallelBranches = branches && workers != null ? new ParallelBranches(workers) : null;
+
+        this.deleteChunkSize = ConfigurationProperty.DELETE_CHUNK_SIZE.getInt(configuration);
+        this.edgeLookupById = graphProvider.isEdgeLookupByIdSupported(graph);
     }
 
     public TinkerpopInventory getInventory() {
@@ -47,15 +108,193 @@ final class InventoryContext<G extends TransactionalGraph> {
         return graph;
     }
 
+    /**
+     * Finds the edge with given id, using the native lookup of the edges by their ids if the graph provider supports
+     * it or the index otherwise.
+     *
+     * @param eid the id of the edge as stored in its {@link Constants.Property#__eid} property
+     * @return the edge or null if there is no edge with given id
+     */
+    public Edge getEdge(String eid) {
+        if (edgeLookupById) {
+            Edge ret;
+            try {
+                ret = graph.getEdge(eid);
+            } catch (IllegalArgumentException e) {
+                //the graph didn't recognize the id
+                return null;
+            }
+
+            //check that we found what we were asked for - the native ids might be recycled
+            return ret != null && eid.equals(ret.getProperty(Constants.Property.__eid.name())) ? ret : null;
+        }
+
+        Iterator<Edge> it = graph.query().has(Constants.Property.__eid.name(), eid).edges().iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    /**
+     * @return the settings of the ordering of the streamed results
+     */
+    public SpillingOrderPipe.Settings<Element> getSortSettings() {
+        return sortSettings;
+    }
+
+    /**
+     * @return the cache of the native ids of the elements found by their canonical paths
+     */
+    public CanonicalPathCache getPathCache() {
+        return pathCache;
+    }
+
+    /**
+     * @return the cache of the ancestry of the entity vertices
+     */
+    public AncestryCache getAncestryCache() {
+        return ancestryCache;
+    }
+
+    /**
+     * @return the snapshots of the ordered results of the cursor-based queries
+     */
+    public CursorSnapshots getCursorSnapshots() {
+        return cursorSnapshots;
+    }
+
+    /**
+     * @param tenant the value of the {@link Constants.Property#__cp} property of a tenant or null for all the tenants
+     * @return a number that changes each time a mutating transaction that modified the tenant ends, or each time any
+     * mutating transaction ends if no tenant is provided
+     */
+    public long getModificationCount(String tenant) {
+        if (tenant == null) {
+            return modificationCount.get();
+        }
+
+        //both the counts only ever grow, so their sum changes whenever any of them does
+        AtomicLong count = tenantModificationCounts.get(tenant);
+        return unscopedModificationCount.get() + (count == null ? 0 : count.get());
+    }
+
+    /**
+     * Records that the element is being modified in the current mutating transaction, so that the end of the
+     * transaction changes the {@link #getModificationCount(String) modification counts} of the tenants of the element.
+     * The edges are recorded as modifying the tenants of both their ends. The elements that don't belong to any
+     * tenant are recorded as modifying all of them.
+     *
+     * @param element the vertex or edge being modified
+     */
+    public void modified(Element element) {
+        Set<String> tenants = modifiedTenants.get();
+        if (element instanceof Edge) {
+            tenants.add(tenantOf(((Edge) element).getVertex(Direction.OUT)));
+            tenants.add(tenantOf(((Edge) element).getVertex(Direction.IN)));
+        } else {
+            tenants.add(tenantOf(element));
+        }
+    }
+
+    /**
+     * @return the user-defined properties of the entities that are indexed
+     */
+    public IndexedProperties getIndexedProperties() {
+        return indexedProperties;
+    }
+
+    /**
+     * @return the maximum number of entities to delete in a single chunk or zero if the chunks are not limited
+     */
+    public int getDeleteChunkSize() {
+        return deleteChunkSize;
+    }
+
+    /**
+     * The parallel conversion can only be used if the current thread doesn't participate in a mutating transaction,
+     * because the changes made in the transaction might not be visible to the other threads.
+     *
+     * @return the parallel conversion to use or null if the elements should be converted in the current thread
+     */
+    public ParallelConversion getParallelConversion() {
+        return parallelConversion == null || mutatingTransactions.get()[0] > 0 ? null : parallelConversion;
+    }
+
+    /**
+     * Same as with the {@link #getParallelConversion() parallel conversion}, the branches can only be evaluated in
+     * parallel if the current thread doesn't participate in a mutating transaction.
+     *
+     * @return the executor of the query branches or null if the branches should be evaluated serially
+     */
+    public ParallelBranches getParallelBranches() {
+        return parallelBranches == null || mutatingTransactions.get()[0] > 0 ? null : parallelBranches;
+    }
+
     public InventoryBackend.Transaction startTransaction(boolean mutating) {
-        return graphProvider.startTransaction(graph, mutating);
+        InventoryBackend.Transaction ret = graphProvider.startTransaction(graph, mutating);
+        if (mutating) {
+            mutatingTransactions.get()[0]++;
+        }
+        return ret;
     }
 
     public void commit(InventoryBackend.Transaction t) {
-        graphProvider.commit(graph, t);
+        try {
+            graphProvider.commit(graph, t);
+        } finally {
+            transactionEnded(t);
+        }
+    }
+
+    /**
+     * Commits the work done so far in the current mutating transaction, which stays open for the rest of the work.
+     * The modifications made so far are published the same way as if the transaction ended.
+     */
+    public void commitChunk() {
+        graph.commit();
+        publishModifications();
     }
 
     public void rollback(InventoryBackend.Transaction t) {
-        graphProvider.rollback(graph, t);
+        try {
+            graphProvider.rollback(graph, t);
+        } finally {
+            transactionEnded(t);
+        }
+    }
+
+    public void close() {
+        if (workers != null) {
+            workers.shutdown();
+        }
+        graph.shutdown();
+    }
+
+    private void transactionEnded(InventoryBackend.Transaction t) {
+        if (t.isMutating()) {
+            int[] count = mutatingTransactions.get();
+            count[0] = Math.max(0, count[0] - 1);
+            modificationsEnded();
+        }
+    }
+
+    private void modificationsEnded() {
+        publishModifications();
+        modifiedTenants.get().clear();
+    }
+
+    private void publishModifications() {
+        for (String tenant : modifiedTenants.get()) {
+            if (tenant == null) {
+                unscopedModificationCount.incrementAndGet();
+            } else {
+                tenantModificationCounts.computeIfAbsent(tenant, (t) -> new AtomicLong()).incrementAndGet();
+            }
+        }
+
+        modificationCount.incrementAndGet();
+    }
+
+    private static String tenantOf(Element vertex) {
+        String path = vertex.getProperty(Constants.Property.__cp.name());
+        return path == null ? null : CanonicalPaths.tenantIndexValueOf(path);
     }
 }
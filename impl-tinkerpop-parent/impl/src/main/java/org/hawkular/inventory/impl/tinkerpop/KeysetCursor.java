@@ -0,0 +1,257 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.impl.tinkerpop;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import org.hawkular.inventory.api.model.AbstractElement;
+import org.hawkular.inventory.api.model.Relationship;
+import org.hawkular.inventory.api.paging.Order;
+import org.hawkular.inventory.base.spi.CanonicalPath;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * The position in the ordered results that a cursor-based page starts after.
+ *
+ * <p>The cursor consists of the values of the properties the results are ordered by, taken from the last element
+ * of the previous page, followed by the canonical path of that element, which makes the position unambiguous (see
+ * {@link #keyOrder(List)}). The elements following the cursor are then the elements with the key greater than the
+ * cursor, which is a simple filter and doesn't require evaluating the preceding pages as is the case with
+ * the offset-based paging.
+ *
+ * <p>The cursor can also point into a {@link CursorSnapshots snapshot} of the ordered results, in which case the next
+ * page can be read from the snapshot without evaluating the query at all, as long as the snapshot is still valid.
+ * If there are too many results to snapshot, the cursor records that, so that the following pages don't attempt to
+ * snapshot them again.
+ *
+ * <p>The string representation of the cursor is opaque to the callers.
+ *
+ * @since 0.1.0
+ */
+final class KeysetCursor {
+    /**
+     * The name of the pseudo-property used to break the ties in the ordering of the cursor-based results. Its value is
+     * the canonical path of the entity (as stored in the {@link Constants.Property#__cp} property of the vertices) or
+     * the id of the relationship, which, unlike the ids of the entities, is unique.
+     */
+    static final String PATH_KEY = Constants.Property.__cp.name();
+
+    private static final long SNAPSHOTS_ABANDONED = -2;
+
+    private final List<Comparable> values;
+    private final long snapshotId;
+    private final int snapshotPosition;
+
+    private KeysetCursor(List<Comparable> values, long snapshotId, int snapshotPosition) {
+        this.values = values;
+        this.snapshotId = snapshotId;
+        this.snapshotPosition = snapshotPosition;
+    }
+
+    /**
+     * The cursor-based paging needs a total order of the results. This returns the specific orders from the provided
+     * list followed by the ascending order on the {@link #PATH_KEY paths}, which is used to break the ties.
+     *
+     * @param order the order requested by the caller
+     * @return the order to sort the cursor-based results with
+     */
+    static List<Order> keyOrder(List<Order> order) {
+        List<Order> ret = new ArrayList<>(order.size() + 1);
+        order.stream().filter(Order::isSpecific).forEach(ret::add);
+        ret.add(Order.by(PATH_KEY, Order.Direction.ASCENDING));
+        return ret;
+    }
+
+    /**
+     * @param element the vertex or edge
+     * @return the value of the {@link #PATH_KEY} of the element
+     */
+    static String pathOf(Element element) {
+        return element instanceof Edge ? element.getProperty(Constants.Property.__eid.name())
+                : element.getProperty(Constants.Property.__cp.name());
+    }
+
+    /**
+     * @param element the entity or relationship
+     * @return the value of the {@link #PATH_KEY} of the element
+     */
+    static String pathOf(AbstractElement<?, ?> element) {
+        return element instanceof Relationship ? element.getId()
+                : CanonicalPaths.toIndexValue(CanonicalPath.of(element));
+    }
+
+    /**
+     * Creates a cursor pointing at the provided element.
+     *
+     * @param element                the element
+     * @param keyOrder               the order as returned from {@link #keyOrder(List)}
+     * @param propertyValueExtractor the function to extract the values of the ordered properties
+     * @param <E>                    the type of the element
+     * @return the cursor
+     */
+    static <E> KeysetCursor of(E element, List<Order> keyOrder,
+            BiFunction<E, String, ? extends Comparable> propertyValueExtractor) {
+        List<Comparable> values = new ArrayList<>(keyOrder.size());
+        for (Order o : keyOrder) {
+            values.add(propertyValueExtractor.apply(element, o.getField()));
+        }
+
+        return new KeysetCursor(values, -1, 0);
+    }
+
+    /**
+     * Decodes the cursor from its string representation as produced by {@link #encode()}.
+     *
+     * @param cursor   the string representation of the cursor
+     * @param keyOrder the order as returned from {@link #keyOrder(List)}
+     * @return the cursor
+     * @throws IllegalArgumentException if the cursor is malformed or doesn't correspond to the order
+     */
+    static KeysetCursor decode(String cursor, List<Order> keyOrder) {
+        byte[] data;
+        try {
+            data = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+
+        List<Comparable> values = new ArrayList<>(keyOrder.size());
+        long snapshotId = -1;
+        int snapshotPosition = 0;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+
+            int size = in.readInt();
+            if (size != keyOrder.size()) {
+                throw new IllegalArgumentException("The cursor doesn't correspond to the requested ordering.");
+            }
+
+            for (int i = 0; i < size; ++i) {
+                values.add(ValueCodec.read(in));
+            }
+
+            if (in.available() > 0) {
+                snapshotId = in.readLong();
+                snapshotPosition = in.readInt();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+
+        return new KeysetCursor(values, snapshotId, snapshotPosition);
+    }
+
+    /**
+     * @param snapshotId the id of the snapshot of the ordered results
+     * @param position   the position in the snapshot of the element following this cursor
+     * @return a copy of this cursor pointing into the snapshot
+     */
+    KeysetCursor withSnapshot(long snapshotId, int position) {
+        return new KeysetCursor(values, snapshotId, position);
+    }
+
+    /**
+     * @return a copy of this cursor recording that the results following it are not to be snapshotted
+     */
+    KeysetCursor withSnapshotsAbandoned() {
+        return new KeysetCursor(values, SNAPSHOTS_ABANDONED, 0);
+    }
+
+    /**
+     * @return true if the results following this cursor are not to be snapshotted, false otherwise
+     */
+    boolean isSnapshotAbandoned() {
+        return snapshotId == SNAPSHOTS_ABANDONED;
+    }
+
+    /**
+     * @return the id of the snapshot this cursor points into or a negative number if it doesn't point into any
+     */
+    long getSnapshotId() {
+        return snapshotId;
+    }
+
+    /**
+     * @return the position in the snapshot of the element following this cursor
+     */
+    int getSnapshotPosition() {
+        return snapshotPosition;
+    }
+
+    /**
+     * @return the opaque string representation of the cursor
+     * @throws IllegalArgumentException if some of the values of the cursor cannot be represented
+     */
+    String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(values.size());
+            for (Comparable v : values) {
+                if (!ValueCodec.isSupported(v)) {
+                    throw new IllegalArgumentException("Cannot create a cursor for results ordered by values of type "
+                            + v.getClass().getName());
+                }
+                ValueCodec.write(out, v);
+            }
+
+            if (snapshotId != -1) {
+                out.writeLong(snapshotId);
+                out.writeInt(snapshotPosition);
+            }
+        } catch (IOException e) {
+            throw new AssertionError("IOException while writing to a byte array. This should not happen.", e);
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Checks whether this cursor precedes the element, i.e. whether the element is positioned after this cursor in
+     * the results ordered by the provided order.
+     *
+     * @param element                the element to check
+     * @param keyOrder               the order as returned from {@link #keyOrder(List)}
+     * @param propertyValueExtractor the function to extract the values of the ordered properties
+     * @param <E>                    the type of the element
+     * @return true if the element comes after this cursor, false otherwise
+     */
+    @SuppressWarnings("unchecked")
+    <E> boolean precedes(E element, List<Order> keyOrder,
+            BiFunction<E, String, ? extends Comparable> propertyValueExtractor) {
+        for (int i = 0; i < keyOrder.size(); ++i) {
+            Order o = keyOrder.get(i);
+            Comparable a = values.get(i);
+            Comparable b = propertyValueExtractor.apply(element, o.getField());
+            int ret = o.isAscending() ? HawkularPipeline.safeCompare(a, b) : HawkularPipeline.safeCompare(b, a);
+            if (ret != 0) {
+                return ret < 0;
+            }
+        }
+
+        //the element is the one the cursor was created from
+        return false;
+    }
+}
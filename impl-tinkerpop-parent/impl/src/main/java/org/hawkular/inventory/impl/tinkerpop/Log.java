@@ -41,4 +41,28 @@ interface Log {
     @Message(id = 1001, value = "No Topic Connection found (is 'java:/topic/HawkularInventoryChanges' bound?), not " +
             "sending")
     void wNoTopicConnection();
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 1002, value = "Failed to use temporary files for ordering the results, continuing in memory: %s")
+    void wCannotSpillOrdering(String message);
+
+    @LogMessage(level = Logger.Level.DEBUG)
+    @Message(id = 1003, value = "Ordering of %d elements used %d temporary files.")
+    void dOrderingSpilled(long elementCount, int fileCount);
+
+    @LogMessage(level = Logger.Level.INFO)
+    @Message(id = 1004, value = "Stored the canonical paths of %d entities of tenant '%s' in the graph.")
+    void iCanonicalPathsMigrated(long entityCount, String tenantId);
+
+    @LogMessage(level = Logger.Level.DEBUG)
+    @Message(id = 1005, value = "Evaluating %s")
+    void dQueryPlan(QueryPlan plan);
+
+    @LogMessage(level = Logger.Level.DEBUG)
+    @Message(id = 1006, value = "Branch %d of %d of the query evaluated in %d ms producing %d elements.")
+    void dBranchEvaluated(int branch, int branchCount, long millis, int elementCount);
+
+    @LogMessage(level = Logger.Level.INFO)
+    @Message(id = 1007, value = "Stored the targets of %d relationships of tenant '%s' in the graph.")
+    void iEdgeTargetsMigrated(long relationshipCount, String tenantId);
 }
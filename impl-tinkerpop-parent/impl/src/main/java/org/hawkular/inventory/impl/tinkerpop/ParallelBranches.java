@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.impl.tinkerpop;
+
+import com.tinkerpop.pipes.Pipe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates the branches of the queries that split into several paths on a fork-join pool.
+ *
+ * <p>Each branch is evaluated by a single task, so the branches don't need to be thread-safe, but the graph they
+ * read from needs to support concurrent reads. The time it took to evaluate each of the branches is logged on the
+ * DEBUG level.
+ *
+ * @since 0.1.0
+ */
+final class ParallelBranches {
+    private final ForkJoinPool pool;
+
+    /**
+     * @param pool the pool to evaluate the branches on
+     */
+    ParallelBranches(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Evaluates the branches on the provided start elements.
+     *
+     * @param branches the branches of the query
+     * @param starts   the elements to start each of the branches with
+     * @param <S>      the type of the start elements
+     * @return the results of the individual branches, in the same order as the branches
+     */
+    <S> List<List<Object>> evaluate(List<? extends Pipe<S, ?>> branches, List<S> starts) {
+        List<Callable<List<Object>>> tasks = new ArrayList<>(branches.size());
+
+        for (int i = 0; i < branches.size(); ++i) {
+            int branchIndex = i;
+            Pipe<S, ?> branch = branches.get(i);
+
+            tasks.add(() -> {
+                long start = System.nanoTime();
+
+                branch.setStarts(starts.iterator());
+
+                List<Object> results = new ArrayList<>();
+                while (branch.hasNext()) {
+                    results.add(branch.next());
+                }
+
+                Log.LOG.dBranchEvaluated(branchIndex + 1, branches.size(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), results.size());
+
+                return results;
+            });
+        }
+
+        //invokeAll() joins the tasks, so a nested split evaluated on a worker thread helps with the work instead of
+        //blocking the thread
+        List<Future<List<Object>>> futures = pool.invokeAll(tasks);
+
+        List<List<Object>> ret = new ArrayList<>(futures.size());
+        for (Future<List<Object>> f : futures) {
+            try {
+                ret.add(f.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while evaluating the query branches.", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException("Failed to evaluate the query branches.", cause);
+            }
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.impl.tinkerpop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Converts (and optionally filters) large lists of elements on a fork-join pool.
+ *
+ * <p>The elements are split into chunks that are converted in parallel, each using a single call to the conversion
+ * function, so that the elements in a chunk can share the work needed for their conversion. The order of the elements
+ * is preserved.
+ *
+ * @since 0.1.0
+ */
+final class ParallelConversion {
+    private final int threshold;
+    private final int minChunkSize;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param threshold    the minimum number of elements to convert in parallel
+     * @param minChunkSize the minimum number of elements converted together by a single worker
+     * @param pool         the pool to convert the elements on
+     */
+    ParallelConversion(int threshold, int minChunkSize, ForkJoinPool pool) {
+        if (minChunkSize < 1) {
+            throw new IllegalArgumentException("minChunkSize < 1");
+        }
+        this.threshold = threshold;
+        this.minChunkSize = minChunkSize;
+        this.pool = pool;
+    }
+
+    /**
+     * @return the minimum number of elements to convert in parallel
+     */
+    int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Converts the elements and filters the results.
+     *
+     * @param elements   the elements to convert
+     * @param conversion the conversion function, must be safe to call concurrently
+     * @param filter     the filter to apply to the converted elements or null if all of them should be retained. Must
+     *                   be safe to call concurrently.
+     * @param <E>        the type of the elements
+     * @param <T>        the type of the converted elements
+     * @return the converted elements that passed the filter, in the same order as the provided elements
+     */
+    <E, T> List<T> convert(List<E> elements, Function<List<E>, List<T>> conversion, Function<T, Boolean> filter) {
+        int chunkSize = Math.max(minChunkSize, (elements.size() + pool.getParallelism() * 4 - 1)
+                / (pool.getParallelism() * 4));
+
+        List<List<E>> chunks = new ArrayList<>();
+        for (int i = 0; i < elements.size(); i += chunkSize) {
+            chunks.add(elements.subList(i, Math.min(elements.size(), i + chunkSize)));
+        }
+
+        Function<List<E>, List<T>> work = filter == null ? conversion
+                : (chunk) -> conversion.apply(chunk).stream().filter(filter::apply).collect(toList());
+
+        List<List<T>> results;
+        try {
+            //running the parallel stream from within the pool makes it use the pool instead of the common one
+            results = pool.submit(() -> chunks.parallelStream().map(work).collect(toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while converting the elements.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Failed to convert the elements.", cause);
+        }
+
+        List<T> ret = new ArrayList<>(elements.size());
+        results.forEach(ret::addAll);
+
+        return ret;
+    }
+}
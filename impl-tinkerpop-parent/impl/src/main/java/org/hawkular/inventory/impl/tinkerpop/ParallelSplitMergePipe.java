@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.impl.tinkerpop;
+
+import com.tinkerpop.pipes.AbstractPipe;
+import com.tinkerpop.pipes.Pipe;
+import com.tinkerpop.pipes.util.FastNoSuchElementException;
+import com.tinkerpop.pipes.util.MetaPipe;
+import com.tinkerpop.pipes.util.PipeHelper;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The parallel counterpart of {@code copySplit(branches).exhaustMerge()}.
+ *
+ * <p>All the incoming elements are gathered first and then each of the branches is evaluated on them using
+ * the {@link ParallelBranches}. The results are the same and are emitted in the same order as the exhaust merge would
+ * emit them, i.e. the results of the first branch, then the results of the second branch, etc. An element reached by
+ * more than one branch is therefore emitted more than once.
+ *
+ * <p>Because all the results of the branches are produced before the first one is emitted, this pipe is only worth
+ * using if all of its results are going to be consumed.
+ *
+ * @since 0.1.0
+ */
+class ParallelSplitMergePipe<S> extends AbstractPipe<S, Object> implements MetaPipe {
+    private final List<Pipe<S, ?>> branches;
+    private final ParallelBranches executor;
+    private Iterator<Object> results;
+
+    public ParallelSplitMergePipe(List<Pipe<S, ?>> branches, ParallelBranches executor) {
+        this.branches = branches;
+        this.executor = executor;
+    }
+
+    protected Object processNextStart() {
+        if (results == null) {
+            List<S> starts = new ArrayList<>();
+            while (this.starts.hasNext()) {
+                starts.add(this.starts.next());
+            }
+
+            results = starts.isEmpty() ? null
+                    : executor.evaluate(branches, starts).stream().flatMap(List::stream).iterator();
+        }
+
+        if (results == null || !results.hasNext()) {
+            throw FastNoSuchElementException.instance();
+        }
+
+        return results.next();
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Pipe> getPipes() {
+        return (List<Pipe>) (List) branches;
+    }
+
+    public void reset() {
+        results = null;
+        branches.forEach(Pipe::reset);
+        super.reset();
+    }
+
+    public String toString() {
+        return PipeHelper.makePipeString(this, branches);
+    }
+}
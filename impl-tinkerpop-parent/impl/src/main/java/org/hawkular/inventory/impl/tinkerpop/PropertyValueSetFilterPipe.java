@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.impl.tinkerpop;
+
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.pipes.AbstractPipe;
+import com.tinkerpop.pipes.filter.FilterPipe;
+import com.tinkerpop.pipes.util.PipeHelper;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Lets through the elements whose property has one of the provided values.
+ *
+ * <p>This is equivalent to an {@code or()} of {@link com.tinkerpop.pipes.filter.PropertyFilterPipe}s, one for each
+ * of the values, but reads the property only once per element and checks it against a hash set instead of comparing
+ * it with each of the values.
+ *
+ * @since 0.1.0
+ */
+class PropertyValueSetFilterPipe<E extends Element> extends AbstractPipe<E, E> implements FilterPipe<E> {
+    private final String key;
+    private final Set<Object> values;
+
+    public PropertyValueSetFilterPipe(String key, Object... values) {
+        this.key = key;
+        this.values = new HashSet<>(Arrays.asList(values));
+    }
+
+    protected E processNextStart() {
+        while (true) {
+            E e = this.starts.next();
+            if (values.contains(e.getProperty(key))) {
+                return e;
+            }
+        }
+    }
+
+    public String toString() {
+        return PipeHelper.makePipeString(this, key, values);
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.impl.tinkerpop;
+
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphQuery;
+import com.tinkerpop.blueprints.Vertex;
+import org.hawkular.inventory.base.Query;
+import org.hawkular.inventory.base.QueryFragment;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.StreamSupport;
+
+/**
+ * The way a query is going to be evaluated, as determined by the {@link QueryPlanner}.
+ *
+ * @since 0.1.0
+ */
+final class QueryPlan {
+
+    /**
+     * The elements the pipeline starts with.
+     */
+    enum Start {
+        /**
+         * The vertex with the canonical path, looked up using the index.
+         */
+        CANONICAL_PATH,
+
+        /**
+         * The vertices with any of the types and any of the ids, looked up using the index.
+         */
+        TYPES_AND_IDS,
+
+        /**
+         * The vertices with any of the types and any of the values of an indexed user-defined property, looked up using
+         * the index.
+         */
+        TYPES_AND_PROPERTY_VALUES,
+
+        /**
+         * The vertices with any of the types, looked up using the index.
+         */
+        TYPES,
+
+        /**
+         * All the vertices in the graph.
+         */
+        ALL_VERTICES,
+
+        /**
+         * The edges with any of the ids, looked up by their ids.
+         */
+        EDGE_IDS,
+
+        /**
+         * The edges with any of the values of an indexed user-defined property, looked up using the index.
+         */
+        EDGE_PROPERTY_VALUES,
+
+        /**
+         * All the edges in the graph.
+         */
+        ALL_EDGES
+    }
+
+    private final Start start;
+    private final String canonicalPath;
+    private final Constants.Type[] types;
+    private final String[] ids;
+    private final String property;
+    private final Object[] values;
+    private final Query query;
+    private final int skip;
+
+    /**
+     * @param start         the kind of the start point
+     * @param canonicalPath the canonical path index value of the start vertex, if applicable
+     * @param types         the types of the start vertices, if applicable
+     * @param ids           the ids of the start vertices or edges, if applicable
+     * @param query         the (normalized) query to apply to the start elements
+     * @param skip          the number of the leading fragments of the root of the query the start point accounts for
+     */
+    QueryPlan(Start start, String canonicalPath, Constants.Type[] types, String[] ids, Query query, int skip) {
+        this(start, canonicalPath, types, ids, null, null, query, skip);
+    }
+
+    /**
+     * @param start         the kind of the start point
+     * @param canonicalPath the canonical path index value of the start vertex, if applicable
+     * @param types         the types of the start vertices, if applicable
+     * @param ids           the ids of the start vertices or edges, if applicable
+     * @param property      the indexed property of the start elements, if applicable
+     * @param values        the values of the indexed property of the start elements, if applicable
+     * @param query         the (normalized) query to apply to the start elements
+     * @param skip          the number of the leading fragments of the root of the query the start point accounts for
+     */
+    QueryPlan(Start start, String canonicalPath, Constants.Type[] types, String[] ids, String property,
+            Object[] values, Query query, int skip) {
+        this.start = start;
+        this.canonicalPath = canonicalPath;
+        this.types = types;
+        this.ids = ids;
+        this.property = property;
+        this.values = values;
+        this.query = query;
+        this.skip = skip;
+    }
+
+    Start getStart() {
+        return start;
+    }
+
+    Query getQuery() {
+        return query;
+    }
+
+    /**
+     * Creates a new pipeline evaluating this plan.
+     *
+     * @param context          the context providing the graph to evaluate the plan against
+     * @param parallelBranches the executor of the branches or null if the branches should be evaluated serially
+     * @return the pipeline
+     */
+    HawkularPipeline<?, ? extends Element> toPipeline(InventoryContext<?> context,
+            ParallelBranches parallelBranches) {
+        Graph graph = context.getGraph();
+        HawkularPipeline<?, ? extends Element> q;
+
+        switch (start) {
+            case CANONICAL_PATH:
+                q = new HawkularPipeline<>(graph).V(Constants.Property.__cp.name(), canonicalPath);
+                break;
+            case TYPES_AND_IDS:
+                if (types.length == 1 && ids.length == 1) {
+                    q = new HawkularPipeline<>(lookup(graph, types[0], Constants.Property.__eid.name(), ids[0]));
+                } else {
+                    //a multi-get - the results of the individual lookups are disjoint, so no deduplication is needed
+                    q = new HawkularPipeline<>(Arrays.stream(types).flatMap((t) -> Arrays.stream(ids)
+                            .flatMap((id) -> StreamSupport.stream(lookup(graph, t, Constants.Property.__eid.name(),
+                                    id).spliterator(), false)))
+                            .iterator());
+                }
+                break;
+            case TYPES_AND_PROPERTY_VALUES:
+                //same as above - an element has a single value of the property, so the lookups are disjoint
+                q = new HawkularPipeline<>(Arrays.stream(types).flatMap((t) -> Arrays.stream(values)
+                        .flatMap((v) -> StreamSupport.stream(lookup(graph, t, property, v).spliterator(), false)))
+                        .iterator());
+                break;
+            case TYPES:
+                if (types.length == 1) {
+                    q = new HawkularPipeline<>(lookup(graph, types[0], null, null));
+                } else {
+                    q = new HawkularPipeline<>(Arrays.stream(types)
+                            .flatMap((t) -> StreamSupport.stream(lookup(graph, t, null, null).spliterator(), false))
+                            .iterator());
+                }
+                break;
+            case ALL_VERTICES:
+                q = new HawkularPipeline<>(graph).V();
+                break;
+            case EDGE_IDS:
+                q = new HawkularPipeline<>(Arrays.stream(ids).map(context::getEdge).filter(Objects::nonNull)
+                        .iterator());
+                break;
+            case EDGE_PROPERTY_VALUES:
+                q = new HawkularPipeline<>(Arrays.stream(values).flatMap((v) -> StreamSupport.stream(
+                        graph.query().has(property, v).edges().spliterator(), false)).iterator());
+                break;
+            case ALL_EDGES:
+                q = new HawkularPipeline<>(graph).E();
+                break;
+            default:
+                throw new AssertionError("Unhandled start of the query plan: " + start);
+        }
+
+        FilterApplicator.applyAll(query, q, skip, parallelBranches);
+
+        return q;
+    }
+
+    private static Iterable<Vertex> lookup(Graph graph, Constants.Type type, String property, Object value) {
+        //the more selective check goes first - graphs with single-key indices (like tinker graph) only use the index
+        //of the first indexed key of the query
+        GraphQuery query = graph.query();
+        if (property != null) {
+            query = query.has(property, value);
+        }
+        query = query.has(Constants.Property.__type.name(), type.name());
+
+        return query.vertices();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder bld = new StringBuilder("QueryPlan[start=").append(start);
+        if (canonicalPath != null) {
+            bld.append(", canonicalPath=").append(canonicalPath);
+        }
+        if (types != null) {
+            bld.append(", types=").append(Arrays.toString(types));
+        }
+        if (ids != null) {
+            bld.append(", ids=").append(Arrays.toString(ids));
+        }
+        if (property != null) {
+            bld.append(", property=").append(property).append(", values=").append(Arrays.toString(values));
+        }
+        bld.append(", query=");
+        appendQuery(bld, query, skip);
+        return bld.append(']').toString();
+    }
+
+    private static void appendQuery(StringBuilder bld, Query query, int skip) {
+        QueryFragment[] fragments = query.getFragments();
+        bld.append(Arrays.asList(fragments).subList(skip, fragments.length));
+
+        if (!query.getSubTrees().isEmpty()) {
+            bld.append("->{");
+            for (int i = 0; i < query.getSubTrees().size(); ++i) {
+                if (i > 0) {
+                    bld.append(", ");
+                }
+                appendQuery(bld, query.getSubTrees().get(i), 0);
+            }
+            bld.append('}');
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.impl.tinkerpop;
+
+import org.hawkular.inventory.api.filters.Filter;
+import org.hawkular.inventory.api.filters.RelationFilter;
+import org.hawkular.inventory.api.filters.RelationWith;
+import org.hawkular.inventory.api.filters.With;
+import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.base.FilterFragment;
+import org.hawkular.inventory.base.PathFragment;
+import org.hawkular.inventory.base.Query;
+import org.hawkular.inventory.base.QueryFragment;
+import org.hawkular.inventory.base.spi.NoopFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns the query trees into {@link QueryPlan query plans}.
+ *
+ * <p>The planning consists of a couple of simple rules:
+ * <ol>
+ *     <li>The {@link NoopFilter no-op} fragments that don't switch between path progression and filtering are
+ *     dropped.
+ *     <li>Adjacent fragments of the same kind checking for ids or for types are merged into one.
+ *     <li>The adjacent fragments of the same kind that merely check the ids, types or properties of the elements
+ *     (and therefore commute) are reordered so that the most selective checks come first.
+ *     <li>The most selective indexed start point is chosen for the pipeline - the canonical path index if the query
+ *     starts by navigating down a canonical path, the type and id index if the query starts by checking both the types
+ *     and the ids (looking up each of the combinations), the type index if the query starts by checking the types,
+ *     the type index together with the index of a {@link IndexedProperties user-defined property} if the query starts
+ *     by checking the types and the values of the indexed property, the type index if the query starts by checking the
+ *     types, the edges with the ids or the indexed property values if the query starts by checking the ids or the
+ *     indexed properties of the relationships or all the elements otherwise.
+ * </ol>
+ *
+ * @since 0.1.0
+ */
+final class QueryPlanner {
+
+    private QueryPlanner() {
+        //no instances, thank you
+    }
+
+    /**
+     * @param query             the query to plan
+     * @param indexedProperties the user-defined properties that are indexed
+     * @return the plan of the query
+     */
+    static QueryPlan plan(Query query, IndexedProperties indexedProperties) {
+        QueryFragment[] fragments = query.getFragments();
+
+        boolean edges = fragments.length > 0 && fragments[0].getFilter() instanceof RelationFilter;
+
+        Query normalized = normalize(query);
+
+        if (edges) {
+            //the id check is left in the query - it's cheap on the few edges found by the ids
+            Filter first = fragments[0].getFilter();
+            if (first instanceof RelationWith.Ids) {
+                String[] ids = Arrays.stream(((RelationWith.Ids) first).getIds()).distinct().toArray(String[]::new);
+                return new QueryPlan(QueryPlan.Start.EDGE_IDS, null, null, ids, normalized, 0);
+            } else if (first instanceof RelationWith.PropertyValues) {
+                RelationWith.PropertyValues pvs = (RelationWith.PropertyValues) first;
+                if (pvs.getValues().length > 0
+                        && indexedProperties.isIndexed(Constants.Type.relationship, pvs.getProperty())) {
+                    return new QueryPlan(QueryPlan.Start.EDGE_PROPERTY_VALUES, null, null, null, pvs.getProperty(),
+                            Arrays.stream(pvs.getValues()).distinct().toArray(), normalized, 0);
+                }
+            }
+
+            return new QueryPlan(QueryPlan.Start.ALL_EDGES, null, null, null, normalized, 0);
+        }
+
+        CanonicalPaths.Prefix prefix = CanonicalPaths.canonicalPrefix(normalized);
+        if (prefix != null) {
+            return new QueryPlan(QueryPlan.Start.CANONICAL_PATH, prefix.getIndexValue(), null, null, normalized,
+                    prefix.getLength());
+        }
+
+        //look for the type and id checks before the query leaves the starting elements
+        Constants.Type[] types = null;
+        String[] ids = null;
+        List<With.PropertyValues> propertyValues = new ArrayList<>();
+        for (QueryFragment qf : normalized.getFragments()) {
+            Filter f = qf.getFilter();
+            if (f instanceof With.Types) {
+                if (types == null) {
+                    types = Arrays.stream(((With.Types) f).getTypes()).map(Constants.Type::of).distinct()
+                            .toArray(Constants.Type[]::new);
+                }
+            } else if (f instanceof With.Ids) {
+                if (ids == null) {
+                    ids = Arrays.stream(((With.Ids) f).getIds()).distinct().toArray(String[]::new);
+                }
+            } else if (f instanceof With.PropertyValues) {
+                propertyValues.add((With.PropertyValues) f);
+            } else {
+                break;
+            }
+        }
+
+        //the checks are left in the query - they're cheap on the few elements the start point produces
+        if (types != null && types.length > 0 && ids != null && ids.length > 0) {
+            return new QueryPlan(QueryPlan.Start.TYPES_AND_IDS, null, types, ids, normalized, 0);
+        } else if (types != null && types.length > 0) {
+            Constants.Type[] ts = types;
+            With.PropertyValues indexed = propertyValues.stream()
+                    .filter((pv) -> pv.getValues().length > 0 && indexedProperties.isIndexed(ts, pv.getName()))
+                    .findFirst().orElse(null);
+
+            if (indexed != null) {
+                return new QueryPlan(QueryPlan.Start.TYPES_AND_PROPERTY_VALUES, null, types, null, indexed.getName(),
+                        Arrays.stream(indexed.getValues()).distinct().toArray(), normalized, 0);
+            }
+
+            return new QueryPlan(QueryPlan.Start.TYPES, null, types, null, normalized, 0);
+        } else {
+            return new QueryPlan(QueryPlan.Start.ALL_VERTICES, null, null, null, normalized, 0);
+        }
+    }
+
+    private static Query normalize(Query query) {
+        return normalize(query, false);
+    }
+
+    /**
+     * @param query    the query to normalize
+     * @param isFilter whether the fragments preceding the query are filter fragments or path fragments
+     */
+    private static Query normalize(Query query, boolean isFilter) {
+        QueryFragment[] fragments = query.getFragments();
+
+        Query.Builder bld = new Query.Builder().with(normalize(fragments, isFilter));
+
+        boolean subTreeIsFilter = fragments.length == 0 ? isFilter
+                : fragments[fragments.length - 1] instanceof FilterFragment;
+
+        for (Query subTree : query.getSubTrees()) {
+            bld.branch().with(normalize(subTree, subTreeIsFilter)).done();
+        }
+
+        return bld.build();
+    }
+
+    private static QueryFragment[] normalize(QueryFragment[] fragments, boolean isFilter) {
+        List<QueryFragment> ret = new ArrayList<>(fragments.length);
+
+        for (QueryFragment qf : fragments) {
+            boolean thisIsFilter = qf instanceof FilterFragment;
+
+            //a no-op fragment of the other kind than the preceding one still switches between path progression and
+            //filtering (i.e. it makes the next fragments apply to different elements), so it must be kept
+            if (!(qf.getFilter() instanceof NoopFilter) || thisIsFilter != isFilter) {
+                ret.add(qf);
+            }
+
+            isFilter = thisIsFilter;
+        }
+
+        if (ret.isEmpty()) {
+            //keep the query non-empty, so that it still "does something"
+            return fragments;
+        }
+
+        merge(ret);
+        reorder(ret);
+
+        return ret.toArray(new QueryFragment[ret.size()]);
+    }
+
+    /**
+     * Merges the adjacent checks for ids and types of the same kind of fragment into one.
+     */
+    @SuppressWarnings("unchecked")
+    private static void merge(List<QueryFragment> fragments) {
+        for (int i = 1; i < fragments.size(); ) {
+            QueryFragment previous = fragments.get(i - 1);
+            QueryFragment current = fragments.get(i);
+
+            QueryFragment merged = null;
+
+            if (previous.getClass() == current.getClass()) {
+                Filter pf = previous.getFilter();
+                Filter cf = current.getFilter();
+
+                if (pf instanceof With.Ids && cf instanceof With.Ids) {
+                    Set<String> ids = intersect(((With.Ids) pf).getIds(), ((With.Ids) cf).getIds());
+                    if (!ids.isEmpty()) {
+                        merged = fragment(current, With.ids(ids.toArray(new String[ids.size()])));
+                    }
+                } else if (pf instanceof With.Types && cf instanceof With.Types) {
+                    Set<Class<? extends Entity<?, ?>>> types = intersect(((With.Types) pf).getTypes(),
+                            ((With.Types) cf).getTypes());
+                    if (!types.isEmpty()) {
+                        merged = fragment(current, With.types(types.toArray(new Class[types.size()])));
+                    }
+                }
+            }
+
+            if (merged == null) {
+                i++;
+            } else {
+                fragments.set(i - 1, merged);
+                fragments.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Orders the runs of adjacent commuting checks of the same kind of fragment by their selectivity.
+     */
+    private static void reorder(List<QueryFragment> fragments) {
+        int runStart = 0;
+        while (runStart < fragments.size()) {
+            int runEnd = runStart;
+            while (runEnd < fragments.size() && rank(fragments.get(runEnd)) >= 0
+                    && fragments.get(runEnd).getClass() == fragments.get(runStart).getClass()) {
+                runEnd++;
+            }
+
+            if (runEnd - runStart > 1) {
+                //List.sort is stable, so the checks of the same rank keep their order
+                fragments.subList(runStart, runEnd).sort((a, b) -> rank(a) - rank(b));
+            }
+
+            runStart = Math.max(runEnd, runStart + 1);
+        }
+    }
+
+    /**
+     * @return the rank of the check in the fragment (lower is more selective) or -1 if the fragment doesn't commute
+     * with the other checks
+     */
+    private static int rank(QueryFragment fragment) {
+        Filter f = fragment.getFilter();
+        if (f instanceof With.Ids) {
+            return 0;
+        } else if (f instanceof With.Types) {
+            return 1;
+        } else if (f instanceof With.PropertyValues) {
+            return 2;
+        } else {
+            return -1;
+        }
+    }
+
+    private static QueryFragment fragment(QueryFragment template, Filter filter) {
+        return template instanceof PathFragment ? new PathFragment(filter) : new FilterFragment(filter);
+    }
+
+    @SafeVarargs
+    private static <T> Set<T> intersect(T[] a, T... b) {
+        Set<T> ret = new LinkedHashSet<>(Arrays.asList(a));
+        ret.retainAll(Arrays.asList(b));
+        return ret;
+    }
+}
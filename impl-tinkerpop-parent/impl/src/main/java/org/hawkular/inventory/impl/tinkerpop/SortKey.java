@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.impl.tinkerpop;
+
+import org.hawkular.inventory.api.paging.Order;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * An element together with the precomputed values of the properties it is ordered by and its position in the input.
+ * The position is used to break the ties, so that the elements with the same values keep their original order.
+ *
+ * @since 0.1.0
+ */
+final class SortKey<S> {
+    final S element;
+    final Comparable[] values;
+    final long seq;
+
+    SortKey(S element, Comparable[] values, long seq) {
+        this.element = element;
+        this.values = values;
+        this.seq = seq;
+    }
+
+    /**
+     * @param order the order to filter
+     * @return only the specific orders from the provided list
+     */
+    static List<Order> specific(List<Order> order) {
+        List<Order> ret = new ArrayList<>(order.size());
+        order.stream().filter(Order::isSpecific).forEach(ret::add);
+        return ret;
+    }
+
+    /**
+     * @param element                the element
+     * @param seq                    the position of the element in the input
+     * @param order                  the specific orders (see {@link #specific(List)})
+     * @param propertyValueExtractor the function to extract the values of the properties to order by
+     * @param <S>                    the type of the element
+     * @return the sort key of the element
+     */
+    static <S> SortKey<S> of(S element, long seq, List<Order> order,
+            BiFunction<S, String, ? extends Comparable> propertyValueExtractor) {
+        Comparable[] values = new Comparable[order.size()];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = propertyValueExtractor.apply(element, order.get(i).getField());
+        }
+
+        return new SortKey<>(element, values, seq);
+    }
+
+    /**
+     * @param order the specific orders (see {@link #specific(List)})
+     * @param <S>   the type of the elements
+     * @return the comparator of the sort keys according to the order
+     */
+    @SuppressWarnings("unchecked")
+    static <S> Comparator<SortKey<S>> comparator(List<Order> order) {
+        return (a, b) -> {
+            for (int i = 0; i < a.values.length; ++i) {
+                int ret = order.get(i).isAscending() ? HawkularPipeline.safeCompare(a.values[i], b.values[i])
+                        : HawkularPipeline.safeCompare(b.values[i], a.values[i]);
+                if (ret != 0) {
+                    return ret;
+                }
+            }
+
+            return Long.compare(a.seq, b.seq);
+        };
+    }
+
+    /**
+     * @return the rough estimate of the number of bytes this key occupies in memory, not including the element
+     */
+    int estimateSize() {
+        int size = 32 + 8 * values.length;
+        for (Comparable v : values) {
+            size += ValueCodec.estimateSize(v);
+        }
+        return size;
+    }
+}
@@ -0,0 +1,395 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.impl.tinkerpop;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.pipes.AbstractPipe;
+import com.tinkerpop.pipes.util.FastNoSuchElementException;
+import com.tinkerpop.pipes.util.PipeHelper;
+import org.hawkular.inventory.api.paging.Order;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.BiFunction;
+
+/**
+ * An ordering pipe that uses temporary files if there are too many elements to order in memory (external merge
+ * sort).
+ *
+ * <p>The elements are collected in memory until either the number of them or the estimated size of their sort keys
+ * reaches the configured threshold. The collected elements are then sorted and written out to a temporary file
+ * (a "run") as the values of their sort keys followed by the representation of the element provided by the
+ * {@link Codec}. Once all the elements are consumed, the runs and the elements remaining in memory are merged and
+ * streamed out of this pipe. Only one element per run is held in memory during the merge.
+ *
+ * <p>If the elements are not ordered by values that can be written out, the ordering continues in memory.
+ *
+ * <p>The temporary files are deleted as soon as they are fully merged. The pipe must be {@link #close() closed} if
+ * it is not consumed to the end, so that the files of the runs that are not yet merged are deleted, too.
+ *
+ * @since 0.1.0
+ */
+final class SpillingOrderPipe<S> extends AbstractPipe<S, S> implements AutoCloseable {
+    private final List<Order> order;
+    private final BiFunction<S, String, ? extends Comparable> propertyValueExtractor;
+    private final Settings<S> settings;
+    private final List<Run> runs = new ArrayList<>();
+    private Iterator<S> results;
+
+    /**
+     * @param order                  the order to apply, only specific orders are taken into account
+     * @param propertyValueExtractor the function to extract the values of the properties to order by
+     * @param settings               the settings of the external sort
+     */
+    SpillingOrderPipe(List<Order> order, BiFunction<S, String, ? extends Comparable> propertyValueExtractor,
+            Settings<S> settings) {
+        this.order = SortKey.specific(order);
+        this.propertyValueExtractor = propertyValueExtractor;
+        this.settings = settings;
+    }
+
+    /**
+     * Creates a codec for the graph elements that writes out just the ids of the elements and looks them up in the
+     * graph when reading them back.
+     *
+     * @param graph the graph to look the elements up in
+     * @return the codec
+     */
+    static Codec<Element> elementCodec(Graph graph) {
+        return new Codec<Element>() {
+            @Override
+            public void write(DataOutput out, Element element) throws IOException {
+                out.writeBoolean(element instanceof Edge);
+
+                Object id = element.getId();
+                if (id instanceof Comparable && ValueCodec.isSupported((Comparable) id)) {
+                    ValueCodec.write(out, (Comparable) id);
+                } else {
+                    ValueCodec.write(out, id.toString());
+                }
+            }
+
+            @Override
+            public Element read(DataInput in) throws IOException {
+                boolean edge = in.readBoolean();
+                Object id = ValueCodec.read(in);
+                return edge ? graph.getEdge(id) : graph.getVertex(id);
+            }
+        };
+    }
+
+    @Override
+    protected S processNextStart() {
+        if (results == null) {
+            results = sort();
+        }
+
+        if (results.hasNext()) {
+            return results.next();
+        } else {
+            throw FastNoSuchElementException.instance();
+        }
+    }
+
+    @Override
+    public void reset() {
+        close();
+        results = null;
+        super.reset();
+    }
+
+    /**
+     * Deletes the temporary files of the runs. The pipe doesn't emit any more elements until it is reset.
+     */
+    @Override
+    public void close() {
+        runs.forEach(Run::close);
+        runs.clear();
+        results = Collections.emptyIterator();
+    }
+
+    @Override
+    public String toString() {
+        return PipeHelper.makePipeString(this, order);
+    }
+
+    private Iterator<S> sort() {
+        Comparator<SortKey<S>> comparator = SortKey.comparator(order);
+
+        List<SortKey<S>> buffer = new ArrayList<>();
+        long bufferSize = 0;
+        long seq = 0;
+        boolean spill = true;
+
+        while (starts.hasNext()) {
+            SortKey<S> key = SortKey.of(starts.next(), seq++, order, propertyValueExtractor);
+            buffer.add(key);
+            bufferSize += key.estimateSize();
+
+            if (spill && (buffer.size() >= settings.maxInMemoryElements
+                    || bufferSize >= settings.maxInMemoryBytes)) {
+                buffer.sort(comparator);
+                try {
+                    runs.add(Run.write(buffer, settings));
+                    buffer.clear();
+                    bufferSize = 0;
+                } catch (IOException | IllegalArgumentException e) {
+                    Log.LOG.wCannotSpillOrdering(e.getMessage());
+                    spill = false;
+                }
+            }
+        }
+
+        buffer.sort(comparator);
+
+        if (runs.isEmpty()) {
+            Iterator<SortKey<S>> it = buffer.iterator();
+            return new Iterator<S>() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public S next() {
+                    return it.next().element;
+                }
+            };
+        }
+
+        Log.LOG.dOrderingSpilled(seq, runs.size());
+
+        return merge(buffer, comparator);
+    }
+
+    private Iterator<S> merge(List<SortKey<S>> inMemory, Comparator<SortKey<S>> comparator) {
+        PriorityQueue<Source<S>> queue = new PriorityQueue<>(runs.size() + 1,
+                (a, b) -> comparator.compare(a.head, b.head));
+
+        try {
+            Iterator<SortKey<S>> it = inMemory.iterator();
+            Source<S> memory = new Source<S>() {
+                @Override
+                boolean advance() {
+                    head = it.hasNext() ? it.next() : null;
+                    return head != null;
+                }
+            };
+
+            if (memory.advance()) {
+                queue.add(memory);
+            }
+
+            for (Run run : runs) {
+                Source<S> source = run.open(order.size(), settings.codec);
+                if (source.advance()) {
+                    queue.add(source);
+                } else {
+                    run.close();
+                }
+            }
+        } catch (IOException e) {
+            runs.forEach(Run::close);
+            throw new IllegalStateException("Failed to read the temporary files of the ordering.", e);
+        }
+
+        return new Iterator<S>() {
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public S next() {
+                Source<S> source = queue.poll();
+                if (source == null) {
+                    throw new NoSuchElementException();
+                }
+
+                S ret = source.head.element;
+
+                try {
+                    if (source.advance()) {
+                        queue.add(source);
+                    } else {
+                        source.close();
+                    }
+                } catch (IOException e) {
+                    runs.forEach(Run::close);
+                    throw new IllegalStateException("Failed to read the temporary files of the ordering.", e);
+                }
+
+                return ret;
+            }
+        };
+    }
+
+    /**
+     * Writes and reads the elements to and from the temporary files.
+     *
+     * @param <S> the type of the elements
+     */
+    interface Codec<S> {
+        void write(DataOutput out, S element) throws IOException;
+
+        /**
+         * @param in the input to read from
+         * @return the element or null if the element no longer exists
+         * @throws IOException on error
+         */
+        S read(DataInput in) throws IOException;
+    }
+
+    /**
+     * The configuration of the external sort.
+     *
+     * @param <S> the type of the elements to order
+     */
+    static final class Settings<S> {
+        final int maxInMemoryElements;
+        final long maxInMemoryBytes;
+        final File directory;
+        final Codec<S> codec;
+
+        /**
+         * @param maxInMemoryElements the maximum number of elements to keep in memory
+         * @param maxInMemoryBytes    the maximum estimated size of the sort keys kept in memory
+         * @param directory           the directory for the temporary files, null for the default temp directory
+         * @param codec               the codec of the elements
+         */
+        Settings(int maxInMemoryElements, long maxInMemoryBytes, File directory, Codec<S> codec) {
+            this.maxInMemoryElements = maxInMemoryElements;
+            this.maxInMemoryBytes = maxInMemoryBytes;
+            this.directory = directory;
+            this.codec = codec;
+        }
+    }
+
+    private abstract static class Source<S> {
+        SortKey<S> head;
+
+        abstract boolean advance() throws IOException;
+
+        void close() {
+        }
+    }
+
+    private static final class Run {
+        private final File file;
+        private final long size;
+        private DataInputStream in;
+        private boolean closed;
+
+        private Run(File file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+
+        static <S> Run write(List<SortKey<S>> sorted, Settings<S> settings) throws IOException {
+            File file = File.createTempFile("hawkular-inventory-sort", ".run", settings.directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                for (SortKey<S> key : sorted) {
+                    out.writeLong(key.seq);
+                    for (Comparable v : key.values) {
+                        ValueCodec.write(out, v);
+                    }
+                    settings.codec.write(out, key.element);
+                }
+            } catch (IOException | RuntimeException e) {
+                if (!file.delete()) {
+                    file.deleteOnExit();
+                }
+                throw e;
+            }
+
+            return new Run(file, sorted.size());
+        }
+
+        <S> Source<S> open(int keyLength, Codec<S> codec) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+
+            return new Source<S>() {
+                private long read;
+
+                @Override
+                boolean advance() throws IOException {
+                    while (read < size) {
+                        read++;
+
+                        long seq = in.readLong();
+                        Comparable[] values = new Comparable[keyLength];
+                        for (int i = 0; i < keyLength; ++i) {
+                            values[i] = ValueCodec.read(in);
+                        }
+                        S element = codec.read(in);
+
+                        if (element != null) {
+                            head = new SortKey<>(element, values, seq);
+                            return true;
+                        }
+                    }
+
+                    head = null;
+                    return false;
+                }
+
+                @Override
+                void close() {
+                    Run.this.close();
+                }
+            };
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                    //we're deleting the file anyway
+                }
+                in = null;
+            }
+
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+}
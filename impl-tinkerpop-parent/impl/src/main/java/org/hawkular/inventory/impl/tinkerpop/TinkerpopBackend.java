@@ -22,7 +22,6 @@ import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.ElementHelper;
 import org.hawkular.inventory.api.Relationships;
-import org.hawkular.inventory.api.filters.RelationFilter;
 import org.hawkular.inventory.api.model.AbstractElement;
 import org.hawkular.inventory.api.model.ElementBlueprintVisitor;
 import org.hawkular.inventory.api.model.ElementUpdateVisitor;
@@ -37,21 +36,29 @@ import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.api.paging.Order;
 import org.hawkular.inventory.api.paging.Page;
+import org.hawkular.inventory.api.paging.PageContext;
 import org.hawkular.inventory.api.paging.Pager;
 import org.hawkular.inventory.base.Query;
 import org.hawkular.inventory.base.spi.CanonicalPath;
+import org.hawkular.inventory.base.spi.CloseableIterator;
 import org.hawkular.inventory.base.spi.ElementNotFoundException;
 import org.hawkular.inventory.base.spi.InventoryBackend;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.StreamSupport;
 
@@ -59,13 +66,9 @@ import static java.util.stream.Collectors.toSet;
 import static org.hawkular.inventory.api.Relationships.Direction.incoming;
 import static org.hawkular.inventory.api.Relationships.Direction.outgoing;
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
-import static org.hawkular.inventory.impl.tinkerpop.Constants.Type.environment;
-import static org.hawkular.inventory.impl.tinkerpop.Constants.Type.feed;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Type.metric;
-import static org.hawkular.inventory.impl.tinkerpop.Constants.Type.metricType;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Type.relationship;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Type.resource;
-import static org.hawkular.inventory.impl.tinkerpop.Constants.Type.resourceType;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Type.tenant;
 
 /**
@@ -73,6 +76,11 @@ import static org.hawkular.inventory.impl.tinkerpop.Constants.Type.tenant;
  * @since 0.1.0
  */
 final class TinkerpopBackend implements InventoryBackend<Element> {
+    /**
+     * The number of elements converted at once when the conversion cannot be postponed until after the paging.
+     */
+    private static final int CONVERSION_BATCH_SIZE = 500;
+
     private final InventoryContext<?> context;
 
     public TinkerpopBackend(InventoryContext<?> context) {
@@ -86,47 +94,124 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
 
     @Override
     public Element find(CanonicalPath element) throws ElementNotFoundException {
+        Element ret = context.getPathCache().get(context.getGraph(), element);
+        if (ret != null) {
+            return ret;
+        }
+
         Iterator<Element> it = navigate(element);
         if (!it.hasNext()) {
             throw new ElementNotFoundException();
         } else {
-            return it.next();
+            ret = it.next();
+            context.getPathCache().put(element, ret);
+            return ret;
         }
     }
 
     @Override
     public Page<Element> query(Query query, Pager pager) {
-        HawkularPipeline<?, ? extends Element> q;
-        if (query.getFragments()[0].getFilter() instanceof RelationFilter) {
-            q = new HawkularPipeline<>(context.getGraph()).E();
-        } else {
-            q = new HawkularPipeline<>(context.getGraph()).V();
+        if (pager.isCursorBased() && pager.isLimited()) {
+            return cursorPage(query, pager);
         }
 
-        FilterApplicator.applyAll(query, q);
+        HawkularPipeline<?, ? extends Element> q = translate(query, isExhaustive(pager));
 
         q.counter("total").page(pager);
 
-        return new Page<>(q.cast(Element.class).toList(), pager, q.getCount("total"));
+        return toPage(q.cast(Element.class).toList(), pager, q.getCount("total"), HawkularPipeline::propertyValue);
+    }
+
+    @Override
+    public CloseableIterator<Element> stream(Query query) {
+        return stream(query, Collections.emptyList());
+    }
+
+    /**
+     * The whole query is evaluated once the iterator is first advanced. The results are kept in memory or, if there
+     * are more of them than the {@link InventoryContext#getSortSettings() sort settings} allow, in temporary files and
+     * are looked up again by their ids in the transaction current when they are returned. The files are deleted once
+     * the iterator is closed, even if it is not consumed to the end.
+     */
+    @Override
+    public CloseableIterator<Element> stream(Query query, List<Order> order) {
+        HawkularPipeline<?, Element> q = translate(query, false).cast(Element.class);
+
+        //the results are always passed through the ordering so that the query is evaluated in a single transaction
+        //even if they are not ordered in any specific way
+        SpillingOrderPipe<Element> sort = new SpillingOrderPipe<>(order, HawkularPipeline::propertyValue,
+                context.getSortSettings());
+
+        Iterator<Element> it = q.add(sort);
+
+        return new CloseableIterator<Element>() {
+            private Element next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && it.hasNext()) {
+                    //the elements kept in memory come from the transaction the query was evaluated in and the
+                    //elements read from the temporary files might have been deleted since
+                    Element e = it.next();
+                    if (e != null) {
+                        next = e instanceof Edge ? context.getGraph().getEdge(e.getId())
+                                : context.getGraph().getVertex(e.getId());
+                    }
+                }
+
+                return next != null;
+            }
+
+            @Override
+            public Element next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                Element ret = next;
+                next = null;
+                return ret;
+            }
+
+            @Override
+            public void close() {
+                sort.close();
+            }
+        };
+    }
+
+    @Override
+    public Element querySingle(Query query) {
+        //no counting and no draining range here - the pipeline is lazy, so asking for the first element only
+        //evaluates as much of the graph as is needed to find it.
+        Iterator<? extends Element> it = translate(query, false);
+        return it.hasNext() ? it.next() : null;
     }
 
     @Override
     public <T extends AbstractElement<?, ?>> Page<T> query(Query query, Pager pager,
-            Function<Element, T> conversion, Function<T, Boolean> filter) {
+            Function<List<Element>, List<T>> conversion, Function<T, Boolean> filter) {
 
-        HawkularPipeline<?, ? extends Element> q;
+        if (filter == null && pager.isCursorBased() && pager.isLimited()) {
+            Page<Element> page = cursorPage(query, pager);
 
-        if (query.getFragments()[0].getFilter() instanceof RelationFilter) {
-            q = new HawkularPipeline<>(context.getGraph()).E();
-        } else {
-            q = new HawkularPipeline<>(context.getGraph()).V();
+            ParallelConversion parallel = context.getParallelConversion();
+            List<T> results = parallel != null && page.size() >= parallel.getThreshold()
+                    ? parallel.convert(page, conversion, null) : conversion.apply(page);
+
+            return new Page<>(results, pager, page.getTotalSize(), page.hasMore(), page.getNextCursor());
         }
 
-        FilterApplicator.applyAll(query, q);
+        HawkularPipeline<?, ? extends Element> q = translate(query, isExhaustive(pager));
 
-        HawkularPipeline<?, T> q2;
         if (filter == null) {
-            q2 = q.counter("total").page(pager).transform(conversion::apply);
+            List<Element> page = q.counter("total").page(pager).cast(Element.class).toList();
+
+            ParallelConversion parallel = context.getParallelConversion();
+            List<T> results = parallel != null && page.size() >= parallel.getThreshold()
+                    ? parallel.convert(page, conversion, null) : conversion.apply(page);
+
+            return toPage(results, pager, q.getCount("total"), TinkerpopBackend::entityPropertyValue);
         } else {
             //the ResultFilter interface requires an entity to check its applicability and can rule out some of the
             //entities from the result set, which affects the total count. We therefore need to convert to entity first
@@ -135,17 +220,154 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
             //to have stable ids, it needs to have the "canonical" path to the entity, which the inventory traversal
             //path might not be. The transformation of a non-canonical to canonical path is essentially identical
             //operation to converting the vertex to the entity.
-            q2 = q.transform(conversion::apply).filter(filter::apply).counter("total")
-                    .page(pager, (e, p) -> {
-                        if (AbstractElement.ID_PROPERTY.equals(p)) {
-                            return e.getId();
-                        } else {
-                            return (Comparable) e.getProperties().get(p);
-                        }
-                    });
+            ParallelConversion parallel = context.getParallelConversion();
+
+            HawkularPipeline<?, T> q2;
+            List<Element> all = parallel == null ? null : q.cast(Element.class).toList();
+            if (all != null && all.size() >= parallel.getThreshold()) {
+                //the filtering is done along with the conversion in parallel
+                q2 = new HawkularPipeline<T, T>(parallel.convert(all, conversion, filter));
+            } else {
+                q2 = new HawkularPipeline<T, T>(convertInBatches(all == null ? q.cast(Element.class) : all.iterator(),
+                        conversion)).filter(filter::apply);
+            }
+
+            q2.counter("total").page(pager, TinkerpopBackend::entityPropertyValue);
+
+            return toPage(q2.toList(), pager, q2.getCount("total"), TinkerpopBackend::entityPropertyValue);
+        }
+    }
+
+    /**
+     * Evaluates a page of a cursor-based pager. If the cursor points into a still valid
+     * {@link CursorSnapshots snapshot} of the results, the page is read from it. Otherwise the query is evaluated and
+     * only the first elements following the cursor are ordered to produce the page. If there are not too many
+     * elements following the cursor, they are also all ordered and stored in a new snapshot for the following pages.
+     * Once a snapshot of the results can't be created or used, the following pages don't try to snapshot them again,
+     * so that each page only costs a single evaluation of the query.
+     *
+     * @param query the query
+     * @param pager the limited cursor-based pager
+     * @return the page of the results
+     */
+    private Page<Element> cursorPage(Query query, Pager pager) {
+        List<Order> order = KeysetCursor.keyOrder(pager.getOrder());
+        KeysetCursor after = pager.getAfter().isEmpty() ? null : KeysetCursor.decode(pager.getAfter(), order);
+
+        CursorSnapshots snapshots = context.getCursorSnapshots();
+        Object key = CursorSnapshots.keyOf(query, order);
+        String scope = CursorSnapshots.scopeOf(query);
+
+        boolean snapshotting = snapshots.isEnabled() && (after == null || !after.isSnapshotAbandoned());
+
+        if (after != null && after.getSnapshotId() >= 0) {
+            CursorSnapshots.Snapshot snapshot = snapshots.get(after.getSnapshotId(), key,
+                    context.getModificationCount(scope));
+            if (snapshot != null) {
+                Page<Element> ret = fromSnapshot(snapshot, after.getSnapshotId(), after.getSnapshotPosition(), pager,
+                        order);
+                if (ret != null) {
+                    return ret;
+                }
+
+                snapshots.invalidate(after.getSnapshotId());
+            }
+
+            //the results changed since the snapshot was taken, so they are likely to change again
+            snapshotting = false;
+        }
+
+        long modificationCount = context.getModificationCount(scope);
+
+        HawkularPipeline<?, Element> q = translate(query, isExhaustive(pager)).cast(Element.class).counter("total");
+
+        if (after != null) {
+            q.filter(e -> after.precedes(e, order, HawkularPipeline::propertyValue));
+        }
+
+        int pageSize = pager.getPageSize();
+
+        List<SortKey<Element>> following = new ArrayList<>();
+        boolean[] overflow = new boolean[1];
+        if (snapshotting) {
+            long maxFollowing = (long) snapshots.getMaxElements() + pageSize;
+            q.sideEffect(e -> {
+                if (overflow[0]) {
+                    return null;
+                }
+
+                if (following.size() < maxFollowing) {
+                    following.add(SortKey.of(e, following.size(), order, HawkularPipeline::propertyValue));
+                } else {
+                    overflow[0] = true;
+                    following.clear();
+                }
+                return null;
+            });
+        }
+
+        TopKOrderPipe<Element> topK = new TopKOrderPipe<>(order, HawkularPipeline::propertyValue, pageSize + 1);
+        List<Element> top = q.add(topK).toList();
+
+        long total = q.getCount("total");
+        boolean hasMore = top.size() > pageSize;
+        List<Element> results = hasMore ? top.subList(0, pageSize) : top;
+        String nextCursor = null;
+
+        if (hasMore && pageSize > 0) {
+            KeysetCursor cursor = KeysetCursor.of(results.get(pageSize - 1), order, HawkularPipeline::propertyValue);
+
+            long snapshotId = -1;
+            if (snapshotting && !overflow[0]) {
+                following.sort(SortKey.comparator(order));
+
+                Object[] ids = new Object[following.size() - pageSize];
+                for (int i = pageSize; i < following.size(); ++i) {
+                    ids[i - pageSize] = following.get(i).element.getId();
+                }
+
+                snapshotId = snapshots.put(key, modificationCount, ids, results.get(0) instanceof Edge, total);
+            }
+
+            if (snapshotId >= 0) {
+                cursor = cursor.withSnapshot(snapshotId, 0);
+            } else if (snapshots.isEnabled()) {
+                cursor = cursor.withSnapshotsAbandoned();
+            }
+
+            nextCursor = cursor.encode();
         }
 
-        return new Page<>(q2.toList(), pager, q.getCount("total"));
+        return new Page<>(results, pager, pager.getTotalCount() == PageContext.TotalCount.NONE ? -1 : total, hasMore,
+                nextCursor);
+    }
+
+    /**
+     * @return the page read from the snapshot or null if some of the elements of the page no longer exist
+     */
+    private Page<Element> fromSnapshot(CursorSnapshots.Snapshot snapshot, long snapshotId, int position, Pager pager,
+            List<Order> order) {
+        int end = Math.min(snapshot.ids.length, position + pager.getPageSize());
+
+        List<Element> results = new ArrayList<>(Math.max(0, end - position));
+        for (int i = position; i < end; ++i) {
+            Element e = snapshot.edges ? context.getGraph().getEdge(snapshot.ids[i])
+                    : context.getGraph().getVertex(snapshot.ids[i]);
+
+            if (e == null) {
+                //the graph was modified by someone else than this inventory
+                return null;
+            }
+
+            results.add(e);
+        }
+
+        boolean hasMore = end < snapshot.ids.length;
+        String nextCursor = !hasMore ? null : KeysetCursor.of(results.get(results.size() - 1), order,
+                HawkularPipeline::propertyValue).withSnapshot(snapshotId, end).encode();
+
+        return new Page<>(results, pager, pager.getTotalCount() == PageContext.TotalCount.NONE ? -1 : snapshot.total,
+                hasMore, nextCursor);
     }
 
     @Override
@@ -154,24 +376,30 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
         if (!(startingPoint instanceof Vertex)) {
             return Collections.<Element>emptyList().iterator();
         } else {
-            HawkularPipeline<?, Element> ret = new HawkularPipeline<Element, Element>(startingPoint).as("start");
+            @SuppressWarnings("unchecked")
+            Iterator<Element> ret = (Iterator<Element>) (Iterator<?>) new TransitiveClosure((Vertex) startingPoint,
+                    toNative(direction), relationshipName, TransitiveClosure.UNBOUNDED, null);
+            return ret;
+        }
+    }
 
-            switch (direction) {
-                case incoming:
-                    ret.in(relationshipName);
-                    break;
-                case outgoing:
-                    ret.out(relationshipName);
-                    break;
-                case both:
-                    ret.both(relationshipName);
-                    break;
-            }
+    @Override
+    public boolean isReachable(Element startingPoint, Element target, String relationshipName,
+            Relationships.Direction direction) {
+        if (!(startingPoint instanceof Vertex) || !(target instanceof Vertex)) {
+            return false;
+        }
 
-            //toList() is important as it ensures eager evaluation of the closure - the callers might modify the
-            //conditions for the evaluation during the iteration which would skew the results.
-            return ret.loop("start", (x) -> true, (x) -> true).toList().iterator();
+        Object targetId = target.getId();
+
+        TransitiveClosure closure = new TransitiveClosure((Vertex) startingPoint, toNative(direction),
+                relationshipName, TransitiveClosure.UNBOUNDED, (v) -> targetId.equals(v.getId()));
+
+        while (closure.hasNext()) {
+            closure.next();
         }
+
+        return closure.isStopped();
     }
 
     @Override
@@ -189,10 +417,8 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
             return false;
         }
 
-        Iterator<Vertex> targets = ((Vertex) source).getVertices(Direction.OUT, relationshipName).iterator();
-
-        while (targets.hasNext()) {
-            if (target.equals(targets.next())) {
+        for (Edge e : edgesTo((Vertex) source, (Vertex) target, relationshipName)) {
+            if (target.equals(e.getVertex(Direction.IN))) {
                 return true;
             }
         }
@@ -212,16 +438,24 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
             throw new IllegalArgumentException("relationshipName == null");
         }
 
-        Vertex t = (Vertex) target;
+        for (Edge e : edgesTo((Vertex) source, (Vertex) target, relationshipName)) {
+            if (target.equals(e.getVertex(Direction.IN))) {
+                return e;
+            }
+        }
 
-        Iterator<Edge> it = new HawkularPipeline<>(source).outE(relationshipName).remember().inV().hasType(getType(t))
-                .hasEid(getEid(t)).recall().cast(Edge.class);
+        throw new ElementNotFoundException();
+    }
 
-        if (!it.hasNext()) {
-            throw new ElementNotFoundException();
-        } else {
-            return it.next();
-        }
+    /**
+     * Finds the edges with given label going from the source to the entities with the same type and id as the target
+     * using the {@link Constants.Property#__targetType} and {@link Constants.Property#__targetEid} properties of the
+     * edges. Unlike iterating over all the edges of the source, this can make use of the vertex-centric indices.
+     */
+    private static Iterable<Edge> edgesTo(Vertex source, Vertex target, String label) {
+        return source.query().direction(Direction.OUT).labels(label)
+                .has(Constants.Property.__targetType.name(), getType(target).name())
+                .has(Constants.Property.__targetEid.name(), getEid(target)).edges();
     }
 
     @Override
@@ -267,60 +501,71 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
 
     @Override
     public <T extends AbstractElement<?, ?>> T convert(Element entityRepresentation, Class<T> entityType) {
-        Constants.Type type = Constants.Type.of(extractType(entityRepresentation));
+        return convert(entityRepresentation, entityType, new HashMap<>());
+    }
 
-        Vertex environmentVertex;
-        Vertex feedVertex;
+    @Override
+    public <T extends AbstractElement<?, ?>> List<T> convertAll(List<Element> entityRepresentations,
+            Class<T> entityType) {
+        //the defining types and the endpoints of the relationships are shared by many of the elements, so we convert
+        //each of them only once
+        Map<Object, AbstractElement<?, ?>> converted = new HashMap<>();
+
+        List<T> ret = new ArrayList<>(entityRepresentations.size());
+        for (Element e : entityRepresentations) {
+            ret.add(convert(e, entityType, converted));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Converts the element, reusing the already converted related elements.
+     *
+     * @param entityRepresentation the element to convert
+     * @param entityType           the desired type of the element
+     * @param converted            the elements already converted, keyed by their native ids, updated by this method
+     * @param <T>                  the desired type of the element
+     * @return the converted element
+     */
+    private <T extends AbstractElement<?, ?>> T convert(Element entityRepresentation, Class<T> entityType,
+            Map<Object, AbstractElement<?, ?>> converted) {
+        Constants.Type type = Constants.Type.of(extractType(entityRepresentation));
 
         AbstractElement<?, ?> e;
 
         if (type == relationship) {
             Edge edge = (Edge) entityRepresentation;
-            Entity<?, ?> source = convert(edge.getVertex(Direction.OUT), Entity.class);
-            Entity<?, ?> target = convert(edge.getVertex(Direction.IN), Entity.class);
+            Entity<?, ?> source = convertShared(edge.getVertex(Direction.OUT), Entity.class, converted);
+            Entity<?, ?> target = convertShared(edge.getVertex(Direction.IN), Entity.class, converted);
 
             e = new Relationship(extractId(edge), edge.getLabel(), source, target);
         } else {
             Vertex v = (Vertex) entityRepresentation;
+            AncestryCache.Ancestry ancestry = getAncestry(v, type);
 
             switch (type) {
                 case environment:
-                    e = new Environment(extractId(getTenantVertexOf(v)), extractId(v));
+                    e = new Environment(ancestry.tenantId, extractId(v));
                     break;
                 case feed:
-                    environmentVertex = getEnvironmentVertexOf(v);
-                    e = new Feed(extractId(getTenantVertexOf(environmentVertex)), extractId(environmentVertex),
-                            extractId(v));
+                    e = new Feed(ancestry.tenantId, ancestry.environmentId, extractId(v));
                     break;
                 case metric:
-                    environmentVertex = getEnvironmentVertexOrNull(v);
-                    feedVertex = getFeedVertexOrNull(v);
-                    if (environmentVertex == null) {
-                        environmentVertex = getEnvironmentVertexOf(feedVertex);
-                    }
-                    Vertex mdv = v.getVertices(Direction.IN, Relationships.WellKnown.defines.name()).iterator()
-                            .next();
-                    MetricType md = convert(mdv, MetricType.class);
-                    e = new Metric(extractId(getTenantVertexOf(environmentVertex)), extractId(environmentVertex),
-                            feedVertex == null ? null : extractId(feedVertex), extractId(v), md);
+                    MetricType md = convertShared(getDefiningTypeVertex(v, ancestry), MetricType.class, converted);
+                    e = new Metric(ancestry.tenantId, ancestry.environmentId, ancestry.feedId, extractId(v), md);
                     break;
                 case metricType:
-                    e = new MetricType(extractId(getTenantVertexOf(v)), extractId(v), MetricUnit.fromDisplayName(
+                    e = new MetricType(ancestry.tenantId, extractId(v), MetricUnit.fromDisplayName(
                             v.getProperty(Constants.Property.__unit.name())));
                     break;
                 case resource:
-                    environmentVertex = getEnvironmentVertexOrNull(v);
-                    feedVertex = getFeedVertexOrNull(v);
-                    if (environmentVertex == null) {
-                        environmentVertex = getEnvironmentVertexOf(feedVertex);
-                    }
-                    Vertex rtv = v.getVertices(Direction.IN, Relationships.WellKnown.defines.name()).iterator().next();
-                    ResourceType rt = convert(rtv, ResourceType.class);
-                    e = new Resource(extractId(getTenantVertexOf(environmentVertex)), extractId(environmentVertex),
-                            feedVertex == null ? null : extractId(feedVertex), extractId(v), rt);
+                    ResourceType rt = convertShared(getDefiningTypeVertex(v, ancestry), ResourceType.class,
+                            converted);
+                    e = new Resource(ancestry.tenantId, ancestry.environmentId, ancestry.feedId, extractId(v), rt);
                     break;
                 case resourceType:
-                    e = new ResourceType(extractId(getTenantVertexOf(v)), extractId(v), (String) v.getProperty(
+                    e = new ResourceType(ancestry.tenantId, extractId(v), (String) v.getProperty(
                             Constants.Property.__version.name()));
                     break;
                 case tenant:
@@ -406,6 +651,21 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
             ElementHelper.setProperties(e, properties);
         }
         e.setProperty(Constants.Property.__eid.name(), e.getId().toString());
+        setTarget(e, (Vertex) targetEntity);
+
+        if (contains.name().equals(name)) {
+            CanonicalPaths.assign((Vertex) sourceEntity, (Vertex) targetEntity);
+            updateAncestry((Vertex) sourceEntity, (Vertex) targetEntity);
+        } else if (Relationships.WellKnown.defines.name().equals(name)) {
+            AncestryCache.Ancestry ancestry = context.getAncestryCache().peek(targetEntity.getId());
+            if (ancestry != null) {
+                context.getAncestryCache().put(targetEntity.getId(),
+                        ancestry.withDefiningTypeVertexId(sourceEntity.getId()));
+            }
+        }
+
+        context.modified(e);
+
         return e;
     }
 
@@ -460,6 +720,14 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
                 v.setProperty(Constants.Property.__type.name(), Constants.Type.of(cls).name());
                 v.setProperty(Constants.Property.__eid.name(), id);
 
+                //the canonical paths (and hence the tenants) of the other entities are only known once they're
+                //contained in their parents
+                if (cls == Tenant.class) {
+                    v.setProperty(Constants.Property.__cp.name(), CanonicalPaths.tenantIndexValue(id));
+                    context.getAncestryCache().put(v.getId(), new AncestryCache.Ancestry(id, null, null, null));
+                    context.modified(v);
+                }
+
                 if (properties != null) {
                     ElementHelper.setProperties(v, properties);
                 }
@@ -471,6 +739,8 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
 
     @Override
     public void update(Element entity, AbstractElement.Update update) {
+        context.modified(entity);
+
         update.accept(new ElementUpdateVisitor.Simple<Void, Void>() {
             @Override
             public Void visitTenant(Tenant.Update tenant, Void parameter) {
@@ -537,9 +807,107 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
 
     @Override
     public void delete(Element entity) {
+        context.modified(entity);
+        context.getPathCache().invalidate(entity.getId());
+
+        if (entity instanceof Edge) {
+            String label = ((Edge) entity).getLabel();
+            if (contains.name().equals(label)) {
+                CanonicalPaths.unassign((Edge) entity);
+                //the whole subtree of the target changes its ancestry, which is rare enough to not bother finding it
+                context.getAncestryCache().clear();
+            } else if (Relationships.WellKnown.defines.name().equals(label)) {
+                context.getAncestryCache().invalidate(((Edge) entity).getVertex(Direction.IN).getId());
+            }
+        } else {
+            context.getAncestryCache().invalidate(entity.getId());
+        }
+
         entity.remove();
     }
 
+    @Override
+    public void deleteSubtree(Element root, BiConsumer<List<Element>, List<Element>> beforeDelete,
+            Runnable chunkCommitted) {
+        if (!(root instanceof Vertex)) {
+            throw new IllegalArgumentException("Only entities can be deleted together with their subtree.");
+        }
+
+        //the whole subtree belongs to the tenant of the root
+        context.modified(root);
+
+        //gather the subtree in the breadth-first order, checking the defined entities as we go
+        List<Element> subtree = new ArrayList<>();
+        Set<Object> subtreeIds = new HashSet<>();
+        Map<Object, Vertex> definitions = new HashMap<>();
+
+        Iterator<Vertex> closure = new TransitiveClosure((Vertex) root, Direction.OUT, contains.name(),
+                TransitiveClosure.UNBOUNDED, null);
+
+        Vertex v = (Vertex) root;
+        while (v != null) {
+            subtree.add(v);
+            subtreeIds.add(v.getId());
+
+            for (Vertex defined : v.getVertices(Direction.OUT, Relationships.WellKnown.defines.name())) {
+                definitions.put(defined.getId(), v);
+            }
+
+            v = closure.hasNext() ? closure.next() : null;
+        }
+
+        for (Map.Entry<Object, Vertex> e : definitions.entrySet()) {
+            if (!subtreeIds.contains(e.getKey())) {
+                //we avoid the convert() function here because it needlessly loads all the data of the entities
+                String rootEntity = "Entity[id=" + extractId(root) + ", type=" + extractType(root).getSimpleName()
+                        + "]";
+                String definingEntity = "Entity[id=" + extractId(e.getValue()) + ", type="
+                        + extractType(e.getValue()).getSimpleName() + "]";
+
+                throw new IllegalArgumentException("Could not delete entity " + rootEntity + ". The entity " +
+                        definingEntity + ", which it (indirectly) contains, acts as a definition for some " +
+                        "entities that are not deleted along with it, which would leave them without a " +
+                        "definition. This is illegal.");
+            }
+        }
+
+        //delete from the most deeply contained entities up, so that the ancestors of each chunk still exist when it is
+        //passed to the callback
+        int chunkSize = context.getDeleteChunkSize() > 0 ? context.getDeleteChunkSize() : subtree.size();
+
+        for (int end = subtree.size(); end > 0; end -= chunkSize) {
+            int start = Math.max(0, end - chunkSize);
+            List<Element> chunk = subtree.subList(start, end);
+
+            if (beforeDelete != null) {
+                //the edges to the entities from the previous chunks have been removed along with them
+                Map<Object, Element> edges = new LinkedHashMap<>();
+                for (Element e : chunk) {
+                    for (Edge edge : ((Vertex) e).getEdges(Direction.BOTH)) {
+                        edges.putIfAbsent(edge.getId(), edge);
+                    }
+                }
+
+                beforeDelete.accept(new ArrayList<>(chunk), new ArrayList<>(edges.values()));
+            }
+
+            for (Element e : chunk) {
+                context.getPathCache().invalidate(e.getId());
+                context.getAncestryCache().invalidate(e.getId());
+                //removing the vertex also removes all its edges
+                e.remove();
+            }
+
+            if (start > 0) {
+                //this really commits the chunk, the graph just starts a new transaction for the rest of the work
+                context.commitChunk();
+                if (chunkCommitted != null) {
+                    chunkCommitted.run();
+                }
+            }
+        }
+    }
+
     @Override
     public void commit(Transaction t) {
         context.commit(t);
@@ -547,56 +915,285 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
 
     @Override
     public void rollback(Transaction t) {
-        context.rollback(t);
+        try {
+            context.rollback(t);
+        } finally {
+            //the caches might contain elements created in the rolled back transaction
+            context.getPathCache().clear();
+            context.getAncestryCache().clear();
+        }
     }
 
     @Override
     public void close() throws Exception {
-        context.getGraph().shutdown();
+        context.close();
     }
 
-    private HawkularPipeline<?, Element> navigate(CanonicalPath path) {
-        HawkularPipeline<?, Element> ret = new HawkularPipeline<>(context.getGraph());
-        if (path.getRelationshipId() != null) {
-            ret.E().hasEid(path.getRelationshipId());
-            return ret;
-        } else if (path.getTenantId() != null) {
-            ret.V().hasType(tenant).hasEid(path.getTenantId());
-
-            if (path.getEnvironmentId() != null) {
-                ret.out(contains).hasType(environment).hasEid(path.getEnvironmentId());
-                if (path.getFeedId() != null) {
-                    ret.out(contains).hasType(feed).hasEid(path.getFeedId());
-                    if (path.getMetricId() != null) {
-                        ret.out(contains).hasType(metric).hasEid(path.getMetricId());
-                        return ret;
-                    } else if (path.getResourceId() != null) {
-                        ret.out(contains).hasType(resource).hasEid(path.getResourceId());
-                        return ret;
-                    } else {
-                        return ret;
+    /**
+     * Creates the page of the results taking into account how the total count was computed.
+     *
+     * @param results the results as produced by a pipeline {@link HawkularPipeline#page(Pager) paged} using the pager
+     * @param pager   the pager
+     * @param count   the number of elements counted before the paging was applied
+     * @param <T>     the type of the results
+     * @return the page of results
+     */
+    private static <T> Page<T> toPage(List<T> results, Pager pager, long count,
+            BiFunction<T, String, ? extends Comparable> propertyValueExtractor) {
+        if (!pager.isLimited()) {
+            return new Page<>(results, pager, count, false);
+        }
+
+        boolean hasMore;
+        switch (pager.getTotalCount()) {
+            case EXACT:
+            case ESTIMATED:
+                //the pipeline let through 1 more element than requested if there are more results
+                hasMore = results.size() > pager.getPageSize();
+                if (hasMore) {
+                    results = results.subList(0, pager.getPageSize());
+                }
+                break;
+            case NONE:
+                hasMore = results.size() == pager.getPageSize();
+                count = -1;
+                break;
+            default:
+                throw new AssertionError("Unhandled total count: " + pager.getTotalCount());
+        }
+
+        String nextCursor = null;
+        if (pager.isCursorBased() && hasMore && !results.isEmpty()) {
+            nextCursor = KeysetCursor.of(results.get(results.size() - 1), KeysetCursor.keyOrder(pager.getOrder()),
+                    propertyValueExtractor).encode();
+        }
+
+        return new Page<>(results, pager, count, hasMore, nextCursor);
+    }
+
+    private static Comparable entityPropertyValue(AbstractElement<?, ?> element, String property) {
+        if (KeysetCursor.PATH_KEY.equals(property)) {
+            return KeysetCursor.pathOf(element);
+        } else if (AbstractElement.ID_PROPERTY.equals(property)) {
+            return element.getId();
+        } else {
+            return (Comparable) element.getProperties().get(property);
+        }
+    }
+
+    private <T extends AbstractElement<?, ?>> T convertShared(Vertex v, Class<T> entityType,
+            Map<Object, AbstractElement<?, ?>> converted) {
+        AbstractElement<?, ?> ret = converted.get(v.getId());
+        if (ret == null) {
+            ret = convert(v, entityType, converted);
+            converted.put(v.getId(), ret);
+        }
+
+        return entityType.cast(ret);
+    }
+
+    /**
+     * Lazily converts the elements in batches of {@link #CONVERSION_BATCH_SIZE} elements using the provided
+     * conversion function.
+     */
+    private static <T> Iterator<T> convertInBatches(Iterator<Element> elements,
+            Function<List<Element>, List<T>> conversion) {
+        return new Iterator<T>() {
+            private Iterator<T> batch = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                if (!batch.hasNext() && elements.hasNext()) {
+                    List<Element> next = new ArrayList<>(CONVERSION_BATCH_SIZE);
+                    while (elements.hasNext() && next.size() < CONVERSION_BATCH_SIZE) {
+                        next.add(elements.next());
                     }
-                } else if (path.getMetricId() != null) {
-                    ret.out(contains).hasType(metric).hasEid(path.getMetricId());
-                    return ret;
-                } else if (path.getResourceId() != null) {
-                    ret.out(contains).hasType(resource).hasEid(path.getResourceId());
-                    return ret;
-                } else {
-                    return ret;
+                    batch = conversion.apply(next).iterator();
                 }
-            } else if (path.getMetricTypeId() != null) {
-                ret.out(contains).hasType(metricType).hasEid(path.getMetricTypeId());
-                return ret;
-            } else if (path.getResourceTypeId() != null) {
-                ret.out(contains).hasType(resourceType).hasEid(path.getResourceTypeId());
-                return ret;
-            } else {
-                return ret;
+
+                return batch.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return batch.next();
+            }
+        };
+    }
+
+    /**
+     * Gets the ancestry of the vertex from the cache or determines it from the ancestry of its parent, if not cached.
+     * Because the parents are cached, too, the siblings share the work needed to determine their ancestry.
+     *
+     * @param v    the vertex representing an entity
+     * @param type the type of the entity
+     * @return the ancestry of the vertex
+     */
+    private AncestryCache.Ancestry getAncestry(Vertex v, Constants.Type type) {
+        AncestryCache.Ancestry ret = context.getAncestryCache().get(v.getId());
+        if (ret != null) {
+            return ret;
+        }
+
+        if (type == tenant) {
+            ret = new AncestryCache.Ancestry(extractId(v), null, null, null);
+        } else {
+            Object definingTypeVertexId = null;
+            if (type == metric || type == resource) {
+                definingTypeVertexId = v.getVertices(Direction.IN, Relationships.WellKnown.defines.name()).iterator()
+                        .next().getId();
+            }
+
+            Iterator<Vertex> parents = v.getVertices(Direction.IN, contains.name()).iterator();
+            if (parents.hasNext()) {
+                Vertex parent = parents.next();
+                ret = deriveAncestry(parent, getAncestry(parent, getType(parent)), definingTypeVertexId);
+            }
+
+            if (ret == null) {
+                ret = walkAncestry(v, type, definingTypeVertexId);
             }
         }
 
-        throw new IllegalArgumentException("Unexpected canonical path: " + path);
+        context.getAncestryCache().put(v.getId(), ret);
+
+        return ret;
+    }
+
+    /**
+     * Determines the ancestry of the vertex by looking for its tenant, environment and feed by their types.
+     */
+    private static AncestryCache.Ancestry walkAncestry(Vertex v, Constants.Type type, Object definingTypeVertexId) {
+        Vertex environmentVertex;
+        Vertex feedVertex;
+
+        switch (type) {
+            case environment:
+            case metricType:
+            case resourceType:
+                return new AncestryCache.Ancestry(getEid(getTenantVertexOf(v)), null, null, null);
+            case feed:
+                environmentVertex = getEnvironmentVertexOf(v);
+                return new AncestryCache.Ancestry(getEid(getTenantVertexOf(environmentVertex)),
+                        getEid(environmentVertex), null, null);
+            case metric:
+            case resource:
+                environmentVertex = getEnvironmentVertexOrNull(v);
+                feedVertex = getFeedVertexOrNull(v);
+                if (environmentVertex == null) {
+                    environmentVertex = getEnvironmentVertexOf(feedVertex);
+                }
+                return new AncestryCache.Ancestry(getEid(getTenantVertexOf(environmentVertex)),
+                        getEid(environmentVertex), feedVertex == null ? null : getEid(feedVertex),
+                        definingTypeVertexId);
+            default:
+                throw new IllegalArgumentException("Unknown type of vertex");
+        }
+    }
+
+    /**
+     * Derives the ancestry of an entity from the ancestry of its parent.
+     *
+     * @param parent               the vertex containing the entity
+     * @param parentAncestry       the ancestry of the parent
+     * @param definingTypeVertexId the native id of the defining type of the entity, if any
+     * @return the ancestry or null if the parent doesn't canonically contain the entity
+     */
+    private static AncestryCache.Ancestry deriveAncestry(Vertex parent, AncestryCache.Ancestry parentAncestry,
+            Object definingTypeVertexId) {
+        switch (getType(parent)) {
+            case tenant:
+                return new AncestryCache.Ancestry(parentAncestry.tenantId, null, null, definingTypeVertexId);
+            case environment:
+                return new AncestryCache.Ancestry(parentAncestry.tenantId, getEid(parent), null,
+                        definingTypeVertexId);
+            case feed:
+                return new AncestryCache.Ancestry(parentAncestry.tenantId, parentAncestry.environmentId,
+                        getEid(parent), definingTypeVertexId);
+            default:
+                return null;
+        }
+    }
+
+    private Vertex getDefiningTypeVertex(Vertex v, AncestryCache.Ancestry ancestry) {
+        Vertex ret = ancestry.definingTypeVertexId == null ? null
+                : context.getGraph().getVertex(ancestry.definingTypeVertexId);
+
+        if (ret == null) {
+            ret = v.getVertices(Direction.IN, Relationships.WellKnown.defines.name()).iterator().next();
+            context.getAncestryCache().put(v.getId(), ancestry.withDefiningTypeVertexId(ret.getId()));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Derives the ancestry of the newly contained vertex from the ancestry of its parent.
+     *
+     * @param parent the containing vertex
+     * @param child  the contained vertex
+     */
+    private void updateAncestry(Vertex parent, Vertex child) {
+        AncestryCache.Ancestry childAncestry = context.getAncestryCache().peek(child.getId());
+
+        childAncestry = deriveAncestry(parent, getAncestry(parent, getType(parent)),
+                childAncestry == null ? null : childAncestry.definingTypeVertexId);
+
+        if (childAncestry == null) {
+            //not a canonical containment, let the ancestry be determined when it is needed
+            context.getAncestryCache().invalidate(child.getId());
+        } else {
+            context.getAncestryCache().put(child.getId(), childAncestry);
+        }
+    }
+
+    /**
+     * Plans the query and creates a new pipeline evaluating the plan.
+     *
+     * <p>The branches of the query are only evaluated in parallel if the whole pipeline is going to be consumed,
+     * because the parallel evaluation produces all the results of the branches before emitting the first one.
+     *
+     * @param query      the query to translate
+     * @param exhaustive whether all the results of the pipeline are going to be consumed
+     * @return the pipeline corresponding to the query
+     */
+    private HawkularPipeline<?, ? extends Element> translate(Query query, boolean exhaustive) {
+        QueryPlan plan = QueryPlanner.plan(query, context.getIndexedProperties());
+
+        Log.LOG.dQueryPlan(plan);
+
+        return plan.toPipeline(context, exhaustive ? context.getParallelBranches() : null);
+    }
+
+    /**
+     * @param pager the pager
+     * @return true if all the results of the query need to be evaluated to count or order them or because all of
+     * them are requested
+     */
+    private static boolean isExhaustive(Pager pager) {
+        return !pager.isLimited() || pager.getTotalCount() == PageContext.TotalCount.EXACT
+                || pager.getOrder().stream().anyMatch(Order::isSpecific);
+    }
+
+    private HawkularPipeline<?, Element> navigate(CanonicalPath path) {
+        if (path.getRelationshipId() != null) {
+            Edge edge = context.getEdge(path.getRelationshipId());
+            return new HawkularPipeline<>(edge == null ? Collections.emptyList() : Collections.singletonList(edge));
+        }
+
+        HawkularPipeline<?, Element> ret = new HawkularPipeline<>(context.getGraph());
+
+        String indexValue = CanonicalPaths.toIndexValue(path);
+        if (indexValue == null) {
+            throw new IllegalArgumentException("Unexpected canonical path: " + path);
+        }
+
+        ret.V(Constants.Property.__cp.name(), indexValue);
+        return ret;
     }
 
     /**
@@ -649,6 +1246,17 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
         });
     }
 
+    /**
+     * Stores the type and id of the target of the edge in the edge itself.
+     *
+     * @param edge   the edge
+     * @param target the target vertex of the edge
+     */
+    static void setTarget(Edge edge, Vertex target) {
+        edge.setProperty(Constants.Property.__targetType.name(), getType(target).name());
+        edge.setProperty(Constants.Property.__targetEid.name(), getEid(target));
+    }
+
     static Vertex getTenantVertexOf(Vertex entityVertex) {
         Constants.Type type = getType(entityVertex);
 
@@ -16,15 +16,21 @@
  */
 package org.hawkular.inventory.impl.tinkerpop;
 
+import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.TransactionalGraph;
 import com.tinkerpop.blueprints.Vertex;
 import org.hawkular.inventory.api.Configuration;
+import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.base.BaseInventory;
+import org.hawkular.inventory.base.Query;
 import org.hawkular.inventory.base.spi.InventoryBackend;
 import org.hawkular.inventory.impl.tinkerpop.spi.GraphProvider;
 import org.hawkular.inventory.impl.tinkerpop.spi.IndexSpec;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.ServiceLoader;
 
 /**
@@ -32,32 +38,104 @@ import java.util.ServiceLoader;
  * @since 0.1.0
  */
 public final class TinkerpopInventory extends BaseInventory<Element> {
+    private InventoryContext<?> context;
+
     @Override
     protected InventoryBackend<Element> doInitialize(Configuration configuration) {
-        InventoryContext<?> context = loadGraph(configuration);
+        context = loadGraph(configuration);
+        CanonicalPathMigration.migrate(context);
+        EdgeTargetMigration.migrate(context);
         return new TinkerpopBackend(context);
     }
 
+    /**
+     * @return the statistics of the cache used to look up the elements by their canonical paths
+     * @throws IllegalStateException if the inventory has not been initialized yet
+     */
+    public CacheStatistics getPathCacheStatistics() {
+        if (context == null) {
+            throw new IllegalStateException("Inventory not initialized.");
+        }
+
+        return context.getPathCache().getStatistics();
+    }
+
+    /**
+     * @return the statistics of the cache used when converting the vertices to entities
+     * @throws IllegalStateException if the inventory has not been initialized yet
+     */
+    public CacheStatistics getAncestryCacheStatistics() {
+        if (context == null) {
+            throw new IllegalStateException("Inventory not initialized.");
+        }
+
+        return context.getAncestryCache().getStatistics();
+    }
+
+    /**
+     * @return the statistics of the snapshots of the ordered results of the cursor-based queries
+     * @throws IllegalStateException if the inventory has not been initialized yet
+     */
+    public CacheStatistics getCursorSnapshotStatistics() {
+        if (context == null) {
+            throw new IllegalStateException("Inventory not initialized.");
+        }
+
+        return context.getCursorSnapshots().getStatistics();
+    }
+
+    /**
+     * Describes how the provided query would be evaluated. This is meant for debugging purposes.
+     *
+     * @param query the query
+     * @return the description of the plan of the query
+     */
+    public String explain(Query query) {
+        return QueryPlanner.plan(query, context == null ? IndexedProperties.NONE : context.getIndexedProperties())
+                .toString();
+    }
+
     private <T extends TransactionalGraph> InventoryContext<T> loadGraph(Configuration configuration) {
         @SuppressWarnings("unchecked")
         GraphProvider<T> gp = ServiceLoader.load(GraphProvider.class).iterator().next();
 
-        T g = ensureIndices(gp, configuration);
+        IndexedProperties indexedProperties = IndexedProperties.of(configuration);
+
+        T g = ensureIndices(gp, configuration, indexedProperties);
 
-        return new InventoryContext<>(this, g, gp);
+        return new InventoryContext<>(this, configuration, g, gp, indexedProperties);
     }
 
-    private <T extends TransactionalGraph> T ensureIndices(GraphProvider<T> graphProvider, Configuration config) {
+    private <T extends TransactionalGraph> T ensureIndices(GraphProvider<T> graphProvider, Configuration config,
+            IndexedProperties indexedProperties) {
         T graph = graphProvider.instantiateGraph(config);
 
-        graphProvider.ensureIndices(graph,
+        List<IndexSpec> indices = new ArrayList<>(Arrays.asList(
                 IndexSpec.builder()
                         .withElementType(Vertex.class)
                         .withProperty(Constants.Property.__type.name(), String.class)
                         .withProperty(Constants.Property.__eid.name(), String.class).build(),
                 IndexSpec.builder()
                         .withElementType(Vertex.class)
-                        .withProperty(Constants.Property.__type.name(), String.class).build());
+                        .withProperty(Constants.Property.__type.name(), String.class).build(),
+                IndexSpec.builder()
+                        .withElementType(Vertex.class)
+                        .withProperty(Constants.Property.__cp.name(), String.class)
+                        .unique().build(),
+                IndexSpec.builder()
+                        .withElementType(Edge.class)
+                        .withProperty(Constants.Property.__eid.name(), String.class).build(),
+                IndexSpec.builder()
+                        .withElementType(Edge.class)
+                        .withEdgeLabel(Relationships.WellKnown.contains.name())
+                        .withEdgeLabel(Relationships.WellKnown.defines.name())
+                        .withEdgeLabel(Relationships.WellKnown.owns.name())
+                        .withProperty(Constants.Property.__targetEid.name(), String.class)
+                        .withProperty(Constants.Property.__targetType.name(), String.class).build()));
+
+        indices.addAll(indexedProperties.toIndexSpecs());
+
+        graphProvider.ensureIndices(graph, indices.toArray(new IndexSpec[indices.size()]));
 
         return graph;
     }
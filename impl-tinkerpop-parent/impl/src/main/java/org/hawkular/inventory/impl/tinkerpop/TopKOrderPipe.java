@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.impl.tinkerpop;
+
+import com.tinkerpop.pipes.AbstractPipe;
+import com.tinkerpop.pipes.util.FastNoSuchElementException;
+import com.tinkerpop.pipes.util.PipeHelper;
+import org.hawkular.inventory.api.paging.Order;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.BiFunction;
+
+/**
+ * An ordering pipe that only keeps the first {@code k} elements of the ordered results.
+ *
+ * <p>Unlike the {@link com.tinkerpop.pipes.transform.OrderPipe}, which holds on to all the elements and sorts them,
+ * this pipe keeps the {@code k} smallest elements seen so far in a bounded heap. This is all that is needed to
+ * produce a page of the ordered results. The pipe still drains all the elements from the previous pipes, so that
+ * any counting done before this pipe sees all of them.
+ *
+ * <p>The values of the properties to order by are extracted only once per element. Elements with equal keys retain
+ * the order in which they arrived.
+ *
+ * @since 0.1.0
+ */
+final class TopKOrderPipe<S> extends AbstractPipe<S, S> {
+    private final List<Order> order;
+    private final BiFunction<S, String, ? extends Comparable> propertyValueExtractor;
+    private final int k;
+    private Iterator<S> results;
+
+    /**
+     * @param order                  the order to apply, only specific orders are taken into account
+     * @param propertyValueExtractor the function to extract the values of the properties to order by
+     * @param k                      the maximum number of elements to emit or a negative number if all the elements
+     *                               should be emitted
+     */
+    TopKOrderPipe(List<Order> order, BiFunction<S, String, ? extends Comparable> propertyValueExtractor, int k) {
+        this.order = SortKey.specific(order);
+        this.propertyValueExtractor = propertyValueExtractor;
+        this.k = k;
+    }
+
+    @Override
+    protected S processNextStart() {
+        if (results == null) {
+            results = sort();
+        }
+
+        if (results.hasNext()) {
+            return results.next();
+        } else {
+            throw FastNoSuchElementException.instance();
+        }
+    }
+
+    @Override
+    public void reset() {
+        results = null;
+        super.reset();
+    }
+
+    @Override
+    public String toString() {
+        return PipeHelper.makePipeString(this, order, k);
+    }
+
+    private Iterator<S> sort() {
+        Comparator<SortKey<S>> comparator = SortKey.comparator(order);
+
+        List<SortKey<S>> sorted;
+        long seq = 0;
+
+        if (k < 0) {
+            sorted = new ArrayList<>();
+            while (starts.hasNext()) {
+                sorted.add(SortKey.of(starts.next(), seq++, order, propertyValueExtractor));
+            }
+        } else {
+            //the head of the heap is the greatest of the elements kept, so that it can be replaced by a smaller one
+            PriorityQueue<SortKey<S>> heap = new PriorityQueue<>(Math.max(1, Math.min(k + 1, 1024)),
+                    comparator.reversed());
+
+            while (starts.hasNext()) {
+                S element = starts.next();
+                if (k == 0) {
+                    continue;
+                }
+
+                SortKey<S> key = SortKey.of(element, seq++, order, propertyValueExtractor);
+                if (heap.size() < k) {
+                    heap.add(key);
+                } else if (comparator.compare(key, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(key);
+                }
+            }
+
+            sorted = new ArrayList<>(heap);
+        }
+
+        Collections.sort(sorted, comparator);
+
+        List<S> ret = new ArrayList<>(sorted.size());
+        sorted.forEach(e -> ret.add(e.element));
+
+        return ret.iterator();
+    }
+}
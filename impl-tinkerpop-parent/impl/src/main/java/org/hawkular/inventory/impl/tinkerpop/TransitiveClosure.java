@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.impl.tinkerpop;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A lazy breadth-first traversal of the transitive closure of a vertex over the edges with given label.
+ *
+ * <p>The ids of the visited vertices are tracked so that each vertex is emitted at most once and the traversal
+ * terminates even on cyclic graphs or when following the edges in both directions. The starting vertex itself is never
+ * emitted.
+ *
+ * <p>The closure is evaluated on demand, vertex by vertex, in the order of the distance from the starting vertex. The
+ * traversal can be limited to a maximum depth and can be stopped early once a vertex satisfying a predicate is found.
+ * The graph must not be modified while the traversal is in progress.
+ *
+ * @since 0.1.0
+ */
+final class TransitiveClosure implements Iterator<Vertex> {
+    /**
+     * The maximum depth meaning that the closure is not limited by the distance from the starting vertex.
+     */
+    static final int UNBOUNDED = -1;
+
+    private final Direction direction;
+    private final String[] labels;
+    private final int maxDepth;
+    private final Predicate<Vertex> stopAt;
+    private final Set<Object> visited = new HashSet<>();
+
+    private Deque<Vertex> currentLevel = new ArrayDeque<>();
+    private Deque<Vertex> nextLevel = new ArrayDeque<>();
+    private int depth = 1;
+    private Iterator<Vertex> neighbours;
+    private Vertex next;
+    private boolean stopped;
+    private boolean done;
+
+    /**
+     * @param start     the vertex to start the traversal at
+     * @param direction the direction of the edges to follow
+     * @param label     the label of the edges to follow
+     * @param maxDepth  the maximum distance of the emitted vertices from the start or {@link #UNBOUNDED}
+     * @param stopAt    the predicate to end the traversal with once a vertex satisfying it is emitted, can be null
+     */
+    TransitiveClosure(Vertex start, Direction direction, String label, int maxDepth, Predicate<Vertex> stopAt) {
+        if (start == null) {
+            throw new IllegalArgumentException("start == null");
+        }
+
+        this.direction = direction;
+        this.labels = new String[]{label};
+        this.maxDepth = maxDepth;
+        this.stopAt = stopAt;
+
+        visited.add(start.getId());
+        currentLevel.add(start);
+        done = maxDepth == 0;
+    }
+
+    /**
+     * @return true if the traversal was ended by the stop predicate, i.e. the vertex satisfying it has been reached.
+     */
+    boolean isStopped() {
+        return stopped;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !done) {
+            next = advance();
+        }
+
+        return next != null;
+    }
+
+    @Override
+    public Vertex next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        Vertex ret = next;
+        next = null;
+
+        if (stopAt != null && stopAt.test(ret)) {
+            stopped = true;
+            done = true;
+        }
+
+        return ret;
+    }
+
+    private Vertex advance() {
+        while (true) {
+            if (neighbours != null && neighbours.hasNext()) {
+                Vertex v = neighbours.next();
+                if (visited.add(v.getId())) {
+                    if (maxDepth == UNBOUNDED || depth < maxDepth) {
+                        nextLevel.add(v);
+                    }
+                    return v;
+                }
+            } else if (!currentLevel.isEmpty()) {
+                neighbours = currentLevel.poll().getVertices(direction, labels).iterator();
+            } else if (!nextLevel.isEmpty()) {
+                Deque<Vertex> tmp = currentLevel;
+                currentLevel = nextLevel;
+                nextLevel = tmp;
+                depth++;
+            } else {
+                done = true;
+                return null;
+            }
+        }
+    }
+}
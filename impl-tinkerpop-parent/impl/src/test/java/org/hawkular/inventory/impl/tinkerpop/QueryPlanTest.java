@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphQuery;
+import com.tinkerpop.blueprints.KeyIndexableGraph;
+import com.tinkerpop.blueprints.Parameter;
+import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.util.DefaultGraphQuery;
+import com.tinkerpop.blueprints.util.wrappers.WrapperGraph;
+import com.tinkerpop.blueprints.util.wrappers.wrapped.WrappedGraph;
+import org.hawkular.inventory.api.Configuration;
+import org.hawkular.inventory.api.filters.With;
+import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.base.Query;
+import org.hawkular.inventory.impl.tinkerpop.spi.GraphProvider;
+import org.hawkular.inventory.impl.tinkerpop.spi.IndexSpec;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Tests the evaluation of the query plans against the graph, which is internal to the implementation.
+ *
+ * @since 0.1.0
+ */
+public class QueryPlanTest {
+
+    @Test
+    public void testCompositeIndicesBackedByKeyIndices() throws Exception {
+        @SuppressWarnings("unchecked")
+        GraphProvider<TransactionalGraph> gp = ServiceLoader.load(GraphProvider.class).iterator().next();
+
+        Configuration configuration = Configuration.builder().withConfiguration(Collections.emptyMap()).build();
+        TransactionalGraph graph = gp.instantiateGraph(configuration);
+
+        try {
+            Graph baseGraph = graph instanceof WrapperGraph ? ((WrapperGraph<?>) graph).getBaseGraph() : graph;
+            Assume.assumeTrue(baseGraph instanceof TinkerGraph);
+
+            gp.ensureIndices(graph,
+                    IndexSpec.builder().withElementType(Vertex.class).withProperty("__type", String.class)
+                            .withProperty("__eid", String.class).build(),
+                    IndexSpec.builder().withElementType(Vertex.class).withProperty("__type", String.class).build(),
+                    IndexSpec.builder().withElementType(Edge.class).withProperty("__eid", String.class).build());
+
+            //the composite index is emulated by the key index on the more selective of its keys
+            TinkerGraph tg = (TinkerGraph) baseGraph;
+            Assert.assertEquals(new HashSet<>(Arrays.asList("__type", "__eid")), tg.getIndexedKeys(Vertex.class));
+            Assert.assertEquals(Collections.singleton("__eid"), tg.getIndexedKeys(Edge.class));
+
+            Vertex v = graph.addVertex(null);
+            v.setProperty("__type", "resource");
+            v.setProperty("__eid", "r");
+            graph.addVertex(null).setProperty("__type", "resource");
+            Vertex environment = graph.addVertex(null);
+            environment.setProperty("__type", "environment");
+            environment.setProperty("__eid", "r");
+
+            LookupRecordingGraph recordingGraph = new LookupRecordingGraph(tg);
+            InventoryContext<LookupRecordingGraph> context = new InventoryContext<>(new TinkerpopInventory(),
+                    configuration, recordingGraph, new GraphProvider<LookupRecordingGraph>() {
+                        @Override
+                        public LookupRecordingGraph instantiateGraph(Configuration configuration) {
+                            throw new UnsupportedOperationException();
+                        }
+
+                        @Override
+                        public void ensureIndices(LookupRecordingGraph graph, IndexSpec... indexSpecs) {
+                        }
+                    }, IndexedProperties.NONE);
+
+            QueryPlan plan = QueryPlanner.plan(Query.path().with(With.type(Resource.class), With.id("r")).get(),
+                    IndexedProperties.NONE);
+            Assert.assertEquals(QueryPlan.Start.TYPES_AND_IDS, plan.getStart());
+
+            List<Object> ids = plan.toPipeline(context, null).toList().stream().map(Element::getId)
+                    .collect(toList());
+            Assert.assertEquals(Collections.singletonList(v.getId()), ids);
+
+            //the plan is seeded using the index of the id rather than that of the type or a scan of the whole graph
+            Assert.assertEquals(Collections.singletonList("__eid"), recordingGraph.lookups);
+        } finally {
+            graph.shutdown();
+        }
+    }
+
+    /**
+     * Records the keys of the vertex lookups made by the queries of the graph, {@code null} standing for the scan of
+     * all the vertices. The queries behave the same as the queries of the tinker graph, which also uses the key indices
+     * only through the lookups.
+     */
+    private static final class LookupRecordingGraph extends WrappedGraph<TinkerGraph>
+            implements TransactionalGraph, KeyIndexableGraph {
+        final List<String> lookups = new ArrayList<>();
+
+        LookupRecordingGraph(TinkerGraph baseGraph) {
+            super(baseGraph);
+        }
+
+        @Override
+        public Iterable<Vertex> getVertices() {
+            lookups.add(null);
+            return super.getVertices();
+        }
+
+        @Override
+        public Iterable<Vertex> getVertices(String key, Object value) {
+            lookups.add(key);
+            return super.getVertices(key, value);
+        }
+
+        @Override
+        public GraphQuery query() {
+            return new DefaultGraphQuery(this);
+        }
+
+        @Override
+        public <T extends Element> void dropKeyIndex(String key, Class<T> elementClass) {
+            baseGraph.dropKeyIndex(key, elementClass);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends Element> void createKeyIndex(String key, Class<T> elementClass,
+                Parameter... indexParameters) {
+            baseGraph.createKeyIndex(key, elementClass, indexParameters);
+        }
+
+        @Override
+        public <T extends Element> Set<String> getIndexedKeys(Class<T> elementClass) {
+            return baseGraph.getIndexedKeys(elementClass);
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public void stopTransaction(Conclusion conclusion) {
+        }
+
+        @Override
+        public void commit() {
+        }
+
+        @Override
+        public void rollback() {
+        }
+    }
+}
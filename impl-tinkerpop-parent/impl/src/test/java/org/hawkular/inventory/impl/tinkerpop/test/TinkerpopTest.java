@@ -17,9 +17,31 @@
 package org.hawkular.inventory.impl.tinkerpop.test;
 
 import com.tinkerpop.blueprints.Element;
+import org.hawkular.inventory.api.Environments;
+import org.hawkular.inventory.api.Metrics;
+import org.hawkular.inventory.api.Resources;
+import org.hawkular.inventory.api.filters.Filter;
+import org.hawkular.inventory.api.filters.Related;
+import org.hawkular.inventory.api.filters.RelationWith;
+import org.hawkular.inventory.api.filters.With;
+import org.hawkular.inventory.api.model.Environment;
+import org.hawkular.inventory.api.model.Metric;
+import org.hawkular.inventory.api.model.Relationship;
+import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.api.paging.Order;
+import org.hawkular.inventory.api.paging.Page;
+import org.hawkular.inventory.api.paging.Pager;
 import org.hawkular.inventory.api.test.AbstractBaseInventoryPersistenceCheck;
 import org.hawkular.inventory.base.BaseInventory;
+import org.hawkular.inventory.base.Query;
+import org.hawkular.inventory.base.spi.CanonicalPath;
+import org.hawkular.inventory.base.spi.CloseableIterator;
+import org.hawkular.inventory.base.spi.ElementNotFoundException;
+import org.hawkular.inventory.impl.tinkerpop.CacheStatistics;
 import org.hawkular.inventory.impl.tinkerpop.TinkerpopInventory;
+import org.junit.Assert;
+import org.junit.Test;
 
 import java.io.IOException;
 import java.nio.file.FileVisitResult;
@@ -28,6 +50,21 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
 
 /**
  * @author Lukas Krejci
@@ -61,4 +98,338 @@ public class TinkerpopTest extends AbstractBaseInventoryPersistenceCheck<Element
             }
         });
     }
+
+    @Test
+    public void testCanonicalPathCache() throws Exception {
+        TinkerpopInventory inv = (TinkerpopInventory) inventory;
+        inventory.tenants().get("com.example.tenant").environments().create(new Environment.Blueprint("cached"));
+
+        CanonicalPath path = CanonicalPath.builder().withTenantId("com.example.tenant").withEnvironmentId("cached")
+                .build();
+
+        Element env = inv.getBackend().find(path);
+
+        CacheStatistics before = inv.getPathCacheStatistics();
+        Assert.assertEquals(env, inv.getBackend().find(path));
+
+        CacheStatistics after = inv.getPathCacheStatistics();
+        Assert.assertEquals(before.getHits() + 1, after.getHits());
+        Assert.assertEquals(before.getMisses(), after.getMisses());
+
+        inventory.tenants().get("com.example.tenant").environments().delete("cached");
+
+        try {
+            inv.getBackend().find(path);
+            Assert.fail("Deleted element should not be found.");
+        } catch (ElementNotFoundException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testFindByCanonicalPath() throws Exception {
+        TinkerpopInventory inv = (TinkerpopInventory) inventory;
+
+        CanonicalPath path = CanonicalPath.builder().withTenantId("com.acme.tenant").withEnvironmentId("production")
+                .withFeedId("feed1").withResourceId("feedResource1").build();
+
+        Resource r = inv.getBackend().convert(inv.getBackend().find(path), Resource.class);
+
+        Assert.assertEquals("feedResource1", r.getId());
+        Assert.assertEquals("feed1", r.getFeedId());
+        Assert.assertEquals(path, CanonicalPath.of(r));
+        Assert.assertFalse(r.getProperties().containsKey("__cp"));
+
+        try {
+            inv.getBackend().find(CanonicalPath.builder().withTenantId("com.acme.tenant")
+                    .withEnvironmentId("production").withResourceId("feedResource1").build());
+            Assert.fail("Resource in a feed should not be found directly in the environment.");
+        } catch (ElementNotFoundException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testChildLookupByRelationshipTarget() throws Exception {
+        TinkerpopInventory inv = (TinkerpopInventory) inventory;
+
+        Element tenant = inv.getBackend().find(CanonicalPath.builder().withTenantId("com.acme.tenant").build());
+        Element env = inv.getBackend().find(CanonicalPath.builder().withTenantId("com.acme.tenant")
+                .withEnvironmentId("production").build());
+
+        Assert.assertTrue(inv.getBackend().hasRelationship(tenant, env, contains.name()));
+        Assert.assertFalse(inv.getBackend().hasRelationship(env, tenant, contains.name()));
+
+        Relationship rel = inv.getBackend().convert(inv.getBackend().getRelationship(tenant, env, contains.name()),
+                Relationship.class);
+        Assert.assertTrue(rel.getProperties().isEmpty());
+
+        //the navigation down to the child with the id uses the target ids stored in the edges
+        List<Element> rs = inv.getBackend().query(Query.path().with(With.type(Environment.class),
+                Related.by(contains), With.id("host1"), With.type(Resource.class)).get(),
+                Pager.unlimited(Order.unspecified()));
+
+        Assert.assertEquals(1, rs.size());
+        Assert.assertEquals("host1", inv.getBackend().extractId(rs.get(0)));
+    }
+
+    @Test
+    public void testAncestryCache() throws Exception {
+        TinkerpopInventory inv = (TinkerpopInventory) inventory;
+
+        Element resource = inv.getBackend().find(CanonicalPath.builder().withTenantId("com.acme.tenant")
+                .withEnvironmentId("production").withFeedId("feed1").withResourceId("feedResource2").build());
+
+        Resource first = inv.getBackend().convert(resource, Resource.class);
+
+        CacheStatistics before = inv.getAncestryCacheStatistics();
+        Resource second = inv.getBackend().convert(resource, Resource.class);
+        CacheStatistics after = inv.getAncestryCacheStatistics();
+
+        Assert.assertEquals(first, second);
+        Assert.assertEquals("feed1", second.getFeedId());
+        Assert.assertEquals("URL", second.getType().getId());
+        //the resource and its resource type
+        Assert.assertEquals(before.getHits() + 2, after.getHits());
+        Assert.assertEquals(before.getMisses(), after.getMisses());
+    }
+
+    @Test
+    public void testConvertAll() throws Exception {
+        TinkerpopInventory inv = (TinkerpopInventory) inventory;
+
+        CanonicalPath.Builder feed = CanonicalPath.builder().withTenantId("com.acme.tenant")
+                .withEnvironmentId("production").withFeedId("feed1");
+
+        List<Element> elements = Arrays.asList(
+                inv.getBackend().find(feed.withResourceId("feedResource3").build()),
+                inv.getBackend().find(feed.withResourceId("feedResource1").build()),
+                inv.getBackend().find(feed.withResourceId("feedResource2").build()));
+
+        List<Resource> resources = inv.getBackend().convertAll(elements, Resource.class);
+
+        Assert.assertEquals(3, resources.size());
+        for (int i = 0; i < elements.size(); ++i) {
+            Assert.assertEquals(inv.getBackend().convert(elements.get(i), Resource.class), resources.get(i));
+        }
+        Assert.assertSame(resources.get(0).getType(), resources.get(1).getType());
+    }
+
+    @Test
+    public void testExplain() throws Exception {
+        TinkerpopInventory inv = (TinkerpopInventory) inventory;
+
+        String byPath = inv.explain(Query.path().with(With.type(Tenant.class), With.id("com.acme.tenant")).path()
+                .with(Related.by(contains), With.type(Environment.class), With.id("production")).get());
+        Assert.assertTrue(byPath, byPath.startsWith("QueryPlan[start=CANONICAL_PATH"));
+
+        String byType = inv.explain(Query.path().with(With.type(Resource.class)).filter()
+                .with(With.propertyValue("kind", "server")).get());
+        Assert.assertTrue(byType, byType.startsWith("QueryPlan[start=TYPES, types=[resource]"));
+
+        Query indexedPropertyQuery = Query.path().with(With.type(Tenant.class)).filter()
+                .with(With.propertyValue("kachny", "moc")).get();
+        String byIndexedProperty = inv.explain(indexedPropertyQuery);
+        Assert.assertTrue(byIndexedProperty, byIndexedProperty.startsWith(
+                "QueryPlan[start=TYPES_AND_PROPERTY_VALUES, types=[tenant], property=kachny, values=[moc]"));
+
+        List<String> tenantIds = inv.getBackend().query(indexedPropertyQuery, Pager.unlimited(Order.unspecified()))
+                .stream().map((e) -> inv.getBackend().convert(e, Tenant.class).getId()).collect(toList());
+        Assert.assertEquals(Collections.singletonList("com.acme.tenant"), tenantIds);
+
+        //the repeated values don't look the same elements up repeatedly
+        Assert.assertEquals(1, inv.getBackend().query(Query.path().with(With.type(Tenant.class)).filter()
+                .with(With.propertyValues("kachny", "moc", "moc")).get(), Pager.unlimited(Order.unspecified()))
+                .size());
+        Assert.assertTrue(inv.getBackend().query(Query.path().with(With.type(Tenant.class)).filter()
+                .with(With.propertyValue("kachny", "malo")).get(), Pager.unlimited(Order.unspecified())).isEmpty());
+
+        String byEdgeId = inv.explain(Query.path().with(RelationWith.id("rel")).get());
+        Assert.assertTrue(byEdgeId, byEdgeId.startsWith("QueryPlan[start=EDGE_IDS, ids=[rel]"));
+    }
+
+    @Test
+    public void testCursorPagesReadFromSnapshot() throws Exception {
+        TinkerpopInventory inv = (TinkerpopInventory) inventory;
+
+        Metrics.Multiple metrics = inventory.tenants().getAll().environments().getAll().feedlessMetrics().getAll();
+
+        List<String> expected = metrics.entities(Pager.unlimited(Order.by("id", Order.Direction.ASCENDING)))
+                .stream().map(Metric::getId).collect(toList());
+
+        CacheStatistics before = inv.getCursorSnapshotStatistics();
+
+        List<String> actual = new ArrayList<>();
+        Page<Metric> page = metrics.entities(Pager.after("", 1, Order.by("id", Order.Direction.ASCENDING)));
+        page.forEach(m -> actual.add(m.getId()));
+        while (page.getNextCursor() != null) {
+            page = metrics.entities(Pager.after(page.getNextCursor(), 1, Order.by("id", Order.Direction.ASCENDING)));
+            page.forEach(m -> actual.add(m.getId()));
+        }
+
+        Assert.assertEquals(expected, actual);
+
+        //only the first page evaluated the query, the rest were read from its snapshot
+        CacheStatistics after = inv.getCursorSnapshotStatistics();
+        Assert.assertEquals(before.getHits() + expected.size() - 1, after.getHits());
+        Assert.assertEquals(before.getMisses(), after.getMisses());
+    }
+
+    @Test
+    public void testCursorSnapshotsOnlyInvalidatedByModificationsOfTheirTenant() throws Exception {
+        TinkerpopInventory inv = (TinkerpopInventory) inventory;
+
+        Resources.Multiple resources = inventory.tenants().get("com.acme.tenant").environments().get("production")
+                .feeds().get("feed1").resources().getAll();
+
+        Order order = Order.by("id", Order.Direction.ASCENDING);
+
+        CacheStatistics before = inv.getCursorSnapshotStatistics();
+
+        Page<Resource> page = resources.entities(Pager.after("", 1, order));
+        Assert.assertEquals("feedResource1", page.get(0).getId());
+
+        try {
+            inventory.tenants().update("com.example.tenant",
+                    Tenant.Update.builder().withProperty("ducks", "many").build());
+
+            page = resources.entities(Pager.after(page.getNextCursor(), 1, order));
+            Assert.assertEquals("feedResource2", page.get(0).getId());
+
+            CacheStatistics after = inv.getCursorSnapshotStatistics();
+            Assert.assertEquals(before.getHits() + 1, after.getHits());
+            Assert.assertEquals(before.getMisses(), after.getMisses());
+
+            inventory.tenants().update("com.acme.tenant",
+                    Tenant.Update.builder().withProperty("kachny", "moc").build());
+
+            page = resources.entities(Pager.after(page.getNextCursor(), 1, order));
+            Assert.assertEquals("feedResource3", page.get(0).getId());
+            Assert.assertNull(page.getNextCursor());
+
+            after = inv.getCursorSnapshotStatistics();
+            Assert.assertEquals(before.getHits() + 1, after.getHits());
+            Assert.assertEquals(before.getMisses() + 1, after.getMisses());
+        } finally {
+            inventory.tenants().update("com.example.tenant", Tenant.Update.builder().build());
+        }
+    }
+
+    @Test
+    public void testStreamDoesNotBlockModifications() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (Stream<Resource> resources = inventory.tenants().getAll().environments().getAll().feedlessResources()
+                .getAll().stream(Collections.singletonList(Order.by("id", Order.Direction.ASCENDING)))) {
+
+            Iterator<Resource> it = resources.iterator();
+            Assert.assertTrue(it.hasNext());
+
+            //the tinkergraph doesn't allow the modification while a read transaction is open
+            executor.submit(() -> inventory.tenants().update("com.example.tenant", Tenant.Update.builder().build()))
+                    .get(10, TimeUnit.SECONDS);
+
+            Assert.assertNotNull(it.next());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testOrderedStreamDeletesTemporaryFiles() throws Exception {
+        TinkerpopInventory inv = (TinkerpopInventory) inventory;
+
+        Query query = Query.path().with(With.type(Resource.class)).get();
+        List<Order> order = Collections.singletonList(Order.by("id", Order.Direction.DESCENDING));
+
+        Element first = inv.getBackend().query(query, Pager.unlimited(order)).get(0);
+
+        try (CloseableIterator<Element> it = inv.getBackend().stream(query, order)) {
+            Assert.assertEquals(first, it.next());
+
+            //the test configuration makes the ordering spill to the target directory
+            Assert.assertNotEquals(0, countSortRuns());
+        }
+
+        Assert.assertEquals(0, countSortRuns());
+    }
+
+    private static long countSortRuns() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get("target"))) {
+            return files.filter(p -> p.getFileName().toString().startsWith("hawkular-inventory-sort")).count();
+        }
+    }
+
+    @Test
+    public void testParallelBranchesMergeLikeSerialBranches() throws Exception {
+        TinkerpopInventory inv = (TinkerpopInventory) inventory;
+
+        //the second branch reaches the environments reached by the first one, too
+        Query query = Query.path().with(With.type(Tenant.class), With.id("com.acme.tenant"))
+                .with(new Filter[][]{{Related.by(contains), With.type(Environment.class)}, {Related.by(contains)}})
+                .get();
+
+        List<Element> serial = new ArrayList<>();
+        try (CloseableIterator<Element> it = inv.getBackend().stream(query)) {
+            it.forEachRemaining(serial::add);
+        }
+
+        //the test configuration evaluates the branches of the unlimited queries in parallel
+        List<Element> parallel = inv.getBackend().query(query, Pager.unlimited(Order.unspecified()));
+
+        Assert.assertTrue(serial.size() > new HashSet<>(serial).size());
+        Assert.assertEquals(serial, parallel);
+    }
+
+    @Test
+    public void testDeleteSubtreeCommitsChunks() throws Exception {
+        TinkerpopInventory inv = (TinkerpopInventory) inventory;
+
+        Environments.ReadWrite envs = inventory.tenants().get("com.acme.tenant").environments();
+        envs.create(new Environment.Blueprint("chunks"));
+        try {
+            for (int i = 0; i < 4; ++i) {
+                envs.get("chunks").feedlessResources().create(new Resource.Blueprint("r" + i, "URL"));
+            }
+
+            Element env = inv.getBackend().find(CanonicalPath.builder().withTenantId("com.acme.tenant")
+                    .withEnvironmentId("chunks").build());
+
+            //the test configuration deletes the resources in 2 chunks of 2 and the environment in the last chunk,
+            //which fails
+            int[] chunks = new int[1];
+            List<Integer> commits = new ArrayList<>();
+            try {
+                inv.getBackend().deleteSubtree(env, (entities, relationships) -> {
+                    if (++chunks[0] == 3) {
+                        throw new IllegalStateException("Failing the last chunk.");
+                    }
+                }, () -> commits.add(chunks[0]));
+                Assert.fail("The deletion of the last chunk should have failed.");
+            } catch (IllegalStateException e) {
+                //expected
+            }
+
+            //the chunks committed before the failure stay deleted
+            Assert.assertEquals(Arrays.asList(1, 2), commits);
+            Assert.assertEquals("chunks", envs.get("chunks").entity().getId());
+            Assert.assertTrue(envs.get("chunks").feedlessResources().getAll().entities().isEmpty());
+        } finally {
+            envs.delete("chunks");
+        }
+    }
+
+    @Test
+    public void testQueryByMultipleIds() throws Exception {
+        TinkerpopInventory inv = (TinkerpopInventory) inventory;
+
+        Query query = Query.path().with(With.type(Resource.class),
+                With.ids("feedResource1", "host1", "feedResource3", "nonExistent")).get();
+
+        Assert.assertTrue(inv.explain(query).startsWith("QueryPlan[start=TYPES_AND_IDS"));
+
+        Set<String> ids = inv.getBackend().query(query, Pager.unlimited(Order.unspecified())).stream()
+                .map((e) -> inv.getBackend().convert(e, Resource.class).getId()).collect(toSet());
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("feedResource1", "host1", "feedResource3")), ids);
+    }
 }
@@ -46,6 +46,9 @@ public interface GraphProvider<G extends TransactionalGraph> {
      * <p>The provided set of indexes is what the implementation thinks the indices should be. The graph provider
      * is free to make more indexes if they choose so to support the "core" set of indices.
      *
+     * <p>The indices can be defined both on vertices and edges, as specified by the
+     * {@link IndexSpec#getElementType() element type} of the index spec.
+     *
      * @param graph the graph instance (coming from the
      * {@link #instantiateGraph(org.hawkular.inventory.api.Configuration)} call) to index
      *
@@ -53,6 +56,33 @@ public interface GraphProvider<G extends TransactionalGraph> {
      */
     void ensureIndices(G graph, IndexSpec... indexSpecs);
 
+    /**
+     * Tells whether the elements loaded in a read-only transaction can be safely read from multiple threads at the
+     * same time. If they can, the implementation might convert large results to entities in parallel.
+     *
+     * <p>The default implementation returns false.
+     *
+     * @param graph the graph
+     * @return true if the elements of read-only transactions can be read concurrently, false otherwise
+     */
+    default boolean isConcurrentReadSupported(G graph) {
+        return false;
+    }
+
+    /**
+     * Tells whether the edges can be looked up using {@link com.tinkerpop.blueprints.Graph#getEdge(Object)} with the
+     * string representation of their ids. The implementation stores that string representation in the edges and if
+     * the lookup is supported, uses it to find the relationships by their ids instead of querying for them.
+     *
+     * <p>The default implementation returns false.
+     *
+     * @param graph the graph
+     * @return true if the edges can be looked up by the string representation of their ids, false otherwise
+     */
+    default boolean isEdgeLookupByIdSupported(G graph) {
+        return false;
+    }
+
     /**
      * Starts a new transaction in the graph.
      *
@@ -18,8 +18,11 @@ package org.hawkular.inventory.impl.tinkerpop.spi;
 
 import com.tinkerpop.blueprints.Element;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Lukas Krejci
@@ -28,16 +31,33 @@ import java.util.Map;
 public final class IndexSpec {
     private final Map<String, Class<?>> properties;
     private final Class<? extends Element> elementType;
+    private final boolean unique;
+    private final Set<String> edgeLabels;
 
     public static Builder builder() {
         return new Builder();
     }
 
     public IndexSpec(Class<? extends Element> elementType, Map<String, Class<?>> properties) {
+        this(elementType, properties, false);
+    }
+
+    public IndexSpec(Class<? extends Element> elementType, Map<String, Class<?>> properties, boolean unique) {
+        this(elementType, properties, unique, Collections.emptySet());
+    }
+
+    public IndexSpec(Class<? extends Element> elementType, Map<String, Class<?>> properties, boolean unique,
+            Set<String> edgeLabels) {
         this.elementType = elementType;
         this.properties = properties;
+        this.unique = unique;
+        this.edgeLabels = edgeLabels;
     }
 
+    /**
+     * @return the type of the indexed elements, either {@link com.tinkerpop.blueprints.Vertex} or
+     * {@link com.tinkerpop.blueprints.Edge}
+     */
     public Class<? extends Element> getElementType() {
         return elementType;
     }
@@ -46,14 +66,35 @@ public final class IndexSpec {
         return properties;
     }
 
+    /**
+     * @return true if no two elements can have the same combination of values of the indexed properties
+     */
+    public boolean isUnique() {
+        return unique;
+    }
+
+    /**
+     * If non-empty, the index is a vertex-centric index of the edges with given labels, i.e. it indexes the edges
+     * of each vertex separately, as opposed to a graph-wide index of all the elements of the element type. The
+     * element type of such index is always {@link com.tinkerpop.blueprints.Edge}.
+     *
+     * @return the labels of the edges indexed by the vertex-centric index or an empty set for graph-wide indices
+     */
+    public Set<String> getEdgeLabels() {
+        return edgeLabels;
+    }
+
     @Override
     public String toString() {
-        return "IndexSpec[type=" + elementType.getSimpleName() + ",properties=" + properties + "]";
+        return "IndexSpec[type=" + elementType.getSimpleName() + ",properties=" + properties + ",unique=" + unique
+                + (edgeLabels.isEmpty() ? "" : ",edgeLabels=" + edgeLabels) + "]";
     }
 
     public static final class Builder {
         private final Map<String, Class<?>> properties = new HashMap<>();
         private Class<? extends Element> elementType;
+        private boolean unique;
+        private final Set<String> edgeLabels = new HashSet<>();
 
         private Builder() {
 
@@ -69,8 +110,18 @@ public final class IndexSpec {
             return this;
         }
 
+        public Builder unique() {
+            this.unique = true;
+            return this;
+        }
+
+        public Builder withEdgeLabel(String edgeLabel) {
+            edgeLabels.add(edgeLabel);
+            return this;
+        }
+
         public IndexSpec build() {
-            return new IndexSpec(elementType, properties);
+            return new IndexSpec(elementType, properties, unique, edgeLabels);
         }
     }
 }
@@ -25,6 +25,8 @@ import org.hawkular.inventory.base.spi.InventoryBackend;
 import org.hawkular.inventory.impl.tinkerpop.spi.GraphProvider;
 import org.hawkular.inventory.impl.tinkerpop.spi.IndexSpec;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.WeakHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -42,9 +44,54 @@ public final class TinkerGraphProvider implements GraphProvider<TinkerGraphProvi
 
     @Override
     public void ensureIndices(WrappedTinkerGraph graph, IndexSpec... indexSpecs) {
-        //don't bother with this for a demo graph
+        TinkerGraph tg = graph.getBaseGraph();
+
+        for (IndexSpec spec : indexSpecs) {
+            //tinker graph has no notion of vertex-centric indices
+            if (spec.getProperties().isEmpty() || !spec.getEdgeLabels().isEmpty()) {
+                continue;
+            }
+
+            String key = mostSelectiveKey(spec, indexSpecs);
+            if (!tg.getIndexedKeys(spec.getElementType()).contains(key)) {
+                tg.createKeyIndex(key, spec.getElementType());
+            }
+        }
+    }
+
+    /**
+     * Tinker graph can only index single keys, so the composite indices are emulated by indexing the most selective of
+     * their keys. The keys used by the fewest indices of the same element type are considered the most selective -
+     * the keys shared by many indices, like the type of the entities, only coarsely discriminate the elements.
+     */
+    private static String mostSelectiveKey(IndexSpec spec, IndexSpec... indexSpecs) {
+        return spec.getProperties().keySet().stream().min(Comparator.comparingLong((k) -> Arrays.stream(indexSpecs)
+                .filter((s) -> s.getElementType().equals(spec.getElementType()) && s.getEdgeLabels().isEmpty()
+                        && s.getProperties().containsKey(k)).count())).get();
+    }
+
+    @Override
+    public boolean isConcurrentReadSupported(WrappedTinkerGraph graph) {
+        //the read-only transactions hold the read lock, so there can be no concurrent modifications
+        return true;
+    }
+
+    @Override
+    public boolean isEdgeLookupByIdSupported(WrappedTinkerGraph graph) {
+        //the edge ids are strings in tinker graph
+        return true;
     }
 
+    /**
+     * Tinker graph is not transactional, so the transactions are simulated by serializing the mutating transactions
+     * with all the others using a single lock per graph.
+     *
+     * <p>The lock cannot be striped by tenants. The vertex and edge maps, the key indices and the id generator of the
+     * graph are shared by all the tenants and are not safe for concurrent modification, and even the queries confined
+     * to a single tenant read the elements of the other tenants when they start from the key indices. Tinker graph
+     * doesn't let us replace these structures with concurrent ones, so any two transactions that can run at the same
+     * time must both be read-only.
+     */
     @Override
     public InventoryBackend.Transaction startTransaction(WrappedTinkerGraph graph, boolean mutating) {
         ReentrantReadWriteLock lock;
@@ -42,5 +42,11 @@ public interface Log {
     @LogMessage(level = Logger.Level.INFO)
     @Message(id = 1502, value = "Waiting for the index '%s' to become registered.")
     void iWaitingForIndexRegistration(String indexName);
+
+    @LogMessage(level = Logger.Level.INFO)
+    @Message(id = 1503, value = "The vertex-centric index '%s' is not created on the edge label '%s', because the" +
+            " label already exists in the database and its edges would need to be re-indexed. The edges of the" +
+            " label are looked up without the index.")
+    void iVertexCentricIndexNotCreated(String indexName, String edgeLabel);
 }
 
@@ -16,10 +16,15 @@
  */
 package org.hawkular.inventory.impl.tinkerpop.provider;
 
+import com.thinkaurelius.titan.core.EdgeLabel;
 import com.thinkaurelius.titan.core.PropertyKey;
 import com.thinkaurelius.titan.core.TitanFactory;
 import com.thinkaurelius.titan.core.TitanGraph;
 import com.thinkaurelius.titan.core.schema.TitanManagement;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
 import org.apache.commons.configuration.MapConfiguration;
 import org.hawkular.inventory.api.Configuration;
 import org.hawkular.inventory.impl.tinkerpop.spi.GraphProvider;
@@ -33,6 +38,8 @@ import java.util.Map;
  * @since 0.0.1
  */
 public class TitanProvider implements GraphProvider<TitanGraph> {
+    private static final String EDGE_ID_INDEX = "by___eid";
+
     @Override
     public TitanGraph instantiateGraph(Configuration configuration) {
         return TitanFactory.open(new MapConfiguration(configuration.getImplementationConfiguration()));
@@ -47,8 +54,8 @@ public class TitanProvider implements GraphProvider<TitanGraph> {
         TitanManagement mgmt = graph.getManagementSystem();
 
         for (IndexSpec spec : indexSpecs) {
-            String indexName = getIndexName(spec.getProperties().keySet());
-            if (mgmt.getGraphIndex(indexName) == null) {
+            String indexName = getIndexName(spec.getElementType(), spec.getProperties().keySet());
+            if (spec.getEdgeLabels().isEmpty() && mgmt.getGraphIndex(indexName) == null) {
                 undefinedIndices.put(indexName, spec);
             }
 
@@ -62,7 +69,8 @@ public class TitanProvider implements GraphProvider<TitanGraph> {
                         throw new IllegalStateException("There already is a key '" + key.getName() +
                                 "' that would be needed for index " + spec + ". The key has a different data type" +
                                 " than expected, though. Expected: '" + p.getValue() + "', actual: '" +
-                                key.getDataType() + "'.");
+                                key.getDataType() + "'. If the key is an indexed user-defined property, declare its" +
+                                " value type to match the key.");
                     }
                     definedPropertyKeys.put(p.getKey(), key);
                 }
@@ -83,19 +91,61 @@ public class TitanProvider implements GraphProvider<TitanGraph> {
                 bld.addKey(definedPropertyKeys.get(k));
             }
 
+            if (e.getValue().isUnique()) {
+                bld.unique();
+            }
+
             bld.buildCompositeIndex();
         }
 
+        for (IndexSpec spec : indexSpecs) {
+            if (!spec.getEdgeLabels().isEmpty()) {
+                ensureVertexCentricIndex(mgmt, spec, definedPropertyKeys);
+            }
+        }
+
         mgmt.commit();
     }
 
-    private String getIndexName(Iterable<String> propertyNames) {
+    @Override
+    public boolean isEdgeLookupByIdSupported(TitanGraph graph) {
+        //titan parses the string representation of the relation identifiers
+        return true;
+    }
+
+    private void ensureVertexCentricIndex(TitanManagement mgmt, IndexSpec spec,
+            Map<String, PropertyKey> definedPropertyKeys) {
+        //the vertex-centric indices are defined per edge label, so their names only need to be unique per label
+        String indexName = getIndexName(Vertex.class, spec.getProperties().keySet());
+
+        PropertyKey[] keys = spec.getProperties().keySet().stream().map(definedPropertyKeys::get)
+                .toArray(PropertyKey[]::new);
+
+        for (String labelName : spec.getEdgeLabels()) {
+            EdgeLabel label = mgmt.getEdgeLabel(labelName);
+            if (label == null) {
+                label = mgmt.makeEdgeLabel(labelName).make();
+                mgmt.buildEdgeIndex(label, indexName, Direction.OUT, keys);
+            } else if (!mgmt.containsRelationIndex(label, indexName)) {
+                //an index of an existing label would only be installed - Titan 0.5 needs an external reindexing job
+                //for the existing edges before the index can be enabled. The index is not necessary for the queries
+                //to work, so we rather go without it than leave it half-built.
+                Log.LOG.iVertexCentricIndexNotCreated(indexName, labelName);
+            }
+        }
+    }
+
+    private String getIndexName(Class<? extends Element> elementType, Iterable<String> propertyNames) {
         StringBuilder bld = new StringBuilder("by");
 
         for (String propertyName : propertyNames) {
             bld.append("_").append(propertyName);
         }
 
-        return bld.toString();
+        String name = bld.toString();
+
+        //keep the names of the existing indices so that they are recognized, only the user-defined edge indices are
+        //prefixed so that they don't clash with the vertex indices of the same properties
+        return Edge.class.equals(elementType) && !EDGE_ID_INDEX.equals(name) ? "edges_" + name : name;
     }
 }
@@ -16,6 +16,7 @@
  */
 package org.hawkular.inventory.rest;
 
+import org.hawkular.inventory.api.BulkCreateResult;
 import org.hawkular.inventory.api.Configuration;
 import org.hawkular.inventory.api.EmptyInventory;
 import org.hawkular.inventory.api.EntityAlreadyExistsException;
@@ -32,6 +33,8 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Produces;
 import javax.inject.Inject;
 
+import java.util.Collection;
+
 /**
  * @author Lukas Krejci
  * @since 0.1.0
@@ -77,6 +80,12 @@ public class AutoTenantInventoryProducer {
                         return actual.create(blueprint);
                     }
 
+                    @Override
+                    public BulkCreateResult createAll(Collection<Tenant.Blueprint> blueprints,
+                            boolean failOnConflict) throws EntityAlreadyExistsException {
+                        return actual.createAll(blueprints, failOnConflict);
+                    }
+
                     @Override
                     public void update(String id, Tenant.Update update) throws EntityNotFoundException {
                         actual.update(id, update);
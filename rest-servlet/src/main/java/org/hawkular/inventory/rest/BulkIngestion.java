@@ -0,0 +1,342 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Throwables;
+import org.hawkular.inventory.api.BulkCreateResult;
+import org.hawkular.inventory.api.EntityAlreadyExistsException;
+import org.hawkular.inventory.api.EntityNotFoundException;
+import org.hawkular.inventory.api.Feeds;
+import org.hawkular.inventory.api.Metrics;
+import org.hawkular.inventory.api.RelationAlreadyExistsException;
+import org.hawkular.inventory.api.RelationNotFoundException;
+import org.hawkular.inventory.api.WriteInterface;
+import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.Metric;
+import org.hawkular.inventory.api.model.Resource;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.CONFLICT;
+import static javax.ws.rs.core.Response.Status.CREATED;
+import static javax.ws.rs.core.Response.Status.FORBIDDEN;
+import static javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR;
+import static javax.ws.rs.core.Response.Status.NOT_FOUND;
+import static javax.ws.rs.core.Response.Status.NO_CONTENT;
+
+/**
+ * Creates the resources and metrics of a feed, and the associations between them, described by the lines of
+ * a newline-delimited JSON document. Each line is one of:
+ * <pre>{@code
+ *     {"resource": <resource blueprint>}
+ *     {"metric": <metric blueprint>}
+ *     {"association": {"resourceId": "...", "metricId": "..."}}
+ * }</pre>
+ *
+ * <p>The request body is read as a stream. The lines are processed in batches, all the resources and all the metrics
+ * of a batch being created in a single transaction each, before the associations of the batch are made, all the
+ * associations with the same resource in a single transaction, too. The outcome
+ * of each of the lines is written as a line of the newline-delimited JSON output as soon as its batch is processed:
+ * <pre>{@code
+ *     {"line": 1, "status": 201, "id": "..."}
+ *     {"line": 2, "status": 409, "id": "...", "errorMsg": "..."}
+ * }</pre>
+ *
+ * @since 0.1.0
+ */
+final class BulkIngestion implements StreamingOutput {
+    /**
+     * The media type of the newline-delimited JSON.
+     */
+    static final String NDJSON = "application/x-ndjson";
+
+    private final InputStream input;
+    private final ObjectMapper mapper;
+    private final Feeds.Single feed;
+    private final boolean canCreateResources;
+    private final boolean canCreateMetrics;
+    private final Predicate<String> canAssociateFromResource;
+    private final int batchSize;
+
+    /**
+     * @param input                    the newline-delimited JSON to read
+     * @param mapper                   the object mapper to read the blueprints and write the results with
+     * @param feed                     the feed to create the entities in
+     * @param canCreateResources       whether the current user can create resources in the feed
+     * @param canCreateMetrics         whether the current user can create metrics in the feed
+     * @param canAssociateFromResource tells whether the current user can associate metrics with the resource with
+     *                                 given id
+     * @param batchSize                the number of lines to process at once
+     */
+    BulkIngestion(InputStream input, ObjectMapper mapper, Feeds.Single feed, boolean canCreateResources,
+            boolean canCreateMetrics, Predicate<String> canAssociateFromResource, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive.");
+        }
+
+        this.input = input;
+        this.mapper = mapper;
+        this.feed = feed;
+        this.canCreateResources = canCreateResources;
+        this.canCreateMetrics = canCreateMetrics;
+        this.canAssociateFromResource = canAssociateFromResource;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(output)) {
+            //the output stream is owned by the container
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            List<Item> batch = new ArrayList<>(batchSize);
+            int lineNumber = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+
+                batch.add(parse(lineNumber, line));
+
+                if (batch.size() == batchSize) {
+                    process(batch);
+                    write(batch, generator);
+                    batch.clear();
+                }
+            }
+
+            process(batch);
+            write(batch, generator);
+        }
+    }
+
+    private Item parse(int lineNumber, String line) {
+        Item item = new Item(lineNumber);
+
+        try {
+            JsonNode node = mapper.readTree(line);
+            if (node.has("resource")) {
+                item.resource = mapper.treeToValue(node.get("resource"), Resource.Blueprint.class);
+                item.id = item.resource.getId();
+            } else if (node.has("metric")) {
+                item.metric = mapper.treeToValue(node.get("metric"), Metric.Blueprint.class);
+                item.id = item.metric.getId();
+            } else if (node.has("association")) {
+                JsonNode association = node.get("association");
+                item.resourceId = association.path("resourceId").textValue();
+                item.id = association.path("metricId").textValue();
+                if (item.resourceId == null || item.id == null) {
+                    item.fail(BAD_REQUEST, "The association must specify both the resourceId and the metricId.");
+                }
+            } else {
+                item.fail(BAD_REQUEST, "Expected one of 'resource', 'metric' or 'association'.");
+            }
+        } catch (IOException e) {
+            item.fail(BAD_REQUEST, "Invalid JSON: " + Throwables.getRootCause(e).getMessage());
+        }
+
+        return item;
+    }
+
+    private void process(List<Item> batch) {
+        List<Item> resources = new ArrayList<>();
+        List<Item> metrics = new ArrayList<>();
+        List<Item> associations = new ArrayList<>();
+
+        for (Item item : batch) {
+            if (item.status != null) {
+                continue;
+            }
+
+            if (item.resource != null) {
+                resources.add(item);
+            } else if (item.metric != null) {
+                metrics.add(item);
+            } else {
+                associations.add(item);
+            }
+        }
+
+        //the associations can refer to the entities created in the same batch
+        createAll(resources, canCreateResources, feed.resources(), (i) -> i.resource);
+        createAll(metrics, canCreateMetrics, feed.metrics(), (i) -> i.metric);
+
+        Map<String, List<Item>> associationsByResource = new LinkedHashMap<>();
+        associations.forEach((i) -> associationsByResource.computeIfAbsent(i.resourceId, (k) -> new ArrayList<>())
+                .add(i));
+
+        associationsByResource.forEach(this::associateAll);
+    }
+
+    private void associateAll(String resourceId, List<Item> items) {
+        if (!canAssociateFromResource.test(resourceId)) {
+            items.forEach((i) -> i.fail(FORBIDDEN, null));
+            return;
+        }
+
+        List<Item> toAssociate = new ArrayList<>(items.size());
+        Set<String> metricIds = new LinkedHashSet<>();
+        for (Item item : items) {
+            if (metricIds.add(item.id)) {
+                toAssociate.add(item);
+            } else {
+                item.fail(CONFLICT, "Association with metric '" + item.id + "' is repeated in the request.");
+            }
+        }
+
+        Metrics.ReadAssociate metrics = feed.resources().get(resourceId).metrics();
+        try {
+            metrics.associateAll(metricIds);
+            toAssociate.forEach((i) -> i.status = NO_CONTENT);
+        } catch (RuntimeException e) {
+            //some of the associations are not possible - fall back to associating the metrics one by one so that we
+            //can tell which ones
+            for (Item item : toAssociate) {
+                try {
+                    metrics.associate(item.id);
+                    item.status = NO_CONTENT;
+                } catch (RuntimeException ee) {
+                    item.fail(ee);
+                }
+            }
+        }
+    }
+
+    private <B extends Entity.Blueprint> void createAll(List<Item> items, boolean permitted,
+            WriteInterface<?, B, ?> dao, Function<Item, B> blueprint) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        if (!permitted) {
+            items.forEach((i) -> i.fail(FORBIDDEN, null));
+            return;
+        }
+
+        List<B> blueprints = new ArrayList<>(items.size());
+        items.forEach((i) -> blueprints.add(blueprint.apply(i)));
+
+        BulkCreateResult result;
+        try {
+            result = dao.createAll(blueprints);
+        } catch (RuntimeException e) {
+            //some of the blueprints are invalid - fall back to creating the entities one by one so that we can tell
+            //which ones
+            for (Item item : items) {
+                try {
+                    dao.create(blueprint.apply(item));
+                    item.status = CREATED;
+                } catch (RuntimeException ee) {
+                    item.fail(ee);
+                }
+            }
+            return;
+        }
+
+        //only the first of the items with the same id is created, the later ones are reported as conflicts
+        Set<String> created = new HashSet<>(result.getCreatedIds());
+        Set<String> existing = new HashSet<>(result.getConflictingIds());
+        for (Item item : items) {
+            if (created.remove(item.id)) {
+                item.status = CREATED;
+            } else if (existing.contains(item.id)) {
+                item.fail(CONFLICT, "Entity with id '" + item.id + "' already exists.");
+            } else {
+                item.fail(CONFLICT, "Entity with id '" + item.id + "' is repeated in the request.");
+            }
+        }
+    }
+
+    private void write(List<Item> batch, JsonGenerator generator) throws IOException {
+        for (Item item : batch) {
+            generator.writeStartObject();
+            generator.writeNumberField("line", item.lineNumber);
+            generator.writeNumberField("status", item.status.getStatusCode());
+            if (item.id != null) {
+                generator.writeStringField("id", item.id);
+            }
+            if (item.errorMsg != null) {
+                generator.writeStringField("errorMsg", item.errorMsg);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        //let the client see the results of the batch while we process the next one
+        generator.flush();
+    }
+
+    private static final class Item {
+        final int lineNumber;
+        Resource.Blueprint resource;
+        Metric.Blueprint metric;
+        String resourceId;
+        String id;
+        Response.Status status;
+        String errorMsg;
+
+        Item(int lineNumber) {
+            this.lineNumber = lineNumber;
+        }
+
+        void fail(Response.Status status, String errorMsg) {
+            this.status = status;
+            this.errorMsg = errorMsg;
+        }
+
+        void fail(RuntimeException e) {
+            Response.Status status;
+            if (e instanceof EntityNotFoundException || e instanceof RelationNotFoundException) {
+                status = NOT_FOUND;
+            } else if (e instanceof EntityAlreadyExistsException || e instanceof RelationAlreadyExistsException) {
+                status = CONFLICT;
+            } else if (e instanceof IllegalArgumentException) {
+                status = BAD_REQUEST;
+            } else {
+                RestApiLogger.LOGGER.warn(e);
+                status = INTERNAL_SERVER_ERROR;
+            }
+
+            fail(status, Throwables.getRootCause(e).getMessage());
+        }
+    }
+}
@@ -34,6 +34,23 @@ public class RequestUtil {
     private RequestUtil() {
     }
 
+    /**
+     * Extracts the pager from the query parameters of the request:
+     * <ul>
+     * <li>{@code page} - the number of the page, starting at 0, defaults to 0
+     * <li>{@code per_page} - the size of the page, defaults to all the results
+     * <li>{@code sort} - the properties to order the results by, can be repeated
+     * <li>{@code order} - {@code asc} or {@code desc} for each of the {@code sort} parameters, defaults to {@code asc}
+     * <li>{@code cursor} - the cursor to continue the cursor-based paging from, an empty cursor starts it
+     * <li>{@code total} - {@code exact}, {@code estimated} or {@code none}, how the total number of the results is
+     * computed. Defaults to {@code none} when all the results are requested, so that they are streamed to the caller
+     * without counting them first (the total is the number of the elements in the response then anyway). The
+     * cursor-based pages default to {@code estimated} and the other pages to {@code exact}.
+     * </ul>
+     *
+     * @param uri the uri of the request
+     * @return the pager
+     */
     public static Pager extractPaging(UriInfo uri) {
         MultivaluedMap<String, String> params = uri.getQueryParameters();
 
@@ -41,9 +58,23 @@ public class RequestUtil {
         String perPageS = params.getFirst("per_page");
         List<String> sort = params.get("sort");
         List<String> order = params.get("order");
+        String totalS = params.getFirst("total");
+        String cursor = params.getFirst("cursor");
 
         int page = pageS == null ? 0 : Integer.parseInt(pageS);
         int perPage = perPageS == null ? PageContext.UNLIMITED_PAGE_SIZE : Integer.parseInt(perPageS);
+        //the cursor-based pages don't count all the results by default, which would defeat their purpose, and all the
+        //results are streamed by default, which the total would prevent
+        PageContext.TotalCount total;
+        if (totalS != null) {
+            total = PageContext.TotalCount.fromShortString(totalS);
+        } else if (cursor != null) {
+            total = PageContext.TotalCount.ESTIMATED;
+        } else if (perPage == PageContext.UNLIMITED_PAGE_SIZE) {
+            total = PageContext.TotalCount.NONE;
+        } else {
+            total = PageContext.TotalCount.EXACT;
+        }
 
         List<Order> ordering = new ArrayList<>();
 
@@ -61,6 +92,7 @@ public class RequestUtil {
             }
         }
 
-        return new Pager(page, perPage, ordering);
+        //an empty cursor starts the cursor-based paging, the page number is ignored then
+        return new Pager(page, perPage, total, cursor, ordering);
     }
 }
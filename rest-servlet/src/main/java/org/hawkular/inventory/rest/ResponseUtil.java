@@ -16,8 +16,11 @@
  */
 package org.hawkular.inventory.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hawkular.inventory.api.paging.Page;
 import org.hawkular.inventory.api.paging.PageContext;
+import org.hawkular.inventory.api.paging.Pager;
+import org.hawkular.inventory.rest.json.JsonStreamingOutput;
 import org.hawkular.inventory.rest.json.Link;
 
 import javax.ws.rs.core.Response;
@@ -25,6 +28,8 @@ import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * @author Lukas Krejci
@@ -60,10 +65,45 @@ final class ResponseUtil {
         return response;
     }
 
+    /**
+     * The results can be streamed if the caller asked for all of them without the total count, which is the default
+     * (see {@link RequestUtil#extractPaging(UriInfo)}). The results then don't need to be held in memory all at once
+     * to count them and the ordered results can be ordered using temporary storage by the backend.
+     *
+     * @param pager the pager requested by the caller
+     * @return true if the results can be streamed to the caller
+     */
+    public static boolean isStreamable(Pager pager) {
+        return !pager.isLimited() && pager.getTotalCount() == PageContext.TotalCount.NONE;
+    }
+
+    /**
+     * Streams the data to the caller as a JSON array, serializing the elements one by one as they are consumed from
+     * the stream. No total count is reported and the only link is the one to the current "page".
+     *
+     * @param response the response builder to set the entity and headers of
+     * @param uriInfo  the uriInfo of the current request
+     * @param data     the supplier of the data to stream, only called when the response is being written. The stream
+     *                 is closed once written.
+     * @param mapper   the object mapper to serialize the elements with
+     * @return the response builder
+     */
+    public static Response.ResponseBuilder streamedResponse(Response.ResponseBuilder response, UriInfo uriInfo,
+            Supplier<? extends Stream<?>> data, ObjectMapper mapper) {
+        response.entity(new JsonStreamingOutput(data, mapper));
+        response.header("Link", new Link("current", uriInfo.getRequestUriBuilder().build().toString())
+                .rfc5988String());
+        return response;
+    }
+
     /**
      * Create the paging headers for collections and attach them to the passed builder. Those are represented as
      * <i>Link:</i> http headers that carry the URL for the pages and the respective relation.
      * <br/>In addition a <i>X-Total-Count</i> header is created that contains the whole collection size.
+     * <br/>If the exact total was not requested by the caller, only the links to the next and previous pages are
+     * created and the <i>X-Total-Count</i> header is omitted. The same goes for all the results without any total.
+     * <br/>For cursor-based paging, only the link to the next page is created, which contains the cursor to continue
+     * from.
      *
      * @param builder    The ResponseBuilder that receives the headers
      * @param uriInfo    The uriInfo of the incoming request to build the urls
@@ -79,7 +119,18 @@ final class ResponseUtil {
 
         List<Link> links = new ArrayList<>();
 
-        if (pc.isLimited() && resultList.getTotalSize() > (pc.getPageNumber() + 1) * pc.getPageSize()) {
+        boolean exactTotal = pc.getTotalCount() == PageContext.TotalCount.EXACT
+                || (!pc.isLimited() && pc.getTotalCount() != PageContext.TotalCount.NONE);
+
+        if (pc.isCursorBased()) {
+            if (resultList.getNextCursor() != null) {
+                uriBuilder = uriInfo.getRequestUriBuilder(); // adds ?q, ?per_page, ?cursor, etc. if needed
+                uriBuilder.replaceQueryParam("page");
+                uriBuilder.replaceQueryParam("cursor", resultList.getNextCursor());
+
+                links.add(new Link("next", uriBuilder.build().toString()));
+            }
+        } else if (pc.isLimited() && resultList.hasMore()) {
             int nextPage = page + 1;
             uriBuilder = uriInfo.getRequestUriBuilder(); // adds ?q, ?per_page, ?page, etc. if needed
             uriBuilder.replaceQueryParam("page", nextPage);
@@ -95,7 +146,7 @@ final class ResponseUtil {
         }
 
         // A link to the last page
-        if (pc.isLimited()) {
+        if (pc.isLimited() && !pc.isCursorBased() && exactTotal) {
             long lastPage = resultList.getTotalSize() / pc.getPageSize();
             if (resultList.getTotalSize() % pc.getPageSize() == 0) {
                 lastPage -= 1;
@@ -119,6 +170,8 @@ final class ResponseUtil {
         builder.header("Link", linkHeader.toString());
 
         // Create a total size header
-        builder.header("X-Total-Count", resultList.getTotalSize());
+        if (exactTotal) {
+            builder.header("X-Total-Count", resultList.getTotalSize());
+        }
     }
 }
@@ -16,10 +16,25 @@
  */
 package org.hawkular.inventory.rest;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hawkular.accounts.api.PersonaService;
 import org.hawkular.inventory.api.Inventory;
+import org.hawkular.inventory.api.ResolvableToMany;
+import org.hawkular.inventory.api.paging.Page;
+import org.hawkular.inventory.api.paging.Pager;
 
 import javax.inject.Inject;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.Providers;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
+import static org.hawkular.inventory.rest.RequestUtil.extractPaging;
+import static org.hawkular.inventory.rest.ResponseUtil.isStreamable;
+import static org.hawkular.inventory.rest.ResponseUtil.pagedResponse;
+import static org.hawkular.inventory.rest.ResponseUtil.streamedResponse;
 
 /**
  * @author Lukas Krejci
@@ -37,7 +52,68 @@ public class RestBase {
     @Inject
     PersonaService personas;
 
+    @Context
+    private Providers providers;
+
     protected String getTenantId() {
         return personas.getCurrent().getId();
     }
+
+    /**
+     * Responds with the page of the entities requested by the paging query parameters. If all the entities are
+     * requested without the total count, they are streamed instead, so that they never need to be held in memory all
+     * at once.
+     *
+     * @param response the response builder
+     * @param uriInfo  the uriInfo of the current request
+     * @param entities the entities to respond with
+     * @return the response builder
+     */
+    protected Response.ResponseBuilder pagedOrStreamedResponse(Response.ResponseBuilder response, UriInfo uriInfo,
+            ResolvableToMany<?> entities) {
+        Pager pager = extractPaging(uriInfo);
+
+        if (isStreamable(pager)) {
+            return streamedResponse(response, uriInfo, () -> entities.stream(pager.getOrder()),
+                    getObjectMapper());
+        } else {
+            return pagedResponse(response, uriInfo, entities.entities(pager));
+        }
+    }
+
+    /**
+     * Same as {@link #pagedOrStreamedResponse(Response.ResponseBuilder, UriInfo, ResolvableToMany)} but the entities
+     * are serialized using the provided object mapper instead of the one configured for the REST API.
+     *
+     * @param response the response builder
+     * @param uriInfo  the uriInfo of the current request
+     * @param entities the entities to respond with
+     * @param mapper   the object mapper to serialize the entities with
+     * @return the response builder
+     */
+    protected Response.ResponseBuilder pagedOrStreamedResponse(Response.ResponseBuilder response, UriInfo uriInfo,
+            ResolvableToMany<?> entities, ObjectMapper mapper) {
+        Pager pager = extractPaging(uriInfo);
+
+        if (isStreamable(pager)) {
+            return streamedResponse(response, uriInfo, () -> entities.stream(pager.getOrder()), mapper);
+        }
+
+        Page<?> page = entities.entities(pager);
+        Object json;
+        try {
+            json = mapper.writeValueAsString(page);
+        } catch (JsonProcessingException e) {
+            json = page;
+        }
+
+        return pagedResponse(response, uriInfo, page, json);
+    }
+
+    /**
+     * @return the object mapper configured for the REST API, to be used when writing the JSON output directly
+     */
+    protected ObjectMapper getObjectMapper() {
+        return providers.getContextResolver(ObjectMapper.class, APPLICATION_JSON_TYPE).getContext(ObjectMapper.class);
+    }
 }
@@ -20,9 +20,6 @@ package org.hawkular.inventory.rest;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
 
-import static org.hawkular.inventory.rest.RequestUtil.extractPaging;
-import static org.hawkular.inventory.rest.ResponseUtil.pagedResponse;
-
 import com.wordnik.swagger.annotations.Api;
 import com.wordnik.swagger.annotations.ApiOperation;
 import com.wordnik.swagger.annotations.ApiParam;
@@ -40,9 +37,9 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import org.hawkular.inventory.api.Environments;
 import org.hawkular.inventory.api.model.Environment;
 import org.hawkular.inventory.api.model.Tenant;
-import org.hawkular.inventory.api.paging.Page;
 import org.hawkular.inventory.rest.json.ApiError;
 
 /**
@@ -67,10 +64,9 @@ public class RestEnvironments extends RestBase {
     public Response getAll(@Context UriInfo uri) throws Exception {
         String tenantId = getTenantId();
 
-        Page<Environment> ret = inventory.tenants().get(tenantId).environments().getAll()
-                .entities(extractPaging(uri));
+        Environments.Multiple ret = inventory.tenants().get(tenantId).environments().getAll();
 
-        return pagedResponse(Response.ok(), uri, ret).build();
+        return pagedOrStreamedResponse(Response.ok(), uri, ret).build();
     }
 
     @GET
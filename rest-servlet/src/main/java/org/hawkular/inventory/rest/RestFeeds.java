@@ -22,26 +22,29 @@ import com.wordnik.swagger.annotations.ApiResponse;
 import com.wordnik.swagger.annotations.ApiResponses;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.Produces;
+import org.hawkular.inventory.api.Feeds;
 import org.hawkular.inventory.api.model.Environment;
 import org.hawkular.inventory.api.model.Feed;
-import org.hawkular.inventory.api.paging.Page;
+import org.hawkular.inventory.api.model.Metric;
+import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.rest.json.ApiError;
 
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import java.io.InputStream;
 import java.util.Set;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
-import static org.hawkular.inventory.rest.RequestUtil.extractPaging;
-import static org.hawkular.inventory.rest.ResponseUtil.pagedResponse;
 
 /**
  * @author Lukas Krejci
@@ -75,6 +78,43 @@ public class RestFeeds extends RestBase {
         return ResponseUtil.created(uriInfo, feed.getId()).entity(feed).build();
     }
 
+    @POST
+    @Path("/{environmentId}/{feedId}/bulk")
+    @Consumes(BulkIngestion.NDJSON)
+    @Produces(BulkIngestion.NDJSON)
+    @ApiOperation("Creates the resources and metrics of a feed and associates them. The request body is a" +
+            " newline-delimited JSON with one {\"resource\": blueprint}, {\"metric\": blueprint} or" +
+            " {\"association\": {\"resourceId\": id, \"metricId\": id}} object per line. The lines are processed in" +
+            " batches and the outcome of each line is streamed back as a line of newline-delimited JSON.")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "The outcomes of the individual lines"),
+            @ApiResponse(code = 400, message = "Invalid inputs", response = ApiError.class),
+            @ApiResponse(code = 401, message = "Unauthorized access"),
+            @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
+    })
+    public Response bulkCreate(@PathParam("environmentId") String environmentId, @PathParam("feedId") String feedId,
+            @ApiParam("The number of lines to create in a single transaction") @QueryParam("batchSize")
+            @DefaultValue("500") int batchSize, InputStream body) {
+
+        String tenantId = getTenantId();
+
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive.");
+        }
+
+        //the permissions to create entities only depend on the parent, so we only need to check them once
+        boolean canCreateResources = security.canCreate(Resource.class).under(Feed.class, tenantId, environmentId,
+                feedId);
+        boolean canCreateMetrics = security.canCreate(Metric.class).under(Feed.class, tenantId, environmentId,
+                feedId);
+
+        Feeds.Single feed = inventory.tenants().get(tenantId).environments().get(environmentId).feeds().get(feedId);
+
+        return Response.ok(new BulkIngestion(body, getObjectMapper(), feed, canCreateResources, canCreateMetrics,
+                (resourceId) -> security.canAssociateFrom(Resource.class, tenantId, environmentId, feedId,
+                        resourceId), batchSize)).build();
+    }
+
     @GET
     @Path("/{environmentId}/feeds")
     @ApiOperation("Return all the feeds registered with the inventory")
@@ -88,10 +128,9 @@ public class RestFeeds extends RestBase {
     public Response getAll(@PathParam("environmentId") String environmentId, @Context UriInfo uriInfo) {
         String tenantId = getTenantId();
 
-        Page<Feed> ret = inventory.tenants().get(tenantId).environments().get(environmentId).feeds().getAll()
-                .entities(extractPaging(uriInfo));
+        Feeds.Multiple ret = inventory.tenants().get(tenantId).environments().get(environmentId).feeds().getAll();
 
-        return pagedResponse(Response.ok(), uriInfo, ret).build();
+        return pagedOrStreamedResponse(Response.ok(), uriInfo, ret).build();
     }
 
     @GET
@@ -22,9 +22,9 @@ import com.wordnik.swagger.annotations.ApiOperation;
 import com.wordnik.swagger.annotations.ApiParam;
 import com.wordnik.swagger.annotations.ApiResponse;
 import com.wordnik.swagger.annotations.ApiResponses;
+import org.hawkular.inventory.api.MetricTypes;
 import org.hawkular.inventory.api.model.MetricType;
 import org.hawkular.inventory.api.model.Tenant;
-import org.hawkular.inventory.api.paging.Page;
 import org.hawkular.inventory.rest.json.ApiError;
 
 import javax.ws.rs.Consumes;
@@ -41,7 +41,6 @@ import javax.ws.rs.core.UriInfo;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
-import static org.hawkular.inventory.rest.RequestUtil.extractPaging;
 
 /**
  * @author Lukas Krejci
@@ -61,10 +60,9 @@ public class RestMetricTypes extends RestBase {
             @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
     })
     public Response getAll(@Context UriInfo uriInfo) {
-        Page<MetricType> ret = inventory.tenants().get(getTenantId()).metricTypes().getAll()
-                .entities(extractPaging(uriInfo));
+        MetricTypes.Multiple ret = inventory.tenants().get(getTenantId()).metricTypes().getAll();
 
-        return ResponseUtil.pagedResponse(Response.ok(), uriInfo, ret).build();
+        return pagedOrStreamedResponse(Response.ok(), uriInfo, ret).build();
     }
 
     @GET
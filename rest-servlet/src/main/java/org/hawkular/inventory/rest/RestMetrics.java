@@ -27,7 +27,6 @@ import org.hawkular.inventory.api.Metrics;
 import org.hawkular.inventory.api.model.Environment;
 import org.hawkular.inventory.api.model.Feed;
 import org.hawkular.inventory.api.model.Metric;
-import org.hawkular.inventory.api.paging.Page;
 import org.hawkular.inventory.rest.json.ApiError;
 
 import javax.ws.rs.Consumes;
@@ -172,10 +171,9 @@ public class RestMetrics extends RestBase {
 
         Environments.Single envs = inventory.tenants().get(tenantId).environments().get(environmentId);
 
-        Page<Metric> ret = (feedless ? envs.feedlessMetrics() : envs.allMetrics())
-                .getAll().entities(RequestUtil.extractPaging(uriInfo));
+        Metrics.Multiple ret = (feedless ? envs.feedlessMetrics() : envs.allMetrics()).getAll();
 
-        return ResponseUtil.pagedResponse(Response.ok(), uriInfo, ret).build();
+        return pagedOrStreamedResponse(Response.ok(), uriInfo, ret).build();
     }
 
     @GET
@@ -191,9 +189,9 @@ public class RestMetrics extends RestBase {
     public Response getMetrics(@PathParam("environmentId") String environmentId, @PathParam("feedId") String feedId,
             @Context UriInfo uriInfo) {
 
-        Page<Metric> ret = inventory.tenants().get(getTenantId()).environments().get(environmentId).feeds()
-                .get(feedId).metrics().getAll().entities(RequestUtil.extractPaging(uriInfo));
-        return ResponseUtil.pagedResponse(Response.ok(), uriInfo, ret).build();
+        Metrics.Multiple ret = inventory.tenants().get(getTenantId()).environments().get(environmentId).feeds()
+                .get(feedId).metrics().getAll();
+        return pagedOrStreamedResponse(Response.ok(), uriInfo, ret).build();
     }
 
     @PUT
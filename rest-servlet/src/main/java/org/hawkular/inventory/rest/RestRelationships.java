@@ -21,10 +21,6 @@ import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
 import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 
-import static org.hawkular.inventory.rest.RequestUtil.extractPaging;
-import static org.hawkular.inventory.rest.ResponseUtil.pagedResponse;
-
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wordnik.swagger.annotations.Api;
 import com.wordnik.swagger.annotations.ApiOperation;
@@ -49,7 +45,6 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
-import javax.ws.rs.ext.ContextResolver;
 import javax.ws.rs.ext.Providers;
 import org.hawkular.inventory.api.Environments;
 import org.hawkular.inventory.api.Relationships;
@@ -66,8 +61,6 @@ import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.Tenant;
-import org.hawkular.inventory.api.paging.Page;
-import org.hawkular.inventory.api.paging.Pager;
 import org.hawkular.inventory.base.spi.CanonicalPath;
 import org.hawkular.inventory.rest.json.ApiError;
 import org.hawkular.inventory.rest.json.EmbeddedObjectMapper;
@@ -126,27 +119,18 @@ public class RestRelationships extends RestBase {
         }
         CanonicalPath cPath = Security.getCanonicalPath(securityId);
         ResolvableToSingleWithRelationships<Relationship> resolvable = getResolvableFromCanonicalPath(cPath);
-        Pager pager = extractPaging(uriInfo);
         RelationFilter[] filters = extractFilters(propertyName, propertyValue, named, sourceType,
                                                   targetType, uriInfo);
         Relationships.Direction directed = Relationships.Direction.valueOf(direction);
-        Page<Relationship> relations = resolvable.relationships(directed).getAll(filters).entities(pager);
-
-        ContextResolver<ObjectMapper> contextResolver =
-                providers.getContextResolver(ObjectMapper.class, APPLICATION_JSON_TYPE);
+        Relationships.Multiple relations = resolvable.relationships(directed).getAll(filters);
 
         // json-ld serialization
         if (Boolean.parseBoolean(jsonLd)) {
-            ObjectMapper mapper = contextResolver.getContext(EmbeddedObjectMapper.class);
-            Object json;
-            try {
-                json = mapper.writeValueAsString(relations);
-            } catch (JsonProcessingException e) {
-                json = relations;
-            }
-            return pagedResponse(Response.ok(), uriInfo, relations, json).build();
+            ObjectMapper mapper = providers.getContextResolver(ObjectMapper.class, APPLICATION_JSON_TYPE)
+                    .getContext(EmbeddedObjectMapper.class);
+            return pagedOrStreamedResponse(Response.ok(), uriInfo, relations, mapper).build();
         }
-        return pagedResponse(Response.ok(), uriInfo, relations).build();
+        return pagedOrStreamedResponse(Response.ok(), uriInfo, relations).build();
     }
 
     @DELETE
@@ -23,13 +23,12 @@ import com.wordnik.swagger.annotations.ApiParam;
 import com.wordnik.swagger.annotations.ApiResponse;
 import com.wordnik.swagger.annotations.ApiResponses;
 
+import org.hawkular.inventory.api.MetricTypes;
 import org.hawkular.inventory.api.MetricTypes.ReadAssociate;
 import org.hawkular.inventory.api.ResourceTypes;
 import org.hawkular.inventory.api.model.MetricType;
-import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.Tenant;
-import org.hawkular.inventory.api.paging.Page;
 import org.hawkular.inventory.rest.json.ApiError;
 
 import java.util.Collection;
@@ -49,9 +48,6 @@ import javax.ws.rs.core.UriInfo;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
 
-import static org.hawkular.inventory.rest.RequestUtil.extractPaging;
-import static org.hawkular.inventory.rest.ResponseUtil.pagedResponse;
-
 /**
  * @author Lukas Krejci
  * @since 1.0
@@ -72,10 +68,9 @@ public class RestResourceTypes extends RestBase {
             @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
     })
     public Response getAll(@Context UriInfo uriInfo) {
-        Page<ResourceType> ret = inventory.tenants().get(getTenantId()).resourceTypes().getAll()
-                .entities(extractPaging(uriInfo));
+        ResourceTypes.Multiple ret = inventory.tenants().get(getTenantId()).resourceTypes().getAll();
 
-        return pagedResponse(Response.ok(), uriInfo, ret).build();
+        return pagedOrStreamedResponse(Response.ok(), uriInfo, ret).build();
     }
 
     @GET
@@ -101,10 +96,10 @@ public class RestResourceTypes extends RestBase {
             @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
     })
     public Response getMetricTypes(@PathParam("resourceTypeId") String resourceTypeId, @Context UriInfo uriInfo) {
-        Page<MetricType> ret = inventory.tenants().get(getTenantId()).resourceTypes().get(resourceTypeId).metricTypes()
-                .getAll().entities(extractPaging(uriInfo));
+        MetricTypes.Multiple ret = inventory.tenants().get(getTenantId()).resourceTypes().get(resourceTypeId)
+                .metricTypes().getAll();
 
-        return pagedResponse(Response.ok(), uriInfo, ret).build();
+        return pagedOrStreamedResponse(Response.ok(), uriInfo, ret).build();
     }
 
     @GET
@@ -122,8 +117,7 @@ public class RestResourceTypes extends RestBase {
 
         ResourceTypes.Single single = inventory.tenants().get(tenantId).resourceTypes().get(resourceTypeId);
         single.entity(); // check whether it exists
-        Page<Resource> ret = single.resources().getAll().entities(extractPaging(uriInfo));
-        return pagedResponse(Response.ok(), uriInfo, ret).build();
+        return pagedOrStreamedResponse(Response.ok(), uriInfo, single.resources().getAll()).build();
     }
 
     @POST
@@ -206,7 +200,7 @@ public class RestResourceTypes extends RestBase {
 
         ReadAssociate metricTypesDao = inventory.tenants().get(tenantId).resourceTypes().get(resourceTypeId)
                 .metricTypes();
-        metricTypeIds.forEach(metricTypesDao::associate);
+        metricTypesDao.associateAll(metricTypeIds);
 
         return Response.noContent().build();
     }
@@ -239,10 +233,10 @@ public class RestResourceTypes extends RestBase {
     public Response getAssociatedMetricTypes(@PathParam("resourceTypeId") String resourceTypeId,
             @Context UriInfo uriInfo) {
         String tenantId = getTenantId();
-        Page<MetricType> mTypes = inventory.tenants().get(tenantId).resourceTypes().get(resourceTypeId)
-                .metricTypes().getAll().entities(extractPaging(uriInfo));
+        MetricTypes.Multiple mTypes = inventory.tenants().get(tenantId).resourceTypes().get(resourceTypeId)
+                .metricTypes().getAll();
 
-        return pagedResponse(Response.ok(), uriInfo, mTypes).build();
+        return pagedOrStreamedResponse(Response.ok(), uriInfo, mTypes).build();
     }
 
     @DELETE
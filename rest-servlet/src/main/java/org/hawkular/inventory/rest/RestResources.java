@@ -20,9 +20,6 @@ package org.hawkular.inventory.rest;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
 
-import static org.hawkular.inventory.rest.RequestUtil.extractPaging;
-import static org.hawkular.inventory.rest.ResponseUtil.pagedResponse;
-
 import com.wordnik.swagger.annotations.Api;
 import com.wordnik.swagger.annotations.ApiOperation;
 import com.wordnik.swagger.annotations.ApiParam;
@@ -54,11 +51,8 @@ import org.hawkular.inventory.api.model.Feed;
 import org.hawkular.inventory.api.model.Metric;
 import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
-import org.hawkular.inventory.api.paging.Page;
-import org.hawkular.inventory.api.paging.Pager;
 import org.hawkular.inventory.rest.json.ApiError;
 
-
 /**
  * @author Lukas Krejci
  * @since 1.0
@@ -140,15 +134,14 @@ public class RestResources extends RestBase {
         Environments.Single envs = inventory.tenants().get(tenantId).environments().get(environmentId);
 
         ResolvingToMultiple<Resources.Multiple> rr = feedless ? envs.feedlessResources() : envs.allResources();
-        Pager pager = extractPaging(uriInfo);
-        Page<Resource> rs;
+        Resources.Multiple rs;
         if (typeId != null && typeVersion != null) {
             ResourceType rt = new ResourceType(tenantId, typeId, typeVersion);
-            rs = rr.getAll(Defined.by(rt)).entities(pager);
+            rs = rr.getAll(Defined.by(rt));
         } else {
-            rs = rr.getAll().entities(pager);
+            rs = rr.getAll();
         }
-        return pagedResponse(Response.ok(), uriInfo, rs).build();
+        return pagedOrStreamedResponse(Response.ok(), uriInfo, rs).build();
     }
 
     @GET
@@ -167,15 +160,14 @@ public class RestResources extends RestBase {
 
         Resources.ReadWrite rr = inventory.tenants().get(tenantId).environments().get(environmentId)
                 .feeds().get(feedId).resources();
-        Pager pager = extractPaging(uriInfo);
-        Page<Resource> rs;
+        Resources.Multiple rs;
         if (typeId != null && typeVersion != null) {
             ResourceType rt = new ResourceType(tenantId, typeId, typeVersion);
-            rs = rr.getAll(Defined.by(rt)).entities(pager);
+            rs = rr.getAll(Defined.by(rt));
         } else {
-            rs = rr.getAll().entities(pager);
+            rs = rr.getAll();
         }
-        return pagedResponse(Response.ok(), uriInfo, rs).build();
+        return pagedOrStreamedResponse(Response.ok(), uriInfo, rs).build();
     }
 
     @GET
@@ -321,7 +313,7 @@ public class RestResources extends RestBase {
         Metrics.ReadAssociate metricDao = inventory.tenants().get(tenantId).environments().get(environmentId)
                 .feedlessResources().get(resourceId).metrics();
 
-        metricIds.forEach(metricDao::associate);
+        metricDao.associateAll(metricIds);
 
         return Response.noContent().build();
     }
@@ -348,7 +340,7 @@ public class RestResources extends RestBase {
         Metrics.ReadAssociate metricDao = inventory.tenants().get(tenantId).environments().get(environmentId)
                 .feeds().get(feedId).resources().get(resourceId).metrics();
 
-        metricIds.forEach(metricDao::associate);
+        metricDao.associateAll(metricIds);
 
         return Response.noContent().build();
     }
@@ -364,10 +356,10 @@ public class RestResources extends RestBase {
     })
     public Response getAssociatedMetrics(@PathParam("environmentId") String environmentID,
             @PathParam("resourceId") String resourceId, @Context UriInfo uriInfo) {
-        Page<Metric> ms = inventory.tenants().get(getTenantId()).environments().get(environmentID)
-                    .feedlessResources().get(resourceId).metrics().getAll().entities(extractPaging(uriInfo));
+        Metrics.Multiple ms = inventory.tenants().get(getTenantId()).environments().get(environmentID)
+                    .feedlessResources().get(resourceId).metrics().getAll();
 
-        return pagedResponse(Response.ok(), uriInfo, ms).build();
+        return pagedOrStreamedResponse(Response.ok(), uriInfo, ms).build();
     }
 
     @GET
@@ -381,10 +373,9 @@ public class RestResources extends RestBase {
     })
     public Response getAssociatedMetrics(@PathParam("environmentId") String environmentId,
             @PathParam("feedId") String feedId, @PathParam("resourceId") String resourceId, @Context UriInfo uriInfo) {
-        Page<Metric> ms = inventory.tenants().get(getTenantId()).environments().get(environmentId)
-                 .feeds().get(feedId).resources().get(resourceId).metrics().getAll()
-                 .entities(extractPaging(uriInfo));
-        return pagedResponse(Response.ok(), uriInfo, ms).build();
+        Metrics.Multiple ms = inventory.tenants().get(getTenantId()).environments().get(environmentId)
+                 .feeds().get(feedId).resources().get(resourceId).metrics().getAll();
+        return pagedOrStreamedResponse(Response.ok(), uriInfo, ms).build();
     }
 
     @GET
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.rest.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes the elements of a stream as a JSON array, serializing them one by one as they are consumed from the stream,
+ * so that the elements never need to be held in memory all at once.
+ *
+ * <p>The stream is only opened when the output is being written and is closed once written, so any resources held
+ * by the stream (like temporary files) are acquired and released by the thread writing the output. If the container
+ * never writes the output (e.g. for HEAD requests or when the client disconnects before), the stream is never
+ * opened. The inventory streams don't hold a transaction while their elements are being written.
+ *
+ * @since 0.1.0
+ */
+public final class JsonStreamingOutput implements StreamingOutput {
+    private final Supplier<? extends Stream<?>> data;
+    private final ObjectMapper mapper;
+
+    /**
+     * @param data   the supplier of the stream of elements to write, called once when the output is written
+     * @param mapper the object mapper to serialize the elements with
+     */
+    public JsonStreamingOutput(Supplier<? extends Stream<?>> data, ObjectMapper mapper) {
+        this.data = data;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        //flushing after each element would defeat the buffering of the output
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (Stream<?> elements = data.get();
+             JsonGenerator generator = mapper.getFactory().createGenerator(output)) {
+
+            //the output stream is owned by the container
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (mapper.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
+                generator.useDefaultPrettyPrinter();
+            }
+
+            generator.writeStartArray();
+
+            Iterator<?> it = elements.iterator();
+            while (it.hasNext()) {
+                writer.writeValue(generator, it.next());
+            }
+
+            generator.writeEndArray();
+        }
+    }
+}
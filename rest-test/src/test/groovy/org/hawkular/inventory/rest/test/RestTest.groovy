@@ -16,6 +16,7 @@
  */
 package org.hawkular.inventory.rest.test
 
+import groovy.json.JsonSlurper
 import org.junit.AfterClass
 import org.junit.BeforeClass
 import org.junit.Test
@@ -227,6 +228,71 @@ class RestTest extends AbstractTestBase {
         assert first.equals(response.data.get(0))
     }
 
+    @Test
+    void testStreaming() {
+        //all the results are streamed without the total by default
+        def response = client.get(path: "com.example.tenant/test/resources", query: [sort: "id", order: "desc"])
+        assertEquals(200, response.status)
+        assert response.headers."X-Total-Count" == null
+        assertEquals(["playroom2", "playroom1"], response.data.collect { it.id })
+
+        //unless the caller asks for the total
+        response = client.get(path: "com.example.tenant/test/resources",
+                query: [total: "exact", sort: "id", order: "desc"])
+        assertEquals(200, response.status)
+        assertEquals("2", response.headers."X-Total-Count".value)
+        assertEquals(["playroom2", "playroom1"], response.data.collect { it.id })
+
+        //the stream doesn't hold a transaction that would block the following modification, whether the response is
+        //written or not
+        response = client.head(path: "com.example.tenant/test/resources")
+        assertEquals(200, response.status)
+
+        response = client.post(path: "com.example.tenant/test/resources",
+                body: "{\"id\": \"playroom3\", \"resourceTypeId\": \"Playroom\"}")
+        assertEquals(201, response.status)
+
+        response = client.delete(path: "com.example.tenant/test/resources/playroom3")
+        assertEquals(204, response.status)
+    }
+
+    @Test
+    void testBulkCreate() {
+        def response = client.post(path: "com.example.tenant/test/feeds", body: '{"id" : "bulkFeed"}')
+        assertEquals(201, response.status)
+
+        //the bulk ingestion consumes and produces newline-delimited JSON, which we send and read as plain text
+        client.encoder."application/x-ndjson" = client.encoder.&encodeText
+        client.parser."application/x-ndjson" = client.parser.&parseText
+
+        def body = [
+                '{"resource": {"id": "bulk1", "resourceTypeId": "Playroom"}}',
+                '{"resource": {"id": "bulk2", "resourceTypeId": "Playroom"}}',
+                '{"metric": {"id": "bulk1_size", "metricTypeId": "Size"}}',
+                '{"metric": {"id": "bulk2_size", "metricTypeId": "Size"}}',
+                '{"association": {"resourceId": "bulk1", "metricId": "bulk1_size"}}',
+                '{"association": {"resourceId": "bulk2", "metricId": "bulk2_size"}}',
+                '{"association": {"resourceId": "bulk1", "metricId": "bulk1_size"}}',
+                '{"association": {"resourceId": "bulk1", "metricId": "nonexistent"}}',
+                '{"kachna": {}}'
+        ].join("\n")
+
+        response = client.post(path: "com.example.tenant/test/bulkFeed/bulk", body: body,
+                requestContentType: "application/x-ndjson", contentType: "application/x-ndjson")
+        assertEquals(200, response.status)
+
+        def results = response.data.text.readLines().collect { new JsonSlurper().parseText(it) }
+        assertEquals((1..9).toList(), results.collect { it.line })
+        assertEquals([201, 201, 201, 201, 204, 204, 409, 404, 400], results.collect { it.status })
+
+        //the failing association of bulk1 doesn't prevent the valid one from being made
+        assertEntitiesExist("com.example.tenant/test/bulkFeed/resources/bulk1/metrics", ["bulk1_size"])
+        assertEntitiesExist("com.example.tenant/test/bulkFeed/resources/bulk2/metrics", ["bulk2_size"])
+
+        response = client.delete(path: "com.example.tenant/test/feeds/bulkFeed")
+        assertEquals(204, response.status)
+    }
+
     private static void assertEntityExists(path, id) {
         def response = client.get(path: path)
         assert id.equals(response.data.id)